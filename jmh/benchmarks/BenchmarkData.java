@@ -0,0 +1,138 @@
+package benchmarks;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Input files shared by the benchmarks
+ *
+ * The hypernyms default to data/hypernyms.txt and the synsets to
+ * data/synsets.txt, both can be overridden with the wordnet.hypernyms and
+ * wordnet.synsets system properties. When there is no synsets file one is
+ * generated from the hypernyms: synset i holds the noun "n{i}" and every
+ * fifth synset also holds one of the shared nouns "m{j}", which gives the
+ * queries a supply of nouns that resolve to several synsets.
+ */
+final class BenchmarkData {
+
+    static final long SEED = 20170305L;
+
+    private static final int SHARED_NOUNS = 4000;
+
+    // generated once when there is no synsets file
+    private static Path generatedSynsets;
+    // number of synsets of every noun, counted once from the synsets file
+    private static Map<String, Integer> synsetCounts;
+
+    private BenchmarkData() {
+    }
+
+    static String hypernyms() {
+        return System.getProperty("wordnet.hypernyms", "data/hypernyms.txt");
+    }
+
+    static String synsets() {
+        String synsets = System.getProperty("wordnet.synsets", "data/synsets.txt");
+        if (Files.isRegularFile(Paths.get(synsets))) {
+            return synsets;
+        }
+
+        synchronized (BenchmarkData.class) {
+            if (generatedSynsets == null) {
+                generatedSynsets = generateSynsets(Paths.get(hypernyms()));
+            }
+
+            return generatedSynsets.toString();
+        }
+    }
+
+    static Object wordnet() {
+        return WordNetApi.wordnet(synsets(), hypernyms());
+    }
+
+    /**
+     * Picks nouns for the query benchmarks, the ones in several synsets or
+     * the ones in a single synset
+     */
+    static List<String> nouns(Object wordnet, boolean multi, int count, Random random) {
+        Map<String, Integer> counts = synsetCounts();
+        List<String> all = new ArrayList<>();
+        for (String noun: WordNetApi.nouns(wordnet)) {
+            if ((counts.getOrDefault(noun, 1) > 1) == multi) {
+                all.add(noun);
+            }
+        }
+        if (all.isEmpty()) {
+            WordNetApi.nouns(wordnet).forEach(all::add);
+        }
+
+        List<String> nouns = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            nouns.add(all.get(random.nextInt(all.size())));
+        }
+
+        return nouns;
+    }
+
+    private static synchronized Map<String, Integer> synsetCounts() {
+        if (synsetCounts != null) {
+            return synsetCounts;
+        }
+        Map<String, Integer> counts = new HashMap<>();
+        try (BufferedReader reader = Files.newBufferedReader(Paths.get(synsets()), StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int first = line.indexOf(',');
+                int second = line.indexOf(',', first + 1);
+                if (first == -1 || second == -1) {
+                    continue;
+                }
+                for (String noun: line.substring(first + 1, second).split(" ")) {
+                    counts.merge(noun, 1, Integer::sum);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        synsetCounts = counts;
+
+        return counts;
+    }
+
+    private static Path generateSynsets(Path hypernyms) {
+        try {
+            Path synsets = Files.createTempFile("synsets", ".txt");
+            synsets.toFile().deleteOnExit();
+            try (BufferedReader reader = Files.newBufferedReader(hypernyms, StandardCharsets.US_ASCII);
+                 BufferedWriter writer = Files.newBufferedWriter(synsets, StandardCharsets.US_ASCII)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    int comma = line.indexOf(',');
+                    int id = Integer.parseInt(comma == -1 ? line : line.substring(0, comma));
+                    writer.write(id + ",n" + id);
+                    if (id % 5 == 0) {
+                        writer.write(" m" + (id / 5 % SHARED_NOUNS));
+                    }
+                    writer.write(",generated synset " + id);
+                    writer.newLine();
+                }
+            }
+
+            return synsets;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+}
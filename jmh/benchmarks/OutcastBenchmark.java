@@ -0,0 +1,55 @@
+package benchmarks;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Outcast of random noun lists of the given size
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class OutcastBenchmark {
+
+    private static final int LISTS = 64;
+
+    @Param({"4", "8", "16", "64"})
+    public int size;
+
+    private Object outcast;
+    private String[][] lists;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        Object wordnet = BenchmarkData.wordnet();
+        Random random = new Random(BenchmarkData.SEED);
+        outcast = WordNetApi.outcast(wordnet);
+        lists = new String[LISTS][];
+        for (int i = 0; i < LISTS; i++) {
+            List<String> nouns = BenchmarkData.nouns(wordnet, random.nextBoolean(), size, random);
+            lists[i] = nouns.toArray(new String[size]);
+        }
+    }
+
+    @Benchmark
+    public String outcast() {
+        return WordNetApi.outcast(outcast, lists[next++ & (LISTS - 1)]);
+    }
+
+}
@@ -0,0 +1,90 @@
+package benchmarks;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Shortest ancestral path queries between pairs of nouns, served by
+ * SAP.length through WordNet.distance and SAP.ancestor through WordNet.sap
+ *
+ * Pairs are sampled once per trial and bucketed by their distance: near
+ * pairs are at most NEAR apart, distant pairs at least DISTANT apart.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SAPBenchmark {
+
+    private static final int PAIRS = 1024;
+    private static final int NEAR = 6;
+    private static final int DISTANT = 14;
+    private static final int MAX_SAMPLES = 10_000_000;
+
+    @Param({"single", "multi"})
+    public String synsets;
+
+    @Param({"near", "distant"})
+    public String span;
+
+    private Object wordnet;
+    private String[] nounsA;
+    private String[] nounsB;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        wordnet = BenchmarkData.wordnet();
+        Random random = new Random(BenchmarkData.SEED);
+        boolean multi = synsets.equals("multi");
+        boolean near = span.equals("near");
+
+        List<String> candidates = BenchmarkData.nouns(wordnet, multi, 4096, random);
+        nounsA = new String[PAIRS];
+        nounsB = new String[PAIRS];
+        int found = 0;
+        for (int i = 0; i < MAX_SAMPLES && found < PAIRS; i++) {
+            String a = candidates.get(random.nextInt(candidates.size()));
+            String b = candidates.get(random.nextInt(candidates.size()));
+            int distance = WordNetApi.distance(wordnet, a, b);
+            if (near ? distance >= 0 && distance <= NEAR : distance >= DISTANT) {
+                nounsA[found] = a;
+                nounsB[found] = b;
+                found++;
+            }
+        }
+        if (found < PAIRS) {
+            throw new IllegalStateException(
+                "not enough " + span + " pairs of " + synsets + " synset nouns");
+        }
+    }
+
+    @Benchmark
+    public int length() {
+        int i = next++ & (PAIRS - 1);
+
+        return WordNetApi.distance(wordnet, nounsA[i], nounsB[i]);
+    }
+
+    @Benchmark
+    public String ancestor() {
+        int i = next++ & (PAIRS - 1);
+
+        return WordNetApi.sap(wordnet, nounsA[i], nounsB[i]);
+    }
+
+}
@@ -0,0 +1,118 @@
+package benchmarks;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A load test of WordNetServer
+ *
+ * Starts a server on a local port and runs clients issuing distance requests
+ * over keep-alive connections as fast as they are answered, with 1, 2, 4...
+ * up to twice the number of cores concurrent clients. Prints the throughput
+ * of answered requests, the ones with status 200, for every number of
+ * clients. Rejected requests, status 503, and failed ones, any other
+ * status, are counted separately.
+ *
+ *     $ ./gradlew loadTest
+ *
+ * The run length in seconds of each step can be set with the
+ * loadtest.seconds system property.
+ */
+public final class ServerLoadTest {
+
+    private static final int PAIRS = 4096;
+
+    private ServerLoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int seconds = Integer.getInteger("loadtest.seconds", 5);
+        int cores = Runtime.getRuntime().availableProcessors();
+        Object wordnet = BenchmarkData.wordnet();
+        Object server = WordNetApi.startServer(wordnet, 4 * cores);
+        try {
+            String[] queries = queries(wordnet, WordNetApi.port(server));
+            System.out.printf("%d cores, %d s per step%n", cores, seconds);
+            System.out.printf("%8s %12s %10s %10s%n", "clients", "requests/s", "rejected", "failed");
+            // the first step warms the server up and is not reported
+            run(queries, cores, 1);
+            for (int clients = 1; clients <= 2 * cores; clients *= 2) {
+                run(queries, clients, seconds);
+            }
+        } finally {
+            WordNetApi.stopServer(server);
+        }
+    }
+
+    private static String[] queries(Object wordnet, int port) throws IOException {
+        Random random = new Random(BenchmarkData.SEED);
+        List<String> nouns = BenchmarkData.nouns(wordnet, false, PAIRS, random);
+        String[] queries = new String[PAIRS];
+        for (int i = 0; i < PAIRS; i++) {
+            queries[i] = "http://localhost:" + port + "/distance"
+                + "?v=" + URLEncoder.encode(nouns.get(i), "UTF-8")
+                + "&w=" + URLEncoder.encode(nouns.get((i * 31 + 7) % PAIRS), "UTF-8");
+        }
+
+        return queries;
+    }
+
+    private static void run(String[] queries, int clients, int seconds) throws InterruptedException {
+        LongAdder answered = new LongAdder();
+        LongAdder rejected = new LongAdder();
+        LongAdder failed = new LongAdder();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        CountDownLatch done = new CountDownLatch(clients);
+        for (int c = 0; c < clients; c++) {
+            int first = c;
+            Thread thread = new Thread(() -> {
+                try {
+                    for (int i = first; System.nanoTime() < deadline; i++) {
+                        int status = get(queries[i & (PAIRS - 1)]);
+                        if (status == 200) {
+                            answered.increment();
+                        } else if (status == 503) {
+                            rejected.increment();
+                        } else {
+                            failed.increment();
+                        }
+                    }
+                } finally {
+                    done.countDown();
+                }
+            });
+            thread.start();
+        }
+        done.await();
+
+        System.out.printf("%8d %12.0f %10d %10d%n",
+            clients, answered.sum() / (double) seconds, rejected.sum(), failed.sum());
+    }
+
+    private static int get(String query) {
+        try {
+            HttpURLConnection connection = (HttpURLConnection) new URL(query).openConnection();
+            int status = connection.getResponseCode();
+            InputStream in = status < 400 ? connection.getInputStream() : connection.getErrorStream();
+            byte[] buffer = new byte[256];
+            while (in.read(buffer) != -1) {
+                // drained so that the connection can be reused
+            }
+            in.close();
+
+            return status;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+}
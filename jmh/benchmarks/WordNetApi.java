@@ -0,0 +1,174 @@
+package benchmarks;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.net.InetSocketAddress;
+
+/**
+ * Method handles to the WordNet API
+ *
+ * The library lives in the unnamed package, which cannot be imported from
+ * the named package JMH requires for benchmarks, so the benchmarks call it
+ * through constant method handles. Those are inlined by the JIT like a
+ * direct call.
+ */
+final class WordNetApi {
+
+    static final MethodHandle NEW_WORDNET;
+    static final MethodHandle NOUNS;
+    static final MethodHandle DISTANCE;
+    static final MethodHandle SAP;
+    static final MethodHandle NEW_OUTCAST;
+    static final MethodHandle OUTCAST;
+    static final MethodHandle NEW_SERVER;
+    static final MethodHandle START_SERVER;
+    static final MethodHandle STOP_SERVER;
+    static final MethodHandle SERVER_PORT;
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+            Class<?> wordnet = Class.forName("WordNet");
+            Class<?> outcast = Class.forName("Outcast");
+            Class<?> server = Class.forName("WordNetServer");
+
+            NEW_WORDNET = lookup
+                .findConstructor(wordnet, MethodType.methodType(void.class, String.class, String.class))
+                .asType(MethodType.methodType(Object.class, String.class, String.class));
+            NOUNS = lookup
+                .findVirtual(wordnet, "nouns", MethodType.methodType(Iterable.class))
+                .asType(MethodType.methodType(Iterable.class, Object.class));
+            DISTANCE = lookup
+                .findVirtual(wordnet, "distance", MethodType.methodType(int.class, String.class, String.class))
+                .asType(MethodType.methodType(int.class, Object.class, String.class, String.class));
+            SAP = lookup
+                .findVirtual(wordnet, "sap", MethodType.methodType(String.class, String.class, String.class))
+                .asType(MethodType.methodType(String.class, Object.class, String.class, String.class));
+            NEW_OUTCAST = lookup
+                .findConstructor(outcast, MethodType.methodType(void.class, wordnet))
+                .asType(MethodType.methodType(Object.class, Object.class));
+            OUTCAST = lookup
+                .findVirtual(outcast, "outcast", MethodType.methodType(String.class, String[].class))
+                .asType(MethodType.methodType(String.class, Object.class, String[].class));
+            NEW_SERVER = lookup
+                .findConstructor(server, MethodType.methodType(
+                    void.class, wordnet, InetSocketAddress.class, int.class))
+                .asType(MethodType.methodType(
+                    Object.class, Object.class, InetSocketAddress.class, int.class));
+            START_SERVER = lookup
+                .findVirtual(server, "start", MethodType.methodType(void.class))
+                .asType(MethodType.methodType(void.class, Object.class));
+            STOP_SERVER = lookup
+                .findVirtual(server, "stop", MethodType.methodType(void.class, int.class))
+                .asType(MethodType.methodType(void.class, Object.class, int.class));
+            SERVER_PORT = lookup
+                .findVirtual(server, "port", MethodType.methodType(int.class))
+                .asType(MethodType.methodType(int.class, Object.class));
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private WordNetApi() {
+    }
+
+    static Object wordnet(String synsets, String hypernyms) {
+        try {
+            return (Object) NEW_WORDNET.invokeExact(synsets, hypernyms);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    static Iterable<String> nouns(Object wordnet) {
+        try {
+            return (Iterable<String>) (Iterable) NOUNS.invokeExact(wordnet);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static int distance(Object wordnet, String nounA, String nounB) {
+        try {
+            return (int) DISTANCE.invokeExact(wordnet, nounA, nounB);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static String sap(Object wordnet, String nounA, String nounB) {
+        try {
+            return (String) SAP.invokeExact(wordnet, nounA, nounB);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static Object outcast(Object wordnet) {
+        try {
+            return (Object) NEW_OUTCAST.invokeExact(wordnet);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static String outcast(Object outcast, String[] nouns) {
+        try {
+            return (String) OUTCAST.invokeExact(outcast, nouns);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Starts a server for the wordnet on an ephemeral local port
+     */
+    static Object startServer(Object wordnet, int maxConcurrentRequests) {
+        try {
+            Object server = (Object) NEW_SERVER.invokeExact(
+                wordnet, new InetSocketAddress("localhost", 0), maxConcurrentRequests);
+            START_SERVER.invokeExact(server);
+
+            return server;
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static void stopServer(Object server) {
+        try {
+            STOP_SERVER.invokeExact(server, 0);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static int port(Object server) {
+        try {
+            return (int) SERVER_PORT.invokeExact(server);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+}
@@ -0,0 +1,40 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of building a WordNet from the synsets and hypernyms files
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class WordNetLoadBenchmark {
+
+    private String synsets;
+    private String hypernyms;
+
+    @Setup
+    public void setUp() {
+        synsets = BenchmarkData.synsets();
+        hypernyms = BenchmarkData.hypernyms();
+    }
+
+    @Benchmark
+    public Object load() {
+        return WordNetApi.wordnet(synsets, hypernyms);
+    }
+
+}
@@ -0,0 +1,287 @@
+import java.util.Arrays;
+
+/**
+ * An immutable index of the ancestors of every vertex of a digraph
+ *
+ * For each vertex v the index stores the (ancestor, distance) pairs of every
+ * vertex reachable from v, v itself included at distance 0, sorted by the
+ * ancestor. The shortest ancestral path of two vertices is then a merge of
+ * their two sorted rows instead of a breadth-first search. The rows of all
+ * vertices live in one flat int array, indexed by an array of offsets.
+ */
+public class AncestorIndex {
+
+    private final int V;
+    private final int[] offsets;
+    private final int[] entries;
+    private final ScratchPool<Closure[]> closures =
+        new ScratchPool<>(() -> new Closure[]{new Closure(), new Closure()});
+
+    public AncestorIndex(Digraph graph) {
+        this(graph, null, null);
+    }
+
+    /**
+     * Index of a graph grown from the graph of a previous index by adding
+     * vertices and edges. Only the rows of the affected vertices, the new
+     * ones and the ones that can reach an edge added to an old vertex, are
+     * searched again, the other rows are copied from the previous index.
+     */
+    AncestorIndex(Digraph graph, AncestorIndex previous, boolean[] affected) {
+        if (graph == null) {
+            throw new NullPointerException("graph is null");
+        }
+        graph = new Digraph(graph).freeze();
+        V = graph.V();
+        offsets = new int[V + 1];
+
+        int[] mark = new int[V];
+        int[] distance = new int[V];
+        int[] queue = new int[V];
+        long[] row = new long[V];
+        int[] pairs = new int[Math.max(Math.max(16, 2 * V),
+                                       previous == null ? 0 : previous.entries.length)];
+        int size = 0;
+        for (int v = 0; v < V; v++) {
+            if (previous != null && v < previous.V && !affected[v]) {
+                int from = previous.offsets[v];
+                int length = previous.offsets[v + 1] - from;
+                if (size + length > pairs.length) {
+                    pairs = Arrays.copyOf(pairs, Math.max(2 * pairs.length, size + length));
+                }
+                System.arraycopy(previous.entries, from, pairs, size, length);
+                size += length;
+                offsets[v + 1] = size;
+                continue;
+            }
+            // stamp marks with v + 1, so they do not have to be cleared
+            int stamp = v + 1;
+            int head = 0;
+            int tail = 0;
+            mark[v] = stamp;
+            distance[v] = 0;
+            queue[tail++] = v;
+            while (head < tail) {
+                int from = queue[head++];
+                for (int e = graph.offset(from); e < graph.offset(from + 1); e++) {
+                    int to = graph.target(e);
+                    if (mark[to] != stamp) {
+                        mark[to] = stamp;
+                        distance[to] = distance[from] + 1;
+                        queue[tail++] = to;
+                    }
+                }
+            }
+
+            for (int i = 0; i < tail; i++) {
+                row[i] = ((long) queue[i] << 32) | distance[queue[i]];
+            }
+            Arrays.sort(row, 0, tail);
+
+            if (size + 2 * tail > pairs.length) {
+                pairs = Arrays.copyOf(pairs, Math.max(2 * pairs.length, size + 2 * tail));
+            }
+            for (int i = 0; i < tail; i++) {
+                pairs[size++] = (int) (row[i] >>> 32);
+                pairs[size++] = (int) row[i];
+            }
+            offsets[v + 1] = size;
+        }
+        entries = Arrays.copyOf(pairs, size);
+    }
+
+    /**
+     * Merged rows of a set of vertices, keeping the shortest distance of
+     * ancestors shared by several of them
+     */
+    private static class Closure {
+        private int[] pairs = new int[64];
+        private int[] buffer = new int[64];
+        private int size;
+
+        public void of(int[] entries, int[] offsets, Iterable<Integer> vertices) {
+            size = 0;
+            for (int vertex: vertices) {
+                merge(entries, offsets[vertex], offsets[vertex + 1]);
+            }
+        }
+
+        public void of(int[] entries, int[] offsets, int[] vertices, int from, int to) {
+            size = 0;
+            for (int i = from; i < to; i++) {
+                merge(entries, offsets[vertices[i]], offsets[vertices[i] + 1]);
+            }
+        }
+
+        private void merge(int[] row, int from, int to) {
+            if (buffer.length < size + to - from) {
+                buffer = new int[2 * (size + to - from)];
+            }
+            int i = 0;
+            int j = from;
+            int n = 0;
+            while (i < size && j < to) {
+                if (pairs[i] < row[j]) {
+                    buffer[n++] = pairs[i++];
+                    buffer[n++] = pairs[i++];
+                } else if (pairs[i] > row[j]) {
+                    buffer[n++] = row[j++];
+                    buffer[n++] = row[j++];
+                } else {
+                    buffer[n++] = pairs[i];
+                    buffer[n++] = Math.min(pairs[i + 1], row[j + 1]);
+                    i += 2;
+                    j += 2;
+                }
+            }
+            while (i < size) {
+                buffer[n++] = pairs[i++];
+            }
+            while (j < to) {
+                buffer[n++] = row[j++];
+            }
+
+            int[] swap = pairs;
+            pairs = buffer;
+            buffer = swap;
+            size = n;
+        }
+    }
+
+    public int V() {
+        return V;
+    }
+
+    /**
+     * Number of (ancestor, distance) pairs stored for all the vertices
+     */
+    public int size() {
+        return entries.length / 2;
+    }
+
+    public int length(int v, int w) {
+        return SAP.lengthOf(path(v, w));
+    }
+
+    public int length(Iterable<Integer> v, Iterable<Integer> w) {
+        return SAP.lengthOf(path(v, w));
+    }
+
+    public int ancestor(int v, int w) {
+        return SAP.ancestorOf(path(v, w));
+    }
+
+    public int ancestor(Iterable<Integer> v, Iterable<Integer> w) {
+        return SAP.ancestorOf(path(v, w));
+    }
+
+    long path(int v, int w) {
+        validateVertex(v);
+        validateVertex(w);
+
+        return meet(entries, offsets[v], offsets[v + 1],
+                    entries, offsets[w], offsets[w + 1]);
+    }
+
+    long path(Iterable<Integer> v, Iterable<Integer> w) {
+        validateVertices(v);
+        validateVertices(w);
+
+        Closure[] pair = closures.borrow();
+        try {
+            pair[0].of(entries, offsets, v);
+            pair[1].of(entries, offsets, w);
+
+            return meet(pair[0].pairs, 0, pair[0].size, pair[1].pairs, 0, pair[1].size);
+        } finally {
+            closures.release(pair);
+        }
+    }
+
+    /**
+     * Shortest ancestral path of the vertices {@code v[vFrom]} up to
+     * {@code v[vTo - 1]} and {@code w[wFrom]} up to {@code w[wTo - 1]}
+     */
+    long path(int[] v, int vFrom, int vTo, int[] w, int wFrom, int wTo) {
+        validateVertices(v, vFrom, vTo);
+        validateVertices(w, wFrom, wTo);
+
+        Closure[] pair = closures.borrow();
+        try {
+            pair[0].of(entries, offsets, v, vFrom, vTo);
+            pair[1].of(entries, offsets, w, wFrom, wTo);
+
+            return meet(pair[0].pairs, 0, pair[0].size, pair[1].pairs, 0, pair[1].size);
+        } finally {
+            closures.release(pair);
+        }
+    }
+
+    /**
+     * Sorted (ancestor, distance) pairs of the ancestors of a set of vertices
+     */
+    int[] ancestors(int[] v, int from, int to) {
+        validateVertices(v, from, to);
+
+        Closure[] pair = closures.borrow();
+        try {
+            pair[0].of(entries, offsets, v, from, to);
+
+            return Arrays.copyOf(pair[0].pairs, pair[0].size);
+        } finally {
+            closures.release(pair);
+        }
+    }
+
+    /**
+     * Walks two sorted rows of (ancestor, distance) pairs and returns the
+     * common ancestor with the shortest total distance, packed with that
+     * distance by {@link SAP#pack(int, int)}
+     */
+    static long meet(int[] a, int aFrom, int aTo, int[] b, int bFrom, int bTo) {
+        int ancestor = -1;
+        int length = Integer.MAX_VALUE;
+        int i = aFrom;
+        int j = bFrom;
+        while (i < aTo && j < bTo) {
+            if (a[i] < b[j]) {
+                i += 2;
+            } else if (a[i] > b[j]) {
+                j += 2;
+            } else {
+                int dist = a[i + 1] + b[j + 1];
+                if (dist < length) {
+                    ancestor = a[i];
+                    length = dist;
+                }
+                i += 2;
+                j += 2;
+            }
+        }
+
+        return SAP.pack(ancestor, length);
+    }
+
+    private void validateVertices(Iterable<Integer> vertices) {
+        if (vertices == null) {
+            throw new NullPointerException("vertices are null");
+        }
+
+        for (int vertex: vertices) {
+            validateVertex(vertex);
+        }
+    }
+
+    private void validateVertices(int[] vertices, int from, int to) {
+        for (int i = from; i < to; i++) {
+            validateVertex(vertices[i]);
+        }
+    }
+
+    private void validateVertex(int vertex) {
+        if (vertex < 0 || vertex >= V) {
+            throw new IndexOutOfBoundsException("invalid vertex: " + vertex);
+        }
+    }
+
+}
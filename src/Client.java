@@ -5,6 +5,17 @@ import com.beust.jcommander.JCommander;
 import com.beust.jcommander.Parameter;
 import com.beust.jcommander.ParameterException;
 import com.beust.jcommander.Parameters;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
@@ -13,7 +24,6 @@ public class Client {
 
     @Parameter(
         names = {"--nouns", "-n"},
-        required = true,
         variableArity = true,
         description = "List of nouns separated by a space"
     )
@@ -21,12 +31,47 @@ public class Client {
 
     @Parameter(
         names = {"--action", "-a"},
-        required = true,
-        description = "Action to perform on nouns (ancestor|outcast)",
+        description = "Action to perform on nouns (ancestor|outcast|nearest)",
         validateWith = ActionValidator.class
     )
     private String action;
 
+    @Parameter(
+        names = {"--count", "-k"},
+        description = "Number of nouns listed by the nearest action"
+    )
+    private int count = 10;
+
+    @Parameter(
+        names = {"--snapshot", "-s"},
+        description = "Binary snapshot to load instead of the text files"
+    )
+    private String snapshot;
+
+    @Parameter(
+        names = {"--batch", "-b"},
+        description = "File of queries to answer, one per line, - for stdin"
+    )
+    private String batch;
+
+    @Parameter(
+        names = {"--threads", "-t"},
+        description = "Number of worker threads in batch mode"
+    )
+    private int threads = Runtime.getRuntime().availableProcessors();
+
+    @Parameter(
+        names = {"--port", "-p"},
+        description = "Serve queries over HTTP on the given local port"
+    )
+    private Integer port;
+
+    @Parameter(
+        names = {"--max-requests", "-m"},
+        description = "Maximum number of requests answered at once in server mode"
+    )
+    private int maxRequests = 256;
+
     @Parameter(
         names = {"--help", "-h"},
         description = "Usage help",
@@ -36,7 +81,8 @@ public class Client {
     public static class ActionValidator implements IParameterValidator {
         @Override
         public void validate(String param, String value) throws ParameterException {
-            if (!value.equals("ancestor") && !value.equals("outcast")) {
+            if (!value.equals("ancestor") && !value.equals("outcast")
+                    && !value.equals("nearest")) {
                 throw new ParameterException("Invalid action: " + value);
             }
         }
@@ -60,6 +106,29 @@ public class Client {
     }
 
     private void validate() throws ParameterException {
+        if (threads <= 0) {
+            throw new ParameterException("number of threads must be positive");
+        }
+        if (maxRequests <= 0) {
+            throw new ParameterException("maximum number of requests must be positive");
+        }
+        if (batch != null && port != null) {
+            throw new ParameterException("batch and server modes are exclusive");
+        }
+        if (batch != null || port != null) {
+            if (action != null || !nouns.isEmpty()) {
+                throw new ParameterException(
+                    "batch and server modes take their actions and nouns from the queries");
+            }
+            return;
+        }
+        if (action == null) {
+            throw new ParameterException("The following option is required: --action, -a");
+        }
+        if (nouns.isEmpty()) {
+            throw new ParameterException("The following option is required: --nouns, -n");
+        }
+
         if (action.equals("ancestor") && nouns.size() != 2) {
             throw new ParameterException(
                 "ancestor action requires exactly two nouns");
@@ -69,10 +138,32 @@ public class Client {
             throw new ParameterException(
                 "outcast action requires at least two nouns");
         }
+
+        if (action.equals("nearest") && nouns.size() != 1) {
+            throw new ParameterException(
+                "nearest action requires exactly one noun");
+        }
+
+        if (count < 0) {
+            throw new ParameterException("number of nearest nouns must not be negative");
+        }
     }
 
     private void run() {
-        WordNet wn = new WordNet("data/synsets.txt", "data/hypernyms.txt");
+        // a single command may fail on its nouns, so the graph is only
+        // loaded for the query
+        WordNet wn = snapshot != null
+            ? WordNet.open(snapshot)
+            : new WordNet("data/synsets.txt", "data/hypernyms.txt",
+                          new WordNet.Options().lazyGraph(batch == null && port == null));
+        if (batch != null) {
+            runBatch(wn);
+            return;
+        }
+        if (port != null) {
+            runServer(wn);
+            return;
+        }
         // validate nouns
         List<String> notFound = new ArrayList<>();
         for (String noun: nouns) {
@@ -91,6 +182,37 @@ public class Client {
             String ancestor = wn.sap(nouns.get(0), nouns.get(1));
             System.out.println(ancestor);
         }
+        if (action.equals("nearest")) {
+            for (String noun: wn.nearest(nouns.get(0), count)) {
+                System.out.println(noun);
+            }
+        }
+    }
+
+    private void runBatch(WordNet wn) {
+        // results are flushed by the batch, System.out is left open
+        Writer out = new BufferedWriter(
+            new OutputStreamWriter(System.out, StandardCharsets.UTF_8), 1 << 16);
+        try (BufferedReader in = batch.equals("-")
+                ? new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8))
+                : Files.newBufferedReader(Paths.get(batch), StandardCharsets.UTF_8)) {
+            new QueryBatch(wn, threads).run(in, out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void runServer(WordNet wn) {
+        try {
+            WordNetServer server = new WordNetServer(
+                wn, new InetSocketAddress("localhost", port), maxRequests);
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> server.stop(1)));
+            wn.metrics().register("wordnet:type=WordNetMetrics");
+            server.start();
+            System.out.println("listening on http://localhost:" + server.port() + "/");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
     }
 
 }
@@ -0,0 +1,88 @@
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Shares the result of a computation between identical requests
+ *
+ * A request whose key is being computed waits for the running computation
+ * instead of starting another one. Unlike a {@link QueryCache}, nothing is
+ * kept once the computation completes, the next request computes again.
+ * Every request gets a future of its own, so cancelling or completing it
+ * does not affect the others.
+ */
+class Coalescer<K, V> {
+
+    private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder computations = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+
+    /**
+     * The result of the computation of the key, run on the executor unless
+     * one is running already. A computation the executor rejects fails with
+     * a {@link RejectedExecutionException}.
+     */
+    CompletableFuture<V> submit(K key, Supplier<V> computation, Executor executor) {
+        if (key == null) {
+            throw new NullPointerException("key is null");
+        }
+        if (computation == null) {
+            throw new NullPointerException("computation is null");
+        }
+        if (executor == null) {
+            throw new NullPointerException("executor is null");
+        }
+
+        CompletableFuture<V> created = new CompletableFuture<>();
+        CompletableFuture<V> running = inFlight.putIfAbsent(key, created);
+        if (running != null) {
+            coalesced.increment();
+            return running.thenApply(result -> result);
+        }
+
+        computations.increment();
+        try {
+            executor.execute(() -> {
+                try {
+                    V result = computation.get();
+                    inFlight.remove(key, created);
+                    created.complete(result);
+                } catch (Throwable e) {
+                    inFlight.remove(key, created);
+                    created.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(key, created);
+            created.completeExceptionally(e);
+        }
+
+        return created.thenApply(result -> result);
+    }
+
+    /**
+     * Number of computations started
+     */
+    long computations() {
+        return computations.sum();
+    }
+
+    /**
+     * Number of requests that waited for a running computation
+     */
+    long coalesced() {
+        return coalesced.sum();
+    }
+
+    /**
+     * Number of computations running
+     */
+    int inFlight() {
+        return inFlight.size();
+    }
+
+}
@@ -1,51 +1,153 @@
-import java.util.HashSet;
-import java.util.Set;
+import java.util.Arrays;
 
 /**
  * Determines whether a digraph contains a directed cycle
+ *
+ * Runs Kahn's algorithm over primitive arrays, without recursion, so that
+ * neither deep nor adversarial graphs can overflow the stack. An acyclic
+ * graph also gets, from the same pass, a topological order, in which every
+ * vertex comes before the vertices it points to, and the depths of every
+ * vertex: the lengths of its shortest and of its longest path to a root,
+ * a vertex without outgoing edges.
  */
 public class CycleDetector {
 
-    private final Set<Integer> visited = new HashSet<>();
-    private final Set<Integer> stacked = new HashSet<>();
-    private final Digraph graph;
-    private Boolean cycle;
+    private final int V;
+    private final boolean cycle;
+    private final int roots;
+    // null when the graph has a cycle
+    private final int[] order;
+    private final int[] depths;
+    private final int[] maxDepths;
 
     public CycleDetector(Digraph graph) {
         if (graph == null) {
             throw new NullPointerException("graph is null");
         }
-        this.graph = graph;
-    }
+        graph = new Digraph(graph).freeze();
+        V = graph.V();
 
-    public boolean hasCycle() {
-        if (cycle != null) {
-            return cycle;
+        int[] indegree = new int[V];
+        for (int e = 0; e < graph.offset(V); e++) {
+            indegree[graph.target(e)]++;
+        }
+        int[] sorted = new int[V];
+        int size = 0;
+        int rootCount = 0;
+        for (int v = 0; v < V; v++) {
+            if (indegree[v] == 0) {
+                sorted[size++] = v;
+            }
+            if (graph.offset(v + 1) == graph.offset(v)) {
+                rootCount++;
+            }
+        }
+        for (int head = 0; head < size; head++) {
+            int v = sorted[head];
+            for (int e = graph.offset(v); e < graph.offset(v + 1); e++) {
+                int w = graph.target(e);
+                if (--indegree[w] == 0) {
+                    sorted[size++] = w;
+                }
+            }
         }
+        roots = rootCount;
+        cycle = size < V;
 
-        cycle = false;
-        for (int i = 0; i < graph.V() && !cycle; i++) {
-            if (!visited.contains(i)) {
-                cycle = detectCycle(i);
+        if (cycle) {
+            order = null;
+            depths = null;
+            maxDepths = null;
+            return;
+        }
+        order = sorted;
+        // vertices after v in the order are the ones it can reach, so going
+        // backwards the depths of its neighbors are already known
+        depths = new int[V];
+        maxDepths = new int[V];
+        for (int i = V - 1; i >= 0; i--) {
+            int v = order[i];
+            int depth = graph.offset(v + 1) == graph.offset(v) ? 0 : Integer.MAX_VALUE;
+            int maxDepth = 0;
+            for (int e = graph.offset(v); e < graph.offset(v + 1); e++) {
+                int w = graph.target(e);
+                depth = Math.min(depth, depths[w] + 1);
+                maxDepth = Math.max(maxDepth, maxDepths[w] + 1);
             }
+            depths[v] = depth;
+            maxDepths[v] = maxDepth;
         }
+    }
 
+    public boolean hasCycle() {
         return cycle;
     }
 
-    private boolean detectCycle(int v) {
-        visited.add(v);
-        stacked.add(v);
-        for (int w: graph.neighbors(v)) {
-            if (!visited.contains(w) && detectCycle(w)) {
-                return true;
-            } else if (stacked.contains(w)) {
-                return true;
-            }
+    /**
+     * Number of vertices without outgoing edges
+     */
+    public int rootCount() {
+        return roots;
+    }
+
+    /**
+     * Vertices in topological order, every vertex before its neighbors
+     */
+    public Iterable<Integer> order() {
+        validateAcyclic();
+        int[] sorted = order;
+
+        return () -> Arrays.stream(sorted).iterator();
+    }
+
+    /**
+     * Length of the shortest path from the vertex to a root
+     */
+    public int depth(int vertex) {
+        validateAcyclic();
+        validateVertex(vertex);
+
+        return depths[vertex];
+    }
+
+    /**
+     * Length of the longest path from the vertex to a root
+     */
+    public int maxDepth(int vertex) {
+        validateAcyclic();
+        validateVertex(vertex);
+
+        return maxDepths[vertex];
+    }
+
+    /**
+     * Shortest depths of all the vertices, shared and not to be modified
+     */
+    int[] depths() {
+        validateAcyclic();
+
+        return depths;
+    }
+
+    /**
+     * Longest depths of all the vertices, shared and not to be modified
+     */
+    int[] maxDepths() {
+        validateAcyclic();
+
+        return maxDepths;
+    }
+
+    private void validateAcyclic() {
+        if (cycle) {
+            throw new IllegalStateException("graph contains a cycle");
         }
-        stacked.remove(v);
+    }
 
-        return false;
+    private void validateVertex(int vertex) {
+        if (vertex < 0 || vertex >= V) {
+            throw new IndexOutOfBoundsException("invalid vertex: " + vertex);
+        }
     }
 
 }
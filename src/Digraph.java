@@ -1,15 +1,70 @@
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.stream.IntStream;
 
 /**
  * A directed graph of vertices named 0 to V-1
+ *
+ * Edges are collected in a growable edge list while the graph is built and
+ * compacted by {@link #freeze()} into an immutable compressed sparse row
+ * layout: the neighbors of vertex v are {@code targets[offsets[v]]} up to
+ * {@code targets[offsets[v + 1] - 1]}. Adding a vertex or an edge to a frozen
+ * graph keeps the layout and collects the additions in the edge list on top
+ * of it, until the next freeze merges them in, so that a few edits of a
+ * large graph do not copy it. Reads never freeze the graph, they merge the
+ * layout with the added edges of the vertices they read.
+ *
+ * A graph is not safe to use from several threads while vertices or edges
+ * are added or while it is frozen. Freeze it before sharing it, and share it
+ * through a safe publication such as a volatile or final field: reads of a
+ * frozen graph are safe from any thread, its reverse being built once under
+ * a lock.
+ *
+ * The layout of an off-heap graph lives in direct or memory mapped buffers
+ * instead of heap arrays, see {@link #offHeap(Digraph)}, so that a graph of
+ * tens of millions of vertices puts no load on the garbage collector. Both
+ * are read through the same accessors.
  */
 public class Digraph {
 
-    private final int V;
-    private final Map<Integer, List<Integer>> neighborhood = new HashMap<>();
+    private static final int INITIAL_CAPACITY = 16;
+
+    private int V;
+
+    // edges added since the last freeze, the edges of each vertex linked
+    // from first[v] through next, newest first, -1 ending the list
+    private int[] edgeFrom;
+    private int[] edgeTo;
+    private int[] next;
+    private int[] first;
+    private int edgeCount;
+
+    // compressed sparse row layout of the graph when it was last frozen,
+    // null until then, shared by copies and never written to, in heap
+    // arrays or, off the heap, in buffers
+    private int[] offsets;
+    private int[] targets;
+    private IntBuffer offsetBuffer;
+    private IntBuffer targetBuffer;
+    private boolean frozen;
+
+    // reverse graph of the frozen layout, null until frozen
+    private Reverse reverse;
+    // reverse graph of a graph being edited, null until requested and
+    // again once an edge or a vertex is added
+    private Digraph editedReverse;
+    // whether this is the cached reverse of another graph
+    private boolean readOnly;
+
+    /**
+     * Holder of the reverse graph, shared by the copies of a frozen graph
+     */
+    private static class Reverse {
+        private volatile Digraph graph;
+    }
 
     public Digraph(int V) {
         if (V < 0) {
@@ -17,41 +72,522 @@ public class Digraph {
                 "Number of vertices must be nonnegative");
         }
         this.V = V;
-        while (V >= 0) {
-            neighborhood.put(V--, new ArrayList<>());
+        int capacity = Math.max(INITIAL_CAPACITY, V);
+        edgeFrom = new int[capacity];
+        edgeTo = new int[capacity];
+        next = new int[capacity];
+        first = new int[capacity];
+        Arrays.fill(first, -1);
+    }
+
+    /**
+     * A frozen graph over existing compressed sparse row arrays, which must
+     * not be modified afterwards
+     */
+    Digraph(int V, int[] offsets, int[] targets) {
+        if (V < 0) {
+            throw new IllegalArgumentException(
+                "Number of vertices must be nonnegative");
         }
+        if (offsets.length != V + 1 || offsets[V] != targets.length) {
+            throw new IllegalArgumentException("offsets do not match the targets");
+        }
+        this.V = V;
+        this.offsets = offsets;
+        this.targets = targets;
+        this.frozen = true;
+        this.reverse = new Reverse();
+    }
+
+    /**
+     * A frozen graph over existing compressed sparse row buffers, direct or
+     * memory mapped, which must not be modified afterwards
+     */
+    Digraph(int V, IntBuffer offsets, IntBuffer targets) {
+        if (V < 0) {
+            throw new IllegalArgumentException(
+                "Number of vertices must be nonnegative");
+        }
+        if (offsets.capacity() != V + 1 || offsets.get(V) != targets.capacity()) {
+            throw new IllegalArgumentException("offsets do not match the targets");
+        }
+        this.V = V;
+        this.offsetBuffer = offsets;
+        this.targetBuffer = targets;
+        this.frozen = true;
+        this.reverse = new Reverse();
     }
 
     public Digraph(Digraph graph) {
-        this(graph.V());
-        for (Map.Entry<Integer, List<Integer>> entry: graph.neighborhood.entrySet()) {
-            neighborhood.put(entry.getKey(), new ArrayList<>(entry.getValue()));
+        this.V = graph.V();
+        // frozen arrays are never written to, so they can be shared
+        offsets = graph.offsets;
+        targets = graph.targets;
+        offsetBuffer = graph.offsetBuffer;
+        targetBuffer = graph.targetBuffer;
+        frozen = graph.frozen;
+        if (frozen) {
+            reverse = graph.reverse;
+        } else {
+            edgeFrom = Arrays.copyOf(graph.edgeFrom, graph.edgeFrom.length);
+            edgeTo = Arrays.copyOf(graph.edgeTo, graph.edgeTo.length);
+            next = Arrays.copyOf(graph.next, graph.next.length);
+            first = Arrays.copyOf(graph.first, graph.first.length);
+            edgeCount = graph.edgeCount;
+        }
+    }
+
+    /**
+     * A frozen copy of the graph whose layout lives off the heap, in direct
+     * buffers, so that the heap only holds a few handles however large the
+     * graph is. Edits of the copy are merged into new direct buffers.
+     */
+    public static Digraph offHeap(Digraph graph) {
+        if (graph == null) {
+            throw new NullPointerException("graph is null");
+        }
+        Digraph frozen = new Digraph(graph).freeze();
+        if (frozen.isOffHeap()) {
+            return frozen;
         }
+
+        return new Digraph(frozen.V, direct(frozen.offsets), direct(frozen.targets));
+    }
+
+    public boolean isOffHeap() {
+        return offsetBuffer != null;
     }
 
     public int V() {
         return V;
     }
 
+    /**
+     * Number of distinct edges, counted without freezing the graph
+     */
+    public int E() {
+        int E = frozenV() > 0 ? offset(frozenV()) : 0;
+        if (isFrozen()) {
+            return E;
+        }
+        for (int e = 0; e < edgeCount; e++) {
+            // an edge added twice is counted at its oldest addition
+            if (!isFrozenEdge(edgeFrom[e], edgeTo[e]) && !isAddedEdge(next[e], edgeTo[e])) {
+                E++;
+            }
+        }
+
+        return E;
+    }
+
+    /**
+     * Adds a vertex without edges and returns it, the vertex V-1 of the
+     * graph grown by one
+     */
+    public int addVertex() {
+        if (readOnly) {
+            throw new UnsupportedOperationException("reverse graph is read-only");
+        }
+        if (isFrozen()) {
+            thaw();
+        }
+        editedReverse = null;
+        if (V == first.length) {
+            first = Arrays.copyOf(first, 2 * V);
+        }
+        first[V] = -1;
+
+        return V++;
+    }
+
     public void addEdge(int from, int to) {
+        if (readOnly) {
+            throw new UnsupportedOperationException("reverse graph is read-only");
+        }
         validateVertex(from);
         validateVertex(to);
-        List<Integer> neighbors = neighborhood.get(from);
-        if (!neighbors.contains(to)) {
-            neighbors.add(to);
+        if (isFrozen()) {
+            thaw();
+        }
+        editedReverse = null;
+        if (edgeCount == edgeFrom.length) {
+            int capacity = edgeCount * 2;
+            edgeFrom = Arrays.copyOf(edgeFrom, capacity);
+            edgeTo = Arrays.copyOf(edgeTo, capacity);
+            next = Arrays.copyOf(next, capacity);
         }
+        edgeFrom[edgeCount] = from;
+        edgeTo[edgeCount] = to;
+        next[edgeCount] = first[from];
+        first[from] = edgeCount;
+        edgeCount++;
     }
 
+    /**
+     * Number of distinct neighbors of the vertex, counted without freezing
+     * the graph
+     */
     public int outdegree(int vertex) {
         validateVertex(vertex);
+        int degree = vertex < frozenV() ? offset(vertex + 1) - offset(vertex) : 0;
+        if (isFrozen()) {
+            return degree;
+        }
+        for (int e = first[vertex]; e != -1; e = next[e]) {
+            if (!isFrozenEdge(vertex, edgeTo[e]) && !isAddedEdge(next[e], edgeTo[e])) {
+                degree++;
+            }
+        }
+
+        return degree;
+    }
+
+    /**
+     * Whether there is a directed path from one vertex to another, a vertex
+     * reaching itself by the empty path. The search only visits the vertices
+     * reachable from the first one and does not freeze the graph, so asking
+     * about a few vertices of a large graph being edited is cheap.
+     */
+    public boolean hasPath(int from, int to) {
+        validateVertex(from);
+        validateVertex(to);
+        if (from == to) {
+            return true;
+        }
+        BitSet visited = new BitSet();
+        int[] queue = new int[INITIAL_CAPACITY];
+        int head = 0;
+        int tail = 0;
+        visited.set(from);
+        queue[tail++] = from;
+        int frozenV = frozenV();
+        while (head < tail) {
+            int v = queue[head++];
+            if (v < frozenV) {
+                for (int e = offset(v); e < offset(v + 1); e++) {
+                    int w = target(e);
+                    if (w == to) {
+                        return true;
+                    }
+                    if (!visited.get(w)) {
+                        visited.set(w);
+                        queue = push(queue, tail++, w);
+                    }
+                }
+            }
+            for (int e = isFrozen() ? -1 : first[v]; e != -1; e = next[e]) {
+                int w = edgeTo[e];
+                if (w == to) {
+                    return true;
+                }
+                if (!visited.get(w)) {
+                    visited.set(w);
+                    queue = push(queue, tail++, w);
+                }
+            }
+        }
 
-        return neighborhood.get(vertex).size();
+        return false;
     }
 
+    /**
+     * Neighbors of the vertex in the order {@link #freeze()} lays them out,
+     * read without freezing the graph
+     */
     public Iterable<Integer> neighbors(int vertex) {
         validateVertex(vertex);
+        if (!isFrozen()) {
+            int[] row = row(vertex);
+            return () -> Arrays.stream(row).iterator();
+        }
+
+        int from = offset(vertex);
+        int to = offset(vertex + 1);
+        if (targets != null) {
+            int[] row = targets;
+            return () -> Arrays.stream(row, from, to).iterator();
+        }
+        IntBuffer row = targetBuffer;
+
+        return () -> IntStream.range(from, to).map(row::get).iterator();
+    }
+
+    public int indegree(int vertex) {
+        validateVertex(vertex);
+
+        return reverse().outdegree(vertex);
+    }
+
+    /**
+     * Vertices with an edge to the vertex, in increasing order
+     */
+    public Iterable<Integer> reverseNeighbors(int vertex) {
+        validateVertex(vertex);
+
+        return reverse().neighbors(vertex);
+    }
+
+    /**
+     * The graph with every edge reversed, frozen and read-only, built in
+     * one pass over the edges. It is cached until an edge or a vertex is
+     * added, a graph being edited is left unfrozen and its reverse is built
+     * from a frozen copy.
+     */
+    public Digraph reverse() {
+        if (!isFrozen()) {
+            if (editedReverse == null) {
+                editedReverse = new Digraph(this).freeze().reverse();
+            }
+            return editedReverse;
+        }
+        Reverse cache = reverse;
+        Digraph graph = cache.graph;
+        if (graph == null) {
+            synchronized (cache) {
+                graph = cache.graph;
+                if (graph == null) {
+                    graph = transpose();
+                    cache.graph = graph;
+                }
+            }
+        }
+
+        return graph;
+    }
+
+    private Digraph transpose() {
+        int E = offset(V);
+        int[] reverseOffsets = new int[V + 1];
+        for (int e = 0; e < E; e++) {
+            reverseOffsets[target(e) + 1]++;
+        }
+        for (int v = 0; v < V; v++) {
+            reverseOffsets[v + 1] += reverseOffsets[v];
+        }
+        int[] reverseTargets = new int[E];
+        int[] position = Arrays.copyOf(reverseOffsets, V);
+        for (int v = 0; v < V; v++) {
+            for (int e = offset(v); e < offset(v + 1); e++) {
+                reverseTargets[position[target(e)]++] = v;
+            }
+        }
+
+        Digraph graph = isOffHeap()
+            ? new Digraph(V, direct(reverseOffsets), direct(reverseTargets))
+            : new Digraph(V, reverseOffsets, reverseTargets);
+        graph.readOnly = true;
+        // a copy, since this graph may still be thawed by adding an edge
+        graph.reverse.graph = new Digraph(this);
+
+        return graph;
+    }
+
+    /**
+     * Compacts the edge list into the compressed sparse row layout, after
+     * the edges of the previous layout, keeping the insertion order of the
+     * edges and dropping duplicates
+     */
+    public Digraph freeze() {
+        if (isFrozen()) {
+            return this;
+        }
+
+        int frozenV = frozenV();
+        int[] start = new int[V + 1];
+        for (int v = 0; v < frozenV; v++) {
+            start[v + 1] = offset(v + 1) - offset(v);
+        }
+        for (int i = 0; i < edgeCount; i++) {
+            start[edgeFrom[i] + 1]++;
+        }
+        for (int v = 0; v < V; v++) {
+            start[v + 1] += start[v];
+        }
+
+        int[] row = new int[start[V]];
+        int[] size = new int[V];
+        for (int v = 0; v < frozenV; v++) {
+            int from = offset(v);
+            size[v] = offset(v + 1) - from;
+            for (int i = 0; i < size[v]; i++) {
+                row[start[v] + i] = target(from + i);
+            }
+        }
+        for (int i = 0; i < edgeCount; i++) {
+            int from = edgeFrom[i];
+            if (!contains(row, start[from], start[from] + size[from], edgeTo[i])) {
+                row[start[from] + size[from]++] = edgeTo[i];
+            }
+        }
+
+        int[] compactOffsets = new int[V + 1];
+        for (int v = 0; v < V; v++) {
+            compactOffsets[v + 1] = compactOffsets[v] + size[v];
+        }
+        int[] compactTargets = new int[compactOffsets[V]];
+        for (int v = 0; v < V; v++) {
+            System.arraycopy(row, start[v], compactTargets, compactOffsets[v], size[v]);
+        }
+
+        if (isOffHeap()) {
+            offsetBuffer = direct(compactOffsets);
+            targetBuffer = direct(compactTargets);
+        } else {
+            offsets = compactOffsets;
+            targets = compactTargets;
+        }
+        frozen = true;
+        reverse = new Reverse();
+        // the edges are the same, so a reverse built while editing is kept
+        reverse.graph = editedReverse;
+        editedReverse = null;
+        edgeFrom = null;
+        edgeTo = null;
+        next = null;
+        first = null;
+        edgeCount = 0;
+
+        return this;
+    }
+
+    public boolean isFrozen() {
+        return frozen;
+    }
+
+    /**
+     * Index of the first edge of the vertex, {@code offset(V)} is the number
+     * of edges. Unchecked, only valid on a frozen graph.
+     */
+    int offset(int vertex) {
+        return offsets != null ? offsets[vertex] : offsetBuffer.get(vertex);
+    }
+
+    /**
+     * Head of the edge with the given index. Unchecked, only valid on
+     * a frozen graph.
+     */
+    int target(int edge) {
+        return targets != null ? targets[edge] : targetBuffer.get(edge);
+    }
+
+    /**
+     * Starts an edge list on top of the frozen layout, which is kept
+     */
+    private void thaw() {
+        int capacity = Math.max(INITIAL_CAPACITY, V);
+        edgeFrom = new int[INITIAL_CAPACITY];
+        edgeTo = new int[INITIAL_CAPACITY];
+        next = new int[INITIAL_CAPACITY];
+        first = new int[capacity];
+        Arrays.fill(first, -1);
+        edgeCount = 0;
+        frozen = false;
+        reverse = null;
+    }
+
+    /**
+     * Distinct neighbors of a vertex of a graph being edited, those of the
+     * frozen layout first, then the added ones in insertion order
+     */
+    private int[] row(int vertex) {
+        boolean inLayout = vertex < frozenV();
+        int from = inLayout ? offset(vertex) : 0;
+        int to = inLayout ? offset(vertex + 1) : 0;
+        int added = 0;
+        for (int e = first[vertex]; e != -1; e = next[e]) {
+            added++;
+        }
+        // the added edges are linked newest first
+        int[] edges = new int[added];
+        for (int e = first[vertex]; e != -1; e = next[e]) {
+            edges[--added] = e;
+        }
+
+        int[] row = new int[to - from + edges.length];
+        int size = 0;
+        for (int e = from; e < to; e++) {
+            row[size++] = target(e);
+        }
+        for (int e: edges) {
+            if (!contains(row, 0, size, edgeTo[e])) {
+                row[size++] = edgeTo[e];
+            }
+        }
+
+        return Arrays.copyOf(row, size);
+    }
+
+    /**
+     * Number of vertices of the layout of the last freeze
+     */
+    private int frozenV() {
+        if (offsets != null) {
+            return offsets.length - 1;
+        }
+
+        return offsetBuffer == null ? 0 : offsetBuffer.capacity() - 1;
+    }
+
+    private boolean isFrozenEdge(int from, int to) {
+        if (from >= frozenV()) {
+            return false;
+        }
+        for (int e = offset(from); e < offset(from + 1); e++) {
+            if (target(e) == to) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Whether an edge to the vertex is in the list of added edges starting
+     * at the given one
+     */
+    private boolean isAddedEdge(int edge, int to) {
+        for (int e = edge; e != -1; e = next[e]) {
+            if (edgeTo[e] == to) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Copies the values into a direct buffer in the native byte order
+     */
+    private static IntBuffer direct(int[] values) {
+        if (values.length > Integer.MAX_VALUE / 4) {
+            throw new IllegalArgumentException("graph is too large for a direct buffer");
+        }
+        IntBuffer buffer = ByteBuffer.allocateDirect(4 * values.length)
+            .order(ByteOrder.nativeOrder())
+            .asIntBuffer();
+        buffer.put(values);
+        buffer.flip();
+
+        return buffer;
+    }
+
+    private static int[] push(int[] queue, int index, int value) {
+        if (index == queue.length) {
+            queue = Arrays.copyOf(queue, 2 * index);
+        }
+        queue[index] = value;
+
+        return queue;
+    }
+
+    private static boolean contains(int[] values, int from, int to, int value) {
+        for (int i = from; i < to; i++) {
+            if (values[i] == value) {
+                return true;
+            }
+        }
 
-        return neighborhood.get(vertex);
+        return false;
     }
 
     private void validateVertex(int vertex) {
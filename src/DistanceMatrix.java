@@ -0,0 +1,485 @@
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntBinaryOperator;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+/**
+ * An immutable, symmetric matrix of the distances between nouns
+ *
+ * Only the upper triangle is stored, row by row without the diagonal, which
+ * is always 0. An unreachable pair has distance -1.
+ */
+public class DistanceMatrix {
+
+    // below this many nouns splitting the work costs more than it saves
+    private static final int PARALLEL_THRESHOLD = 32;
+
+    private final String[] nouns;
+    private final int[] distances;
+
+    DistanceMatrix(String[] nouns, int[] distances) {
+        this.nouns = nouns;
+        this.distances = distances;
+    }
+
+    /**
+     * Computes the distances between all the nouns on the common fork-join
+     * pool
+     */
+    public static DistanceMatrix of(WordNet wordnet, String[] nouns) {
+        return of(wordnet, nouns, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Computes the distances between all the nouns on the given pool
+     *
+     * Every distance is read from the same version of the WordNet, so edits
+     * applied meanwhile are either all in the matrix or none of them.
+     * Distances cached by the WordNet are taken from its cache. The others
+     * are approximated when the WordNet approximates distances, or else the
+     * ancestors of every noun are searched once and then merged with the
+     * ancestors of each of its partners, and only pairs of the upper
+     * triangle are merged.
+     */
+    public static DistanceMatrix of(WordNet wordnet, String[] nouns, ForkJoinPool pool) {
+        if (wordnet == null) {
+            throw new NullPointerException("wordnet is null");
+        }
+        if (nouns == null) {
+            throw new NullPointerException("nouns are null");
+        }
+        if (pool == null) {
+            throw new NullPointerException("pool is null");
+        }
+        String[] copy = nouns.clone();
+        int n = copy.length;
+        if ((long) n * (n - 1) / 2 > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("too many nouns: " + n);
+        }
+
+        return wordnet.pairwiseDistances(copy, pool);
+    }
+
+    /**
+     * Computes the distances between all the nouns, given the distance of
+     * the i-th and the j-th noun for i < j, on the given pool
+     */
+    static DistanceMatrix of(String[] nouns, IntBinaryOperator distance, ForkJoinPool pool) {
+        int n = nouns.length;
+        int[] distances = new int[n * (n - 1) / 2];
+        run(pool, n, i -> {
+            int offset = index(n, i, i + 1);
+            for (int j = i + 1; j < n; j++) {
+                distances[offset++] = distance.applyAsInt(i, j);
+            }
+        });
+
+        return new DistanceMatrix(nouns, distances);
+    }
+
+    /**
+     * Computes the distances between all the nouns, given the synsets of
+     * each of them, by breadth-first searches of the graph advancing 64
+     * nouns at once, run in parallel on the given pool
+     *
+     * An ancestral path climbs from the synsets of one noun to a common
+     * ancestor and descends to a synset of the other one, so it is a path of
+     * a graph of two states per vertex, up and down, where up states follow
+     * the edges, down states follow them backwards and every up state leads
+     * to the down state of the same vertex at no cost. Each state holds a
+     * bitmask of the nouns of the batch that reached it, one level of all
+     * 64 searches is then a pass of bitwise ors over the frontier, and a
+     * noun is at distance d from the nouns whose bits first reach the down
+     * state of one of its synsets at level d.
+     *
+     * It takes about n / 64 traversals of the part of the graph the nouns
+     * reach instead of the n ancestor searches and n * n / 2 merges of
+     * {@link #of(WordNet, String[], ForkJoinPool)}, which pays off for
+     * hundreds of nouns and more.
+     */
+    static DistanceMatrix search(Digraph hypernyms, String[] nouns, int[][] synsets,
+                                 ForkJoinPool pool) {
+        int n = nouns.length;
+        if ((long) n * (n - 1) / 2 > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("too many nouns: " + n);
+        }
+        Digraph graph = new Digraph(hypernyms).freeze();
+        int V = graph.V();
+
+        // the nouns having each synset, in compressed sparse row layout
+        int[] nounOffsets = new int[V + 1];
+        for (int[] ids: synsets) {
+            for (int id: ids) {
+                nounOffsets[id + 1]++;
+            }
+        }
+        for (int v = 0; v < V; v++) {
+            nounOffsets[v + 1] += nounOffsets[v];
+        }
+        int[] nounsOf = new int[nounOffsets[V]];
+        int[] position = Arrays.copyOf(nounOffsets, V);
+        for (int i = 0; i < n; i++) {
+            for (int id: synsets[i]) {
+                nounsOf[position[id]++] = i;
+            }
+        }
+
+        // descending is only worth it towards the synsets of the nouns, so
+        // the down states are limited to their ancestors, by leaving the
+        // other vertices out of the reversed graph
+        boolean[] ancestors = new boolean[V];
+        int[] queue = new int[V];
+        int tail = 0;
+        for (int[] ids: synsets) {
+            for (int id: ids) {
+                if (!ancestors[id]) {
+                    ancestors[id] = true;
+                    queue[tail++] = id;
+                }
+            }
+        }
+        for (int head = 0; head < tail; head++) {
+            int v = queue[head];
+            for (int e = graph.offset(v); e < graph.offset(v + 1); e++) {
+                if (!ancestors[graph.target(e)]) {
+                    ancestors[graph.target(e)] = true;
+                    queue[tail++] = graph.target(e);
+                }
+            }
+        }
+
+        int[] reverseOffsets = new int[V + 1];
+        int[] reverseTargets = reverse(graph, ancestors, reverseOffsets);
+        int[] distances = new int[n * (n - 1) / 2];
+        Arrays.fill(distances, -1);
+        // the states are dropped with the pool once the matrix is done,
+        // a thread local would keep them on the threads of the pool
+        ScratchPool<Batch> batches = new ScratchPool<>(() -> new Batch(V, n));
+        // every batch is a traversal of the graph, worth a task of its own
+        run(pool, (n + 63) / 64, 2, batch -> {
+            Batch state = batches.borrow();
+            try {
+                state.search(graph, reverseOffsets, reverseTargets, nounOffsets, nounsOf,
+                             synsets, 64 * batch, Math.min(n, 64 * batch + 64), distances);
+            } finally {
+                batches.release(state);
+            }
+        });
+
+        return new DistanceMatrix(nouns.clone(), distances);
+    }
+
+    /**
+     * State of the breadth-first searches of up to 64 nouns, reused by the
+     * batches of one matrix
+     */
+    private static class Batch {
+        // nouns of the batch that reached the up and down states of a vertex
+        private final long[] upSeen;
+        private final long[] downSeen;
+        // nouns reaching them at the level being expanded and at the next
+        private final long[] upFrontier;
+        private final long[] downFrontier;
+        private final long[] upNext;
+        private final long[] downNext;
+        // vertices of the frontiers, each one listed once
+        private int[] upList;
+        private int[] downList;
+        private int[] nextUpList;
+        private int[] nextDownList;
+        private int upSize;
+        private int downSize;
+        private int nextUpSize;
+        private int nextDownSize;
+        // vertices whose up or down state was reached, to be cleared
+        private final int[] touched;
+        private int touchedSize;
+        // nouns of the batch found at their distance from each noun
+        private final long[] found;
+
+        public Batch(int V, int n) {
+            upSeen = new long[V];
+            downSeen = new long[V];
+            upFrontier = new long[V];
+            downFrontier = new long[V];
+            upNext = new long[V];
+            downNext = new long[V];
+            upList = new int[V];
+            downList = new int[V];
+            nextUpList = new int[V];
+            nextDownList = new int[V];
+            touched = new int[2 * V];
+            found = new long[n];
+        }
+
+        /**
+         * Fills the rows of the nouns from first up to last - 1 of the
+         * upper triangle of the distances
+         */
+        public void search(Digraph graph, int[] reverseOffsets, int[] reverseTargets,
+                           int[] nounOffsets, int[] nounsOf, int[][] synsets,
+                           int first, int last, int[] distances) {
+            int n = synsets.length;
+            long pairs = 0;
+            for (int i = first; i < last; i++) {
+                pairs += n - 1 - i;
+                for (int id: synsets[i]) {
+                    addUp(id, 1L << (i - first));
+                }
+            }
+
+            for (int level = 0; pairs > 0 && (nextUpSize > 0 || nextDownSize > 0); level++) {
+                swap();
+                for (int k = 0; k < upSize; k++) {
+                    int v = upList[k];
+                    long reached = upNext[v] & ~upSeen[v];
+                    upNext[v] = 0;
+                    if (upSeen[v] == 0 && reached != 0) {
+                        touched[touchedSize++] = v;
+                    }
+                    upSeen[v] |= reached;
+                    upFrontier[v] = reached;
+                    // a common ancestor is where the path turns down
+                    long down = reached & ~downSeen[v];
+                    if (down != 0) {
+                        if (downNext[v] == 0) {
+                            downList[downSize++] = v;
+                        }
+                        downNext[v] |= down;
+                    }
+                }
+                for (int k = 0; k < downSize; k++) {
+                    int v = downList[k];
+                    long reached = downNext[v] & ~downSeen[v];
+                    downNext[v] = 0;
+                    if (downSeen[v] == 0 && reached != 0) {
+                        touched[touchedSize++] = v;
+                    }
+                    downSeen[v] |= reached;
+                    downFrontier[v] = reached;
+                    if (reached != 0) {
+                        pairs -= record(v, reached, level, first, nounOffsets, nounsOf, n, distances);
+                    }
+                }
+
+                for (int k = 0; k < upSize; k++) {
+                    int v = upList[k];
+                    long reached = upFrontier[v];
+                    upFrontier[v] = 0;
+                    if (reached != 0) {
+                        for (int e = graph.offset(v); e < graph.offset(v + 1); e++) {
+                            addUp(graph.target(e), reached);
+                        }
+                    }
+                }
+                for (int k = 0; k < downSize; k++) {
+                    int v = downList[k];
+                    long reached = downFrontier[v];
+                    downFrontier[v] = 0;
+                    if (reached != 0) {
+                        for (int e = reverseOffsets[v]; e < reverseOffsets[v + 1]; e++) {
+                            addDown(reverseTargets[e], reached);
+                        }
+                    }
+                }
+            }
+
+            clear(first);
+        }
+
+        /**
+         * Records the distances from the nouns of the batch, given by the
+         * bits of the mask, to the nouns having the synset, returns the
+         * number of pairs of the upper triangle found
+         */
+        private int record(int synset, long mask, int level, int first,
+                           int[] nounOffsets, int[] nounsOf, int n, int[] distances) {
+            int count = 0;
+            for (int k = nounOffsets[synset]; k < nounOffsets[synset + 1]; k++) {
+                int j = nounsOf[k];
+                if (j <= first) {
+                    continue;
+                }
+                long reached = mask & ~found[j];
+                found[j] |= reached;
+                while (reached != 0) {
+                    int i = first + Long.numberOfTrailingZeros(reached);
+                    reached &= reached - 1;
+                    if (i < j) {
+                        distances[index(n, i, j)] = level;
+                        count++;
+                    }
+                }
+            }
+
+            return count;
+        }
+
+        private void addUp(int v, long mask) {
+            if ((mask & ~upSeen[v]) == 0) {
+                return;
+            }
+            if (upNext[v] == 0) {
+                nextUpList[nextUpSize++] = v;
+            }
+            upNext[v] |= mask;
+        }
+
+        private void addDown(int v, long mask) {
+            if ((mask & ~downSeen[v]) == 0) {
+                return;
+            }
+            if (downNext[v] == 0) {
+                nextDownList[nextDownSize++] = v;
+            }
+            downNext[v] |= mask;
+        }
+
+        /**
+         * Makes the next level the current one
+         */
+        private void swap() {
+            int[] list = upList;
+            upList = nextUpList;
+            nextUpList = list;
+            upSize = nextUpSize;
+            nextUpSize = 0;
+            list = downList;
+            downList = nextDownList;
+            nextDownList = list;
+            downSize = nextDownSize;
+            nextDownSize = 0;
+        }
+
+        /**
+         * Clears the state left by a batch, which may have stopped before
+         * its frontiers were empty
+         */
+        private void clear(int first) {
+            for (int k = 0; k < touchedSize; k++) {
+                upSeen[touched[k]] = 0;
+                downSeen[touched[k]] = 0;
+            }
+            for (int k = 0; k < nextUpSize; k++) {
+                upNext[nextUpList[k]] = 0;
+            }
+            for (int k = 0; k < nextDownSize; k++) {
+                downNext[nextDownList[k]] = 0;
+            }
+            Arrays.fill(found, first, found.length, 0);
+            touchedSize = 0;
+            nextUpSize = 0;
+            nextDownSize = 0;
+        }
+    }
+
+    /**
+     * Compressed sparse row layout of the edges of the graph leaving the
+     * given vertices, reversed
+     */
+    private static int[] reverse(Digraph graph, boolean[] vertices, int[] offsets) {
+        int V = graph.V();
+        for (int v = 0; v < V; v++) {
+            if (vertices[v]) {
+                for (int e = graph.offset(v); e < graph.offset(v + 1); e++) {
+                    offsets[graph.target(e) + 1]++;
+                }
+            }
+        }
+        for (int v = 0; v < V; v++) {
+            offsets[v + 1] += offsets[v];
+        }
+        int[] targets = new int[offsets[V]];
+        int[] size = new int[V];
+        for (int v = 0; v < V; v++) {
+            if (!vertices[v]) {
+                continue;
+            }
+            for (int e = graph.offset(v); e < graph.offset(v + 1); e++) {
+                int to = graph.target(e);
+                targets[offsets[to] + size[to]++] = v;
+            }
+        }
+
+        return targets;
+    }
+
+    /**
+     * Runs the task for 0 up to n - 1, in parallel on the pool unless n is
+     * small
+     */
+    static void run(ForkJoinPool pool, int n, IntConsumer task) {
+        run(pool, n, PARALLEL_THRESHOLD, task);
+    }
+
+    private static void run(ForkJoinPool pool, int n, int threshold, IntConsumer task) {
+        if (n < threshold) {
+            IntStream.range(0, n).forEach(task);
+            return;
+        }
+        try {
+            pool.submit(() -> IntStream.range(0, n).parallel().forEach(task)).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while computing distances", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    public int size() {
+        return nouns.length;
+    }
+
+    public String noun(int i) {
+        validateIndex(i);
+
+        return nouns[i];
+    }
+
+    public int distance(int i, int j) {
+        validateIndex(i);
+        validateIndex(j);
+        if (i == j) {
+            return 0;
+        }
+
+        return i < j
+            ? distances[index(nouns.length, i, j)]
+            : distances[index(nouns.length, j, i)];
+    }
+
+    /**
+     * Sum of the distances from the i-th noun to all the nouns
+     */
+    public int sum(int i) {
+        validateIndex(i);
+        int sum = 0;
+        for (int j = 0; j < nouns.length; j++) {
+            if (j != i) {
+                sum += distance(i, j);
+            }
+        }
+
+        return sum;
+    }
+
+    /**
+     * Position of the pair i < j in the upper triangle
+     */
+    private static int index(int n, int i, int j) {
+        return (int) ((long) i * n - (long) i * (i + 1) / 2 + (j - i - 1));
+    }
+
+    private void validateIndex(int i) {
+        if (i < 0 || i >= nouns.length) {
+            throw new IndexOutOfBoundsException("invalid index: " + i);
+        }
+    }
+
+}
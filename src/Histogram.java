@@ -0,0 +1,139 @@
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A concurrent histogram of non-negative longs, such as latencies in
+ * nanoseconds or vertices expanded by a query
+ *
+ * Values below 16 have a bucket of their own, larger values share
+ * logarithmic buckets split into 8 linear sub-buckets, so a percentile is
+ * known to within 12.5% of the value. Every bucket is a {@link LongAdder},
+ * recording a value touches one striped counter and takes no lock.
+ */
+public class Histogram {
+
+    private static final int LINEAR = 16;
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    // log2(LINEAR) up to 62, the exponents of the logarithmic buckets
+    private static final int BUCKETS = LINEAR + (63 - 4) * SUB_BUCKETS;
+
+    private final LongAdder[] counts = new LongAdder[BUCKETS];
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    public Histogram() {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = new LongAdder();
+        }
+    }
+
+    public void record(long value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("value must not be negative");
+        }
+        counts[bucket(value)].increment();
+        sum.add(value);
+        max.accumulate(value);
+    }
+
+    public Snapshot snapshot() {
+        long[] snapshot = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = counts[i].sum();
+        }
+
+        return new Snapshot(snapshot, sum.sum(), max.get());
+    }
+
+    /**
+     * Counts of a histogram at one point in time. Buckets are read one by
+     * one while values may still be recorded, so the counts are not an
+     * atomic view but each of them is exact.
+     */
+    public static final class Snapshot {
+        private final long[] counts;
+        private final long count;
+        private final long sum;
+        private final long max;
+
+        Snapshot(long[] counts, long sum, long max) {
+            long count = 0;
+            for (long c: counts) {
+                count += c;
+            }
+            this.counts = counts;
+            this.count = count;
+            this.sum = sum;
+            this.max = max;
+        }
+
+        public long count() {
+            return count;
+        }
+
+        public long max() {
+            return max;
+        }
+
+        public double mean() {
+            return count == 0 ? 0.0 : (double) sum / count;
+        }
+
+        /**
+         * The value below or at which the given fraction of the values
+         * fall, 0 when nothing was recorded. It is the upper end of the
+         * bucket of that value, capped by the largest value recorded.
+         */
+        public long percentile(double fraction) {
+            if (!(fraction >= 0.0 && fraction <= 1.0)) {
+                throw new IllegalArgumentException("fraction must be between 0 and 1");
+            }
+            if (count == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(fraction * count));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return Math.min(max, upperBound(i));
+                }
+            }
+
+            return max;
+        }
+
+        @Override
+        public String toString() {
+            return "count=" + count + " mean=" + String.format("%.1f", mean())
+                + " p50=" + percentile(0.5) + " p99=" + percentile(0.99) + " max=" + max;
+        }
+    }
+
+    static int bucket(long value) {
+        if (value < LINEAR) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int sub = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+
+        return LINEAR + (exponent - 4) * SUB_BUCKETS + sub;
+    }
+
+    /**
+     * Largest value of a bucket
+     */
+    static long upperBound(int bucket) {
+        if (bucket < LINEAR) {
+            return bucket;
+        }
+        int exponent = (bucket - LINEAR) / SUB_BUCKETS + 4;
+        long sub = (bucket - LINEAR) % SUB_BUCKETS;
+        long width = 1L << (exponent - SUB_BUCKET_BITS);
+        long lower = (1L << exponent) + sub * width;
+
+        return lower + (width - 1);
+    }
+
+}
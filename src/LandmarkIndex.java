@@ -0,0 +1,438 @@
+import java.util.Arrays;
+
+/**
+ * An immutable index of the distances from every vertex of a digraph to a
+ * few landmark vertices, giving bounds on shortest ancestral paths without
+ * searching
+ *
+ * For every vertex v and landmark l the index stores up(v, l), the length
+ * of the directed path from v to l, and any(v, l), the length of the
+ * shortest path between them ignoring directions. Both fit a byte, a
+ * distance of {@link #UNREACHABLE} meaning unreachable and one of
+ * {@link #FAR} reachable but too long to store.
+ *
+ * A landmark that is an ancestor of both v and w is on an ancestral path of
+ * length up(v, l) + up(w, l), an upper bound of the shortest one. An
+ * ancestral path is a path of the undirected graph, so by the triangle
+ * inequality it is at least |any(v, l) - any(w, l)| long for every
+ * landmark, a lower bound. When the two bounds meet the shortest ancestral
+ * path is known.
+ *
+ * The landmarks are the vertices with the most descendants, the ancestors
+ * shared by most pairs of vertices. A vertex has more descendants than
+ * any of its own, so the ancestors of a landmark are landmarks as well,
+ * unless a cycle ties them.
+ */
+public class LandmarkIndex {
+
+    static final int UNREACHABLE = 0xff;
+    static final int FAR = 0xfe;
+
+    private final int[] landmarks;
+    private final boolean[] isLandmark;
+    // row of vertex v at v * 2k: up(v, l) of the k landmarks, then any(v, l),
+    // so that the bounds of a vertex are read from a single cache line
+    private final byte[] distances;
+    // whether the hypernyms of every landmark are landmarks
+    private final boolean closed;
+
+    public LandmarkIndex(Digraph graph, int count) {
+        if (graph == null) {
+            throw new NullPointerException("graph is null");
+        }
+        if (count <= 0) {
+            throw new IllegalArgumentException("number of landmarks must be positive");
+        }
+        graph = new Digraph(graph).freeze();
+        int V = graph.V();
+        if (2L * V * Math.min(count, V) > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("too many landmarks: " + count);
+        }
+        landmarks = select(graph, Math.min(count, V));
+        isLandmark = new boolean[V];
+        distances = new byte[2 * V * landmarks.length];
+        measure(graph);
+        closed = isClosed(graph);
+    }
+
+    /**
+     * An index of a graph grown from the graph of this one by adding
+     * vertices and edges, the affected vertices being the new ones and the
+     * ones that can reach an edge added to an old vertex, see
+     * {@link SAP#affected}. The landmarks are kept when the new edges leave
+     * their ancestors among them, a new vertex being no landmark, otherwise
+     * as many landmarks are selected again and measured over the whole
+     * graph. Kept landmarks only have the distances the new edges shorten
+     * lowered, starting from the edges of the affected vertices.
+     */
+    LandmarkIndex update(Digraph graph, boolean[] affected) {
+        graph = new Digraph(graph).freeze();
+        if (affected.length != graph.V() || graph.V() < isLandmark.length) {
+            throw new IllegalArgumentException("graph is not grown from the graph of this index");
+        }
+        for (int landmark: landmarks) {
+            for (int e = graph.offset(landmark); e < graph.offset(landmark + 1); e++) {
+                int target = graph.target(e);
+                if (target >= isLandmark.length || !isLandmark[target]) {
+                    return new LandmarkIndex(graph, landmarks.length);
+                }
+            }
+        }
+
+        return new LandmarkIndex(this, graph, affected);
+    }
+
+    private LandmarkIndex(LandmarkIndex previous, Digraph graph, boolean[] affected) {
+        int V = graph.V();
+        int k = previous.landmarks.length;
+        if (2L * V * k > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("too many landmarks: " + k);
+        }
+        landmarks = previous.landmarks;
+        isLandmark = Arrays.copyOf(previous.isLandmark, V);
+        distances = Arrays.copyOf(previous.distances, 2 * V * k);
+        Arrays.fill(distances, previous.distances.length, distances.length, (byte) UNREACHABLE);
+        closed = isClosed(graph);
+
+        Digraph reverse = graph.reverse();
+        Relaxation relaxation = new Relaxation(V);
+        for (int i = 0; i < k; i++) {
+            relax(i, reverse, graph, affected, false, relaxation);
+            relax(k + i, reverse, graph, affected, true, relaxation);
+        }
+    }
+
+    /**
+     * Fills the distances of every vertex to the landmarks
+     */
+    private void measure(Digraph graph) {
+        int V = graph.V();
+        for (int landmark: landmarks) {
+            isLandmark[landmark] = true;
+        }
+        Arrays.fill(distances, (byte) UNREACHABLE);
+
+        Digraph reverse = graph.reverse();
+        int[] queue = new int[V];
+        for (int i = 0; i < landmarks.length; i++) {
+            // the vertices reaching a landmark are its descendants
+            search(i, reverse, null, i, queue);
+            search(i, reverse, graph, landmarks.length + i, queue);
+        }
+    }
+
+    public int size() {
+        return landmarks.length;
+    }
+
+    public int landmark(int i) {
+        if (i < 0 || i >= landmarks.length) {
+            throw new IndexOutOfBoundsException("invalid landmark: " + i);
+        }
+
+        return landmarks[i];
+    }
+
+    boolean contains(int vertex) {
+        return isLandmark[vertex];
+    }
+
+    /**
+     * Whether every path from the vertices {@code v[from]} up to
+     * {@code v[to - 1]} through a landmark is known, so that none is
+     * shorter than the upper bound: the landmarks are closed under
+     * hypernyms and none of them is too far to store
+     */
+    boolean measured(int[] v, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (!measured(v[i])) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    boolean measured(int vertex) {
+        if (!closed) {
+            return false;
+        }
+        int row = 2 * landmarks.length * vertex;
+        for (int l = 0; l < landmarks.length; l++) {
+            if ((distances[row + l] & 0xff) == FAR) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Shortest ancestral path of the vertices {@code v[vFrom]} up to
+     * {@code v[vTo - 1]} and {@code w[wFrom]} up to {@code w[wTo - 1]}
+     * through a landmark, packed by {@link SAP#pack(int, int)}, or
+     * {@link SAP#NO_PATH} when they have no landmark in common
+     */
+    long upperBound(int[] v, int vFrom, int vTo, int[] w, int wFrom, int wTo) {
+        long bound = SAP.NO_PATH;
+        for (int i = vFrom; i < vTo; i++) {
+            for (int j = wFrom; j < wTo; j++) {
+                long path = upperBound(v[i], w[j]);
+                if (path != SAP.NO_PATH
+                    && (bound == SAP.NO_PATH || SAP.lengthOf(path) < SAP.lengthOf(bound))) {
+                    bound = path;
+                }
+            }
+        }
+
+        return bound;
+    }
+
+    /**
+     * Shortest ancestral path of two vertices through a landmark, packed by
+     * {@link SAP#pack(int, int)}, or {@link SAP#NO_PATH} when they have no
+     * landmark in common
+     */
+    long upperBound(int v, int w) {
+        int k = landmarks.length;
+        int vRow = 2 * k * v;
+        int wRow = 2 * k * w;
+        int ancestor = -1;
+        int length = Integer.MAX_VALUE;
+        for (int l = 0; l < k; l++) {
+            int vUp = distances[vRow + l] & 0xff;
+            int wUp = distances[wRow + l] & 0xff;
+            if (vUp < FAR && wUp < FAR && vUp + wUp < length) {
+                ancestor = landmarks[l];
+                length = vUp + wUp;
+            }
+        }
+
+        return SAP.pack(ancestor, length);
+    }
+
+    /**
+     * A length no ancestral path of the two sets of vertices is shorter than
+     */
+    int lowerBound(int[] v, int vFrom, int vTo, int[] w, int wFrom, int wTo) {
+        int bound = Integer.MAX_VALUE;
+        for (int i = vFrom; i < vTo; i++) {
+            for (int j = wFrom; j < wTo; j++) {
+                bound = Math.min(bound, lowerBound(v[i], w[j]));
+            }
+        }
+
+        return bound == Integer.MAX_VALUE ? 0 : bound;
+    }
+
+    /**
+     * A length no ancestral path of two vertices is shorter than
+     */
+    int lowerBound(int v, int w) {
+        int k = landmarks.length;
+        int vRow = 2 * k * v + k;
+        int wRow = 2 * k * w + k;
+        int bound = 0;
+        for (int l = 0; l < k; l++) {
+            int vAny = distances[vRow + l] & 0xff;
+            int wAny = distances[wRow + l] & 0xff;
+            if (vAny < FAR && wAny < FAR) {
+                bound = Math.max(bound, Math.abs(vAny - wAny));
+            }
+        }
+
+        return bound;
+    }
+
+    /**
+     * Breadth-first search from landmark i along the reverse graph, and
+     * along the edges of the graph as well when it is not null, storing the
+     * distances of the vertices reached in the given column of their rows
+     */
+    private void search(int i, Digraph reverse, Digraph graph, int column, int[] queue) {
+        int row = 2 * landmarks.length;
+        int head = 0;
+        int tail = 0;
+        distances[landmarks[i] * row + column] = 0;
+        queue[tail++] = landmarks[i];
+        while (head < tail) {
+            int from = queue[head++];
+            int dist = next(distances[from * row + column] & 0xff);
+            for (int e = reverse.offset(from); e < reverse.offset(from + 1); e++) {
+                tail = visit(reverse.target(e), column, dist, queue, tail);
+            }
+            if (graph != null) {
+                for (int e = graph.offset(from); e < graph.offset(from + 1); e++) {
+                    tail = visit(graph.target(e), column, dist, queue, tail);
+                }
+            }
+        }
+    }
+
+    /**
+     * Lowers the distances of a column over the edges of the affected
+     * vertices, and from the vertices lowered over their edges in turn, as
+     * the search from the landmark would, along both directions when
+     * undirected. Distances only go down when edges are added, so the
+     * column ends up as a new search would have filled it.
+     */
+    private void relax(int column, Digraph reverse, Digraph graph, boolean[] affected,
+                       boolean undirected, Relaxation relaxation) {
+        for (int v = 0; v < affected.length; v++) {
+            if (!affected[v]) {
+                continue;
+            }
+            for (int e = graph.offset(v); e < graph.offset(v + 1); e++) {
+                int hypernym = graph.target(e);
+                if (lower(v, column, next(distance(hypernym, column)))) {
+                    relaxation.add(v);
+                }
+                if (undirected && lower(hypernym, column, next(distance(v, column)))) {
+                    relaxation.add(hypernym);
+                }
+            }
+        }
+        while (!relaxation.isEmpty()) {
+            int from = relaxation.poll();
+            int dist = next(distance(from, column));
+            for (int e = reverse.offset(from); e < reverse.offset(from + 1); e++) {
+                if (lower(reverse.target(e), column, dist)) {
+                    relaxation.add(reverse.target(e));
+                }
+            }
+            if (undirected) {
+                for (int e = graph.offset(from); e < graph.offset(from + 1); e++) {
+                    if (lower(graph.target(e), column, dist)) {
+                        relaxation.add(graph.target(e));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Distance of the vertices one edge further than the given distance,
+     * saturating at {@link #FAR}
+     */
+    private static int next(int dist) {
+        return dist == UNREACHABLE ? UNREACHABLE : Math.min(dist + 1, FAR);
+    }
+
+    private int distance(int vertex, int column) {
+        return distances[2 * landmarks.length * vertex + column] & 0xff;
+    }
+
+    private boolean lower(int vertex, int column, int dist) {
+        int cell = 2 * landmarks.length * vertex + column;
+        if (dist >= (distances[cell] & 0xff)) {
+            return false;
+        }
+        distances[cell] = (byte) dist;
+
+        return true;
+    }
+
+    /**
+     * Queue of the vertices whose distances went down, holding a vertex at
+     * most once, so that it never holds more than all of them
+     */
+    private static final class Relaxation {
+        private final int[] queue;
+        private final boolean[] queued;
+        private int head;
+        private int size;
+
+        Relaxation(int V) {
+            queue = new int[Math.max(1, V)];
+            queued = new boolean[V];
+        }
+
+        void add(int vertex) {
+            if (!queued[vertex]) {
+                queued[vertex] = true;
+                queue[(head + size++) % queue.length] = vertex;
+            }
+        }
+
+        int poll() {
+            int vertex = queue[head];
+            head = (head + 1) % queue.length;
+            size--;
+            queued[vertex] = false;
+
+            return vertex;
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+    }
+
+    private int visit(int vertex, int column, int dist, int[] queue, int tail) {
+        int cell = 2 * landmarks.length * vertex + column;
+        if ((distances[cell] & 0xff) == UNREACHABLE) {
+            distances[cell] = (byte) dist;
+            queue[tail++] = vertex;
+        }
+
+        return tail;
+    }
+
+    /**
+     * Whether the hypernyms of every landmark are landmarks
+     */
+    private boolean isClosed(Digraph graph) {
+        for (int landmark: landmarks) {
+            for (int e = graph.offset(landmark); e < graph.offset(landmark + 1); e++) {
+                if (!isLandmark[graph.target(e)]) {
+                    return false;
+                }
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * The vertices with the most descendants, up to count of them
+     */
+    private static int[] select(Digraph graph, int count) {
+        int V = graph.V();
+        int[] descendants = new int[V];
+        int[] mark = new int[V];
+        int[] queue = new int[V];
+        for (int v = 0; v < V; v++) {
+            // stamp marks with v + 1, so they do not have to be cleared
+            int stamp = v + 1;
+            int head = 0;
+            int tail = 0;
+            mark[v] = stamp;
+            queue[tail++] = v;
+            while (head < tail) {
+                int from = queue[head++];
+                descendants[from]++;
+                for (int e = graph.offset(from); e < graph.offset(from + 1); e++) {
+                    int to = graph.target(e);
+                    if (mark[to] != stamp) {
+                        mark[to] = stamp;
+                        queue[tail++] = to;
+                    }
+                }
+            }
+        }
+        long[] ranked = new long[V];
+        for (int v = 0; v < V; v++) {
+            // by descendants descending, then by vertex ascending
+            ranked[v] = ((long) -descendants[v] << 32) | v;
+        }
+        Arrays.sort(ranked);
+
+        int[] selected = new int[count];
+        for (int i = 0; i < count; i++) {
+            selected[i] = (int) ranked[i];
+        }
+
+        return selected;
+    }
+
+}
@@ -0,0 +1,193 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Nouns at the shortest ancestral distance from a given noun
+ *
+ * An ancestral path climbs from a synset of the noun to a common ancestor
+ * and descends to a synset of the other noun, so the nouns are found by a
+ * breadth-first search of a graph of two states per vertex: up states
+ * follow the hypernym edges, down states follow them backwards and every
+ * up state leads to the down state of the same vertex at no cost. The
+ * nouns of a synset whose down state is reached at distance d are at
+ * distance d, unless they were reached before. The search stops as soon
+ * as the k nearest nouns are known, ties broken by the order of the nouns
+ * in the {@link NounIndex}.
+ *
+ * Like {@link SAP}, the search state lives in primitive arrays stamped
+ * with the epoch of the query and lent to one query at a time.
+ */
+public class NearestNouns {
+
+    private final Digraph graph;
+    private final NounIndex nouns;
+    // hyponyms of every synset
+    private final Digraph reverse;
+    // indexes of the nouns of every synset, in compressed sparse row layout
+    private final int[] nounOffsets;
+    private final int[] nounsOf;
+    private final ScratchPool<Search> searches = new ScratchPool<>(Search::new);
+
+    public NearestNouns(Digraph graph, NounIndex nouns) {
+        if (graph == null) {
+            throw new NullPointerException("graph is null");
+        }
+        if (nouns == null) {
+            throw new NullPointerException("nouns are null");
+        }
+        this.graph = new Digraph(graph).freeze();
+        this.nouns = nouns;
+        int V = this.graph.V();
+
+        this.reverse = this.graph.reverse();
+
+        int[] postings = nouns.postings();
+        nounOffsets = new int[V + 1];
+        for (int id: postings) {
+            nounOffsets[id + 1]++;
+        }
+        for (int v = 0; v < V; v++) {
+            nounOffsets[v + 1] += nounOffsets[v];
+        }
+        nounsOf = new int[postings.length];
+        int[] position = Arrays.copyOf(nounOffsets, V);
+        for (int i = 0; i < nouns.size(); i++) {
+            for (int p = nouns.from(i); p < nouns.to(i); p++) {
+                nounsOf[position[postings[p]]++] = i;
+            }
+        }
+    }
+
+    /**
+     * The k nouns nearest to the noun, which is left out, in order of
+     * distance, or fewer when fewer nouns have a common ancestor with it
+     */
+    public List<String> nearest(String noun, int k) {
+        if (noun == null) {
+            throw new NullPointerException("noun is null");
+        }
+        if (k < 0) {
+            throw new IllegalArgumentException("number of nouns must not be negative");
+        }
+        int index = nouns.indexOf(noun);
+        if (index < 0) {
+            throw new IllegalArgumentException("not a WordNet noun: " + noun);
+        }
+
+        Search search = searches.borrow();
+        int[] found;
+        try {
+            found = search.nearest(index, k);
+        } finally {
+            searches.release(search);
+        }
+        List<String> result = new ArrayList<>(found.length);
+        for (int i: found) {
+            result.add(nouns.noun(i));
+        }
+
+        return result;
+    }
+
+    /**
+     * State of a query
+     */
+    private class Search {
+        // up state of vertex v is 2 * v, its down state 2 * v + 1
+        private final int[] mark = new int[2 * graph.V()];
+        private final int[] distance = new int[2 * graph.V()];
+        private final int[] queue = new int[2 * graph.V()];
+        private final int[] nounMark = new int[nouns.size()];
+        // (distance, noun) pairs in the order the nouns were reached
+        private long[] found = new long[64];
+        private int epoch;
+
+        public int[] nearest(int noun, int k) {
+            epoch++;
+            if (epoch == 0) {
+                // epoch counter wrapped around, stale marks could match again
+                Arrays.fill(mark, 0);
+                Arrays.fill(nounMark, 0);
+                epoch = 1;
+            }
+            int head = 0;
+            int tail = 0;
+            int size = 0;
+            nounMark[noun] = epoch;
+            if (k == 0) {
+                return new int[0];
+            }
+
+            int[] postings = nouns.postings();
+            for (int p = nouns.from(noun); p < nouns.to(noun); p++) {
+                tail = visit(2 * postings[p], 0, tail);
+            }
+            while (head < tail) {
+                int state = queue[head++];
+                int dist = distance[state];
+                if (size >= k && dist > distanceOf(found[k - 1])) {
+                    // every noun up to the distance of the k-th one is found
+                    break;
+                }
+                int v = state >> 1;
+                if ((state & 1) == 0) {
+                    for (int e = graph.offset(v); e < graph.offset(v + 1); e++) {
+                        tail = visit(2 * graph.target(e), dist + 1, tail);
+                    }
+                } else {
+                    for (int n = nounOffsets[v]; n < nounOffsets[v + 1]; n++) {
+                        if (nounMark[nounsOf[n]] != epoch) {
+                            nounMark[nounsOf[n]] = epoch;
+                            size = add(size, dist, nounsOf[n]);
+                        }
+                    }
+                    for (int e = reverse.offset(v); e < reverse.offset(v + 1); e++) {
+                        tail = visit(2 * reverse.target(e) + 1, dist + 1, tail);
+                    }
+                }
+            }
+
+            // the nouns at the distance of the k-th one are only ordered
+            // once they are all found
+            Arrays.sort(found, 0, size);
+            int[] result = new int[Math.min(k, size)];
+            for (int i = 0; i < result.length; i++) {
+                result[i] = (int) found[i];
+            }
+
+            return result;
+        }
+
+        /**
+         * Reaches a state, and the down state of the vertex along with its
+         * up state, which turns the path down at no cost
+         */
+        private int visit(int state, int dist, int tail) {
+            if (mark[state] != epoch) {
+                mark[state] = epoch;
+                distance[state] = dist;
+                queue[tail++] = state;
+            }
+            if ((state & 1) == 0) {
+                return visit(state + 1, dist, tail);
+            }
+
+            return tail;
+        }
+
+        private int add(int size, int dist, int noun) {
+            if (size == found.length) {
+                found = Arrays.copyOf(found, 2 * size);
+            }
+            found[size] = ((long) dist << 32) | noun;
+
+            return size + 1;
+        }
+    }
+
+    private static int distanceOf(long found) {
+        return (int) (found >>> 32);
+    }
+
+}
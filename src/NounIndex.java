@@ -0,0 +1,314 @@
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * An immutable dictionary of nouns to the ids of their synsets
+ *
+ * Nouns are stored as one table of UTF-8 bytes sorted in unsigned byte
+ * order, which is also code point order, and looked up by a binary search
+ * that compares the bytes with the characters of the word in place. The
+ * synset ids of the noun at index i are {@code postings[from(i)]} up to
+ * {@code postings[to(i) - 1]}, in the order they were added. A lookup does
+ * not allocate and ids are never boxed.
+ */
+public class NounIndex implements Iterable<String> {
+
+    private final byte[] text;
+    private final int[] offsets;
+    private final int[] postingOffsets;
+    private final int[] postings;
+
+    /**
+     * An index over existing arrays, which must not be modified afterwards:
+     * the nouns sorted by their UTF-8 bytes, noun i spanning
+     * {@code text[offsets[i]]} up to {@code text[offsets[i + 1] - 1]}
+     */
+    NounIndex(byte[] text, int[] offsets, int[] postingOffsets, int[] postings) {
+        if (offsets.length == 0 || offsets.length != postingOffsets.length
+                || offsets[offsets.length - 1] != text.length
+                || postingOffsets[postingOffsets.length - 1] != postings.length) {
+            throw new IllegalArgumentException("offsets do not match the nouns");
+        }
+        this.text = text;
+        this.offsets = offsets;
+        this.postingOffsets = postingOffsets;
+        this.postings = postings;
+    }
+
+    /**
+     * Collects (noun, synset id) pairs into a {@link NounIndex}
+     */
+    public static class Builder {
+        private String[] nouns = new String[1024];
+        private int[] ids = new int[1024];
+        private int size;
+
+        public Builder add(String noun, int synset) {
+            if (noun == null) {
+                throw new NullPointerException("noun is null");
+            }
+            if (size == nouns.length) {
+                nouns = Arrays.copyOf(nouns, 2 * size);
+                ids = Arrays.copyOf(ids, 2 * size);
+            }
+            nouns[size] = noun;
+            ids[size] = synset;
+            size++;
+            return this;
+        }
+
+        public NounIndex build() {
+            byte[][] encoded = new byte[size][];
+            Integer[] order = new Integer[size];
+            for (int i = 0; i < size; i++) {
+                encoded[i] = nouns[i].getBytes(StandardCharsets.UTF_8);
+                order[i] = i;
+            }
+            // stable, so the ids of a noun keep the order they were added in
+            Arrays.sort(order, (a, b) -> compare(encoded[a], encoded[b]));
+
+            int count = 0;
+            int textSize = 0;
+            for (int i = 0; i < size; i++) {
+                if (i == 0 || compare(encoded[order[i - 1]], encoded[order[i]]) != 0) {
+                    count++;
+                    textSize += encoded[order[i]].length;
+                }
+            }
+
+            byte[] text = new byte[textSize];
+            int[] offsets = new int[count + 1];
+            int[] postingOffsets = new int[count + 1];
+            int[] postings = new int[size];
+            int noun = 0;
+            for (int i = 0; i < size; i++) {
+                byte[] bytes = encoded[order[i]];
+                if (i == 0 || compare(encoded[order[i - 1]], bytes) != 0) {
+                    System.arraycopy(bytes, 0, text, offsets[noun], bytes.length);
+                    offsets[noun + 1] = offsets[noun] + bytes.length;
+                    postingOffsets[noun + 1] = postingOffsets[noun];
+                    noun++;
+                }
+                postings[postingOffsets[noun]++] = ids[order[i]];
+            }
+
+            return new NounIndex(text, offsets, postingOffsets, postings);
+        }
+    }
+
+    /**
+     * Number of distinct nouns
+     */
+    public int size() {
+        return offsets.length - 1;
+    }
+
+    /**
+     * Index of the noun, or -1 when it is not in the dictionary
+     */
+    public int indexOf(String noun) {
+        if (noun == null) {
+            throw new NullPointerException("noun is null");
+        }
+        int lo = 0;
+        int hi = size() - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            int cmp = compareAt(mid, noun);
+            if (cmp < 0) {
+                lo = mid + 1;
+            } else if (cmp > 0) {
+                hi = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+
+        return -1;
+    }
+
+    public boolean contains(String noun) {
+        return indexOf(noun) >= 0;
+    }
+
+    public String noun(int index) {
+        validateIndex(index);
+
+        return new String(text, offsets[index], offsets[index + 1] - offsets[index],
+                          StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Position in {@link #postings()} of the first synset id of a noun
+     */
+    public int from(int index) {
+        validateIndex(index);
+
+        return postingOffsets[index];
+    }
+
+    /**
+     * Position in {@link #postings()} after the last synset id of a noun
+     */
+    public int to(int index) {
+        validateIndex(index);
+
+        return postingOffsets[index + 1];
+    }
+
+    /**
+     * Synset ids of all the nouns, shared and not to be modified
+     */
+    int[] postings() {
+        return postings;
+    }
+
+    byte[] text() {
+        return text;
+    }
+
+    int[] offsets() {
+        return offsets;
+    }
+
+    int[] postingOffsets() {
+        return postingOffsets;
+    }
+
+    /**
+     * An index of the nouns of this index and of another one, the synset
+     * ids of a noun of both coming from this index first. The two sorted
+     * tables are merged in one pass, without decoding the nouns.
+     */
+    NounIndex merge(NounIndex other) {
+        if (other == null) {
+            throw new NullPointerException("index is null");
+        }
+        int size = size() + other.size();
+        byte[] mergedText = new byte[text.length + other.text.length];
+        int[] mergedOffsets = new int[size + 1];
+        int[] mergedPostingOffsets = new int[size + 1];
+        int[] mergedPostings = new int[postings.length + other.postings.length];
+        int i = 0;
+        int j = 0;
+        int noun = 0;
+        int posting = 0;
+        while (i < size() || j < other.size()) {
+            int cmp = i == size() ? 1 : j == other.size() ? -1
+                : compare(text, offsets[i], offsets[i + 1],
+                          other.text, other.offsets[j], other.offsets[j + 1]);
+            NounIndex source = cmp <= 0 ? this : other;
+            int index = cmp <= 0 ? i : j;
+            int length = source.offsets[index + 1] - source.offsets[index];
+            System.arraycopy(source.text, source.offsets[index],
+                             mergedText, mergedOffsets[noun], length);
+            mergedOffsets[noun + 1] = mergedOffsets[noun] + length;
+            if (cmp <= 0) {
+                posting = copyPostings(i++, mergedPostings, posting);
+            }
+            if (cmp >= 0) {
+                posting = other.copyPostings(j++, mergedPostings, posting);
+            }
+            mergedPostingOffsets[++noun] = posting;
+        }
+
+        return new NounIndex(Arrays.copyOf(mergedText, mergedOffsets[noun]),
+                             Arrays.copyOf(mergedOffsets, noun + 1),
+                             Arrays.copyOf(mergedPostingOffsets, noun + 1),
+                             mergedPostings);
+    }
+
+    private int copyPostings(int index, int[] target, int position) {
+        int length = postingOffsets[index + 1] - postingOffsets[index];
+        System.arraycopy(postings, postingOffsets[index], target, position, length);
+
+        return position + length;
+    }
+
+    /**
+     * Nouns in the order of their UTF-8 bytes
+     */
+    @Override
+    public Iterator<String> iterator() {
+        return new Iterator<String>() {
+            private int index;
+
+            @Override
+            public boolean hasNext() {
+                return index < size();
+            }
+
+            @Override
+            public String next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return noun(index++);
+            }
+        };
+    }
+
+    /**
+     * Compares the noun at the index with a word, by code point, decoding
+     * the UTF-8 bytes of the noun as it goes
+     */
+    private int compareAt(int index, String word) {
+        int i = offsets[index];
+        int end = offsets[index + 1];
+        int j = 0;
+        int length = word.length();
+        while (i < end && j < length) {
+            int b = text[i] & 0xff;
+            int codePoint;
+            if (b < 0x80) {
+                codePoint = b;
+                i += 1;
+            } else if (b < 0xe0) {
+                codePoint = (b & 0x1f) << 6 | (text[i + 1] & 0x3f);
+                i += 2;
+            } else if (b < 0xf0) {
+                codePoint = (b & 0x0f) << 12 | (text[i + 1] & 0x3f) << 6 | (text[i + 2] & 0x3f);
+                i += 3;
+            } else {
+                codePoint = (b & 0x07) << 18 | (text[i + 1] & 0x3f) << 12
+                    | (text[i + 2] & 0x3f) << 6 | (text[i + 3] & 0x3f);
+                i += 4;
+            }
+            int c = word.codePointAt(j);
+            j += Character.charCount(c);
+            if (codePoint != c) {
+                return Integer.compare(codePoint, c);
+            }
+        }
+
+        return i < end ? 1 : j < length ? -1 : 0;
+    }
+
+    /**
+     * Compares UTF-8 strings by their unsigned bytes
+     */
+    static int compare(byte[] a, byte[] b) {
+        return compare(a, 0, a.length, b, 0, b.length);
+    }
+
+    static int compare(byte[] a, int aFrom, int aTo, byte[] b, int bFrom, int bTo) {
+        int length = Math.min(aTo - aFrom, bTo - bFrom);
+        for (int i = 0; i < length; i++) {
+            int diff = (a[aFrom + i] & 0xff) - (b[bFrom + i] & 0xff);
+            if (diff != 0) {
+                return diff;
+            }
+        }
+
+        return (aTo - aFrom) - (bTo - bFrom);
+    }
+
+    private void validateIndex(int index) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException("invalid index: " + index);
+        }
+    }
+
+}
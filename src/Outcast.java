@@ -1,5 +1,3 @@
-import java.util.stream.IntStream;
-
 public class Outcast {
 
     private final WordNet wordnet;
@@ -16,20 +14,20 @@ public class Outcast {
             throw new NullPointerException("nouns are null");
         }
 
+        long start = System.nanoTime();
+        DistanceMatrix distances = DistanceMatrix.of(wordnet, nouns);
         int maxDistance = 0;
         String outcast = null;
 
-        for (String from: nouns) {
-            int nounDistance = IntStream
-                .range(0, nouns.length)
-                .map(j -> wordnet.distance(from, nouns[j]))
-                .sum();
+        for (int i = 0; i < nouns.length; i++) {
+            int nounDistance = distances.sum(i);
 
             if (nounDistance > maxDistance) {
                 maxDistance = nounDistance;
-                outcast = from;
+                outcast = nouns[i];
             }
         }
+        wordnet.metrics().record(WordNetMetrics.Operation.OUTCAST, System.nanoTime() - start);
 
         return outcast;
     }
@@ -0,0 +1,204 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Answers a stream of queries, one per line, against a loaded WordNet
+ *
+ * Lines are read in chunks and answered on a pool of worker threads, results
+ * are written one line per query in input order. At most a fixed number of
+ * chunks are read ahead of the writer, so memory stays bounded whatever the
+ * length of the input. A chunk is cut short when no more input is ready, so
+ * an interactive stream gets its answers as soon as they are computed.
+ *
+ * Accepted queries, a failed query is answered with "error: " and a message:
+ *
+ *     ancestor noun noun
+ *     distance noun noun
+ *     outcast noun noun [noun]*
+ */
+public class QueryBatch {
+
+    private static final int CHUNK_SIZE = 256;
+
+    // marks the end of the input for the writer
+    private static final Future<String[]> END = CompletableFuture.completedFuture(new String[0]);
+
+    private final WordNet wordnet;
+    private final Outcast outcast;
+    private final int threads;
+    private final int maxPendingChunks;
+
+    public QueryBatch(WordNet wordnet, int threads) {
+        this(wordnet, threads, 4 * threads);
+    }
+
+    public QueryBatch(WordNet wordnet, int threads, int maxPendingChunks) {
+        if (wordnet == null) {
+            throw new NullPointerException("wordnet is null");
+        }
+        if (threads <= 0) {
+            throw new IllegalArgumentException("number of threads must be positive");
+        }
+        if (maxPendingChunks <= 0) {
+            throw new IllegalArgumentException("number of pending chunks must be positive");
+        }
+        this.wordnet = wordnet;
+        this.outcast = new Outcast(wordnet);
+        this.threads = threads;
+        this.maxPendingChunks = maxPendingChunks;
+    }
+
+    /**
+     * Answers every line of the input and returns the number of lines read
+     */
+    public long run(BufferedReader in, Writer out) throws IOException {
+        if (in == null) {
+            throw new NullPointerException("input is null");
+        }
+        if (out == null) {
+            throw new NullPointerException("output is null");
+        }
+
+        ExecutorService workers = Executors.newFixedThreadPool(threads);
+        BlockingQueue<Future<String[]>> pending = new ArrayBlockingQueue<>(maxPendingChunks);
+        FutureTask<Void> writer = new FutureTask<>(() -> {
+            write(pending, out);
+            return null;
+        });
+        Thread writerThread = new Thread(writer, "query-batch-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+
+        long lines = 0;
+        try {
+            List<String> chunk = new ArrayList<>(CHUNK_SIZE);
+            String line;
+            while (!writer.isDone() && (line = in.readLine()) != null) {
+                chunk.add(line);
+                if (chunk.size() == CHUNK_SIZE || !in.ready()) {
+                    enqueue(pending, workers.submit(answer(chunk)), writer);
+                    lines += chunk.size();
+                    chunk = new ArrayList<>(CHUNK_SIZE);
+                }
+            }
+            if (!chunk.isEmpty()) {
+                enqueue(pending, workers.submit(answer(chunk)), writer);
+                lines += chunk.size();
+            }
+            enqueue(pending, END, writer);
+            writer.get();
+
+            return lines;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while answering queries", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            workers.shutdownNow();
+            writerThread.interrupt();
+        }
+    }
+
+    /**
+     * Answers a single query
+     */
+    public String answer(String query) {
+        String[] args = query.trim().split("\\s+");
+        if (args[0].isEmpty()) {
+            return "";
+        }
+        try {
+            switch (args[0]) {
+                case "ancestor":
+                    requireNouns(args, 2, 2);
+                    return wordnet.sap(args[1], args[2]);
+                case "distance":
+                    requireNouns(args, 2, 2);
+                    return String.valueOf(wordnet.distance(args[1], args[2]));
+                case "outcast":
+                    requireNouns(args, 2, Integer.MAX_VALUE);
+                    return outcast.outcast(Arrays.copyOfRange(args, 1, args.length));
+                default:
+                    throw new IllegalArgumentException("invalid action: " + args[0]);
+            }
+        } catch (RuntimeException e) {
+            return "error: " + e.getMessage();
+        }
+    }
+
+    private Callable<String[]> answer(List<String> chunk) {
+        return () -> {
+            String[] results = new String[chunk.size()];
+            for (int i = 0; i < results.length; i++) {
+                results[i] = answer(chunk.get(i));
+            }
+
+            return results;
+        };
+    }
+
+    private static void requireNouns(String[] args, int min, int max) {
+        int nouns = args.length - 1;
+        if (nouns < min || nouns > max) {
+            throw new IllegalArgumentException(
+                args[0] + " requires " + (min == max ? "exactly " : "at least ")
+                    + min + " nouns");
+        }
+    }
+
+    /**
+     * Hands a chunk over to the writer, waiting while too many chunks are
+     * pending unless the writer has failed
+     */
+    private static void enqueue(
+            BlockingQueue<Future<String[]>> pending, Future<String[]> chunk,
+            FutureTask<Void> writer)
+            throws InterruptedException, ExecutionException {
+        while (!pending.offer(chunk, 100, TimeUnit.MILLISECONDS)) {
+            if (writer.isDone()) {
+                writer.get();
+                throw new IllegalStateException("writer stopped before the end of input");
+            }
+        }
+    }
+
+    private static void write(BlockingQueue<Future<String[]>> pending, Writer out)
+            throws IOException, InterruptedException, ExecutionException {
+        while (true) {
+            Future<String[]> chunk = pending.take();
+            if (chunk == END) {
+                out.flush();
+                return;
+            }
+            for (String result: chunk.get()) {
+                out.write(result);
+                out.write('\n');
+            }
+            if (pending.isEmpty()) {
+                out.flush();
+            }
+        }
+    }
+
+}
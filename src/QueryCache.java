@@ -0,0 +1,439 @@
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntPredicate;
+import java.util.function.LongSupplier;
+
+/**
+ * A bounded, concurrent cache of shortest ancestral paths
+ *
+ * Entries are keyed on the unordered pair of synset id sets of a query and
+ * hold the ancestor and the length of its path, packed by
+ * {@link SAP#pack(int, int)}, so distance and sap queries share them. Keys
+ * are spread over independently locked segments, fewer of them in a cache
+ * too small to give each of the usual number an entry, and every segment
+ * evicts by its own policy:
+ *
+ * LRU evicts the least recently used entry.
+ *
+ * TINY_LFU keeps new entries in a small LRU window, an entry leaving the
+ * window only replaces the least recently used entry of the main area when
+ * it has been requested more often, as estimated by a count-min sketch whose
+ * counters are halved periodically so that stale popularity fades away.
+ *
+ * Paths are computed for a version of the graph. Once the cache is moved
+ * to a newer version by {@link #invalidate}, a path computed for an older
+ * one is no longer cached, so a query still running on the old graph
+ * cannot put back a path just removed.
+ */
+public class QueryCache {
+
+    public enum Policy { LRU, TINY_LFU }
+
+    private static final int SEGMENTS = 16;
+
+    private final int maximumSize;
+    private final Policy policy;
+    private final Segment[] segments;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private volatile long version;
+
+    public QueryCache(int maximumSize, Policy policy) {
+        if (maximumSize <= 0) {
+            throw new IllegalArgumentException("maximum size must be positive");
+        }
+        if (policy == null) {
+            throw new NullPointerException("policy is null");
+        }
+        this.maximumSize = maximumSize;
+        this.policy = policy;
+        // a power of two, at most one segment per entry
+        int count = Integer.highestOneBit(Math.min(SEGMENTS, maximumSize));
+        this.segments = new Segment[count];
+        for (int i = 0; i < count; i++) {
+            int capacity = maximumSize / count + (i < maximumSize % count ? 1 : 0);
+            segments[i] = new Segment(capacity);
+        }
+    }
+
+    /**
+     * Unordered pair of synset id sets
+     */
+    static final class Key {
+        private final int[] a;
+        private final int[] b;
+        private final int hash;
+
+        Key(Iterable<Integer> v, Iterable<Integer> w) {
+            this(sortedIds(v), sortedIds(w));
+        }
+
+        Key(int[] v, int vFrom, int vTo, int[] w, int wFrom, int wTo) {
+            this(sortedIds(v, vFrom, vTo), sortedIds(w, wFrom, wTo));
+        }
+
+        private Key(int[] x, int[] y) {
+            boolean ordered = compare(x, y) <= 0;
+            a = ordered ? x : y;
+            b = ordered ? y : x;
+            hash = 31 * Arrays.hashCode(a) + Arrays.hashCode(b);
+        }
+
+        private static int[] sortedIds(Iterable<Integer> ids) {
+            int size = 0;
+            int[] sorted = new int[4];
+            for (int id: ids) {
+                if (size == sorted.length) {
+                    sorted = Arrays.copyOf(sorted, 2 * size);
+                }
+                sorted[size++] = id;
+            }
+            sorted = Arrays.copyOf(sorted, size);
+            Arrays.sort(sorted);
+
+            return sorted;
+        }
+
+        private static int[] sortedIds(int[] ids, int from, int to) {
+            int[] sorted = Arrays.copyOfRange(ids, from, to);
+            Arrays.sort(sorted);
+
+            return sorted;
+        }
+
+        private static int compare(int[] x, int[] y) {
+            for (int i = 0; i < x.length && i < y.length; i++) {
+                if (x[i] != y[i]) {
+                    return Integer.compare(x[i], y[i]);
+                }
+            }
+
+            return Integer.compare(x.length, y.length);
+        }
+
+        /**
+         * Whether the predicate holds for any synset id of the key
+         */
+        boolean anyMatch(IntPredicate synset) {
+            for (int id: a) {
+                if (synset.test(id)) {
+                    return true;
+                }
+            }
+            for (int id: b) {
+                if (synset.test(id)) {
+                    return true;
+                }
+            }
+
+            return false;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+
+            return hash == key.hash && Arrays.equals(a, key.a) && Arrays.equals(b, key.b);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    /**
+     * An immutable snapshot of the cache counters
+     */
+    public static final class Stats {
+        private final long hits;
+        private final long misses;
+        private final long evictions;
+        private final long size;
+
+        Stats(long hits, long misses, long evictions, long size) {
+            this.hits = hits;
+            this.misses = misses;
+            this.evictions = evictions;
+            this.size = size;
+        }
+
+        public long hits() {
+            return hits;
+        }
+
+        public long misses() {
+            return misses;
+        }
+
+        public long evictions() {
+            return evictions;
+        }
+
+        public long size() {
+            return size;
+        }
+
+        public double hitRate() {
+            long requests = hits + misses;
+
+            return requests == 0 ? 0.0 : (double) hits / requests;
+        }
+
+        @Override
+        public String toString() {
+            return "hits=" + hits + " misses=" + misses
+                + " evictions=" + evictions + " size=" + size;
+        }
+    }
+
+    private class Segment {
+        private final int capacity;
+        private final LinkedHashMap<Key, Long> window = new LinkedHashMap<>(16, 0.75f, true);
+        private final LinkedHashMap<Key, Long> main = new LinkedHashMap<>(16, 0.75f, true);
+        private final FrequencySketch sketch;
+
+        Segment(int capacity) {
+            this.capacity = capacity;
+            this.sketch = policy == Policy.TINY_LFU ? new FrequencySketch(capacity) : null;
+        }
+
+        synchronized Long get(Key key) {
+            if (sketch != null) {
+                sketch.increment(key.hashCode());
+            }
+            Long path = main.get(key);
+
+            return path != null ? path : window.get(key);
+        }
+
+        synchronized Long getIfPresent(Key key, long version) {
+            // read under the lock removeIf takes, so the paths of an older
+            // version are read before invalidate removes them or not at all
+            if (version != QueryCache.this.version) {
+                return null;
+            }
+            Long path = main.get(key);
+
+            return path != null ? path : window.get(key);
+        }
+
+        synchronized void put(Key key, long path, long version) {
+            // read under the lock removeIf takes, so a put of an older
+            // version either fails or is removed
+            if (version != QueryCache.this.version) {
+                return;
+            }
+            if (main.containsKey(key) || window.containsKey(key)) {
+                return;
+            }
+            if (sketch == null) {
+                main.put(key, path);
+                if (main.size() > capacity) {
+                    removeEldest(main);
+                    evictions.increment();
+                }
+                return;
+            }
+
+            // the window holds about 1% of the entries, at least one
+            int windowCapacity = Math.max(1, capacity / 100);
+            int mainCapacity = Math.max(0, capacity - windowCapacity);
+            window.put(key, path);
+            if (window.size() > windowCapacity) {
+                Map.Entry<Key, Long> candidate = removeEldest(window);
+                if (main.size() < mainCapacity) {
+                    main.put(candidate.getKey(), candidate.getValue());
+                    return;
+                }
+                if (!main.isEmpty()) {
+                    Key victim = main.keySet().iterator().next();
+                    if (sketch.frequency(candidate.getKey().hashCode())
+                            > sketch.frequency(victim.hashCode())) {
+                        main.remove(victim);
+                        main.put(candidate.getKey(), candidate.getValue());
+                    }
+                }
+                evictions.increment();
+            }
+        }
+
+        synchronized int size() {
+            return main.size() + window.size();
+        }
+
+        synchronized void clear() {
+            main.clear();
+            window.clear();
+        }
+
+        synchronized void removeIf(IntPredicate synset) {
+            main.keySet().removeIf(key -> key.anyMatch(synset));
+            window.keySet().removeIf(key -> key.anyMatch(synset));
+        }
+
+        private Map.Entry<Key, Long> removeEldest(LinkedHashMap<Key, Long> map) {
+            Iterator<Map.Entry<Key, Long>> it = map.entrySet().iterator();
+            Map.Entry<Key, Long> eldest = it.next();
+            it.remove();
+
+            return eldest;
+        }
+    }
+
+    /**
+     * Count-min sketch of 4 rows of saturating 8-bit counters
+     */
+    private static class FrequencySketch {
+        private static final int[] SEEDS = {0x9E3779B9, 0x85EBCA6B, 0xC2B2AE35, 0x27D4EB2F};
+
+        private final byte[][] rows = new byte[SEEDS.length][];
+        private final int mask;
+        private final int sampleSize;
+        private int samples;
+
+        FrequencySketch(int capacity) {
+            int width = Integer.highestOneBit(Math.max(16, capacity * 2 - 1)) << 1;
+            for (int i = 0; i < rows.length; i++) {
+                rows[i] = new byte[width];
+            }
+            mask = width - 1;
+            sampleSize = 10 * Math.max(1, capacity);
+        }
+
+        void increment(int hash) {
+            for (int i = 0; i < rows.length; i++) {
+                int index = index(hash, i);
+                if (rows[i][index] != Byte.MAX_VALUE) {
+                    rows[i][index]++;
+                }
+            }
+            if (++samples == sampleSize) {
+                age();
+            }
+        }
+
+        int frequency(int hash) {
+            int frequency = Byte.MAX_VALUE;
+            for (int i = 0; i < rows.length; i++) {
+                frequency = Math.min(frequency, rows[i][index(hash, i)]);
+            }
+
+            return frequency;
+        }
+
+        private void age() {
+            for (byte[] row: rows) {
+                for (int i = 0; i < row.length; i++) {
+                    row[i] >>= 1;
+                }
+            }
+            samples /= 2;
+        }
+
+        private int index(int hash, int row) {
+            int h = (hash ^ SEEDS[row]) * 0x9E3779B1;
+
+            return (h ^ (h >>> 16)) & mask;
+        }
+    }
+
+    public int maximumSize() {
+        return maximumSize;
+    }
+
+    public Policy policy() {
+        return policy;
+    }
+
+    /**
+     * Returns the cached path of the key, computing and caching it on a miss
+     */
+    long get(Key key, LongSupplier compute) {
+        return get(key, version, compute);
+    }
+
+    /**
+     * Returns the cached path of the key, computing it on a miss for the
+     * given version of the graph, it is only cached when the cache has not
+     * been moved to a newer version meanwhile
+     */
+    long get(Key key, long version, LongSupplier compute) {
+        Segment segment = segment(key);
+        Long path = segment.get(key);
+        if (path != null) {
+            hits.increment();
+            return path;
+        }
+        misses.increment();
+
+        long computed = compute.getAsLong();
+        segment.put(key, computed, version);
+
+        return computed;
+    }
+
+    /**
+     * Returns the cached path of the key while the cache is at the given
+     * version of the graph, or null, without computing it. The lookup is
+     * not counted as a hit or a miss, nor by the frequency sketch.
+     */
+    Long getIfPresent(Key key, long version) {
+        return segment(key).getIfPresent(key, version);
+    }
+
+    public void clear() {
+        for (Segment segment: segments) {
+            segment.clear();
+        }
+    }
+
+    /**
+     * Removes the paths of the queries with a synset id the predicate holds
+     * for, such as the synsets whose ancestors changed
+     */
+    void removeIf(IntPredicate synset) {
+        for (Segment segment: segments) {
+            segment.removeIf(synset);
+        }
+    }
+
+    /**
+     * Moves the cache to a newer version of the graph, paths computed for
+     * an older one are no longer cached, and removes the cached paths of
+     * the queries with a synset the predicate holds for
+     */
+    synchronized void invalidate(long version, IntPredicate synset) {
+        if (version <= this.version) {
+            throw new IllegalArgumentException("version is not newer: " + version);
+        }
+        this.version = version;
+        removeIf(synset);
+    }
+
+    public Stats stats() {
+        long size = 0;
+        for (Segment segment: segments) {
+            size += segment.size();
+        }
+
+        return new Stats(hits.sum(), misses.sum(), evictions.sum(), size);
+    }
+
+    private Segment segment(Key key) {
+        int h = key.hashCode();
+
+        return segments[(h ^ (h >>> 16)) & (segments.length - 1)];
+    }
+
+}
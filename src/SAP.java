@@ -1,128 +1,728 @@
-import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashMap;
-import java.util.LinkedList;
-import java.util.List;
-import java.util.Map;
-import java.util.Queue;
 
 /**
  * An immutable Shortest Ancestral Path data type
+ *
+ * Both searches keep their state in primitive arrays sized to the graph,
+ * stamped with the epoch of the query that wrote them, so starting a new
+ * query is O(1) and a query does not allocate. The state is lent to one
+ * query at a time by a {@link ScratchPool}, so a single instance can be
+ * queried concurrently.
+ *
+ * On an acyclic graph the searches are pruned with the shortest and longest
+ * depths of the vertices to a root: a vertex x reached at distance d from
+ * one side cannot lead to an ancestral path shorter than
+ * d + minDepth(w) - maxDepth(x), where minDepth(w) is the smallest depth of
+ * the sources of the other side, so it is not expanded once a path at least
+ * as short is known. The side at the lower level, or else with the smaller
+ * frontier, is expanded first.
+ *
+ * When built with an {@link AncestorIndex} queries are answered by merging
+ * the precomputed ancestor lists of the vertices instead of searching.
+ *
+ * When built with a {@link LandmarkIndex} a query of two vertices or of
+ * arrays of vertices first looks up the bounds of its length through the
+ * landmarks, a query of two iterables searches without them. A query
+ * whose bounds meet is answered without searching, by a landmark, which
+ * may be another one of several ancestors at the shortest distance than
+ * the search would find. Otherwise the search only looks for a path
+ * shorter than the upper bound. It also skips the landmarks when
+ * the distances of the vertices to all of them are stored, since the
+ * ancestors of a landmark are landmarks too and any path through one of
+ * them is then at least as long as the upper bound.
  */
 public class SAP {
 
+    static final long NO_PATH = -1L;
+
     private final Digraph graph;
-    private Path vPath;
-    private Path wPath;
+    private final AncestorIndex index;
+    private final LandmarkIndex landmarks;
+    // null when the graph has a cycle
+    private final int[] minDepths;
+    private final int[] maxDepths;
+    private final ScratchPool<Search> searches = new ScratchPool<>(Search::new);
+    private final SearchMetrics metrics;
 
     public SAP(Digraph graph) {
+        this(graph, false);
+    }
+
+    public SAP(Digraph graph, boolean indexed) {
+        this(graph, indexed, null);
+    }
+
+    /**
+     * Takes the depths of the vertices from a detector already run on the
+     * graph, or computes them when the detector is null
+     */
+    SAP(Digraph graph, boolean indexed, CycleDetector detector) {
+        this(graph, indexed, detector, 0);
+    }
+
+    /**
+     * Also bounds the queries with the given number of landmarks, none
+     * when 0
+     */
+    SAP(Digraph graph, boolean indexed, CycleDetector detector, int landmarks) {
+        this(graph, indexed, detector, landmarks, new SearchMetrics());
+    }
+
+    /**
+     * Also records the searches in the given metrics, which may exist
+     * before the SAP does
+     */
+    SAP(Digraph graph, boolean indexed, CycleDetector detector, int landmarks,
+        SearchMetrics metrics) {
+        if (graph == null) {
+            throw new NullPointerException("graph is null");
+        }
+        this.graph = new Digraph(graph).freeze();
+        this.index = indexed ? new AncestorIndex(this.graph) : null;
+        this.landmarks = landmarks > 0 ? new LandmarkIndex(this.graph, landmarks) : null;
+        if (detector == null) {
+            detector = new CycleDetector(this.graph);
+        }
+        this.minDepths = detector.hasCycle() ? null : detector.depths();
+        this.maxDepths = detector.hasCycle() ? null : detector.maxDepths();
+        this.metrics = metrics;
+    }
+
+    /**
+     * Takes the shortest and longest depths of the vertices of an acyclic
+     * graph, as stored in a snapshot, instead of running a detector
+     */
+    SAP(Digraph graph, boolean indexed, int[] minDepths, int[] maxDepths, int landmarks,
+        SearchMetrics metrics) {
+        if (graph == null) {
+            throw new NullPointerException("graph is null");
+        }
+        if (minDepths.length != graph.V() || maxDepths.length != graph.V()) {
+            throw new IllegalArgumentException("depths do not match the graph");
+        }
+        this.graph = new Digraph(graph).freeze();
+        this.index = indexed ? new AncestorIndex(this.graph) : null;
+        this.landmarks = landmarks > 0 ? new LandmarkIndex(this.graph, landmarks) : null;
+        this.minDepths = minDepths;
+        this.maxDepths = maxDepths;
+        this.metrics = metrics;
+    }
+
+    private SAP(Digraph graph, AncestorIndex index, LandmarkIndex landmarks,
+                int[] minDepths, int[] maxDepths, SearchMetrics metrics) {
+        this.graph = graph;
+        this.index = index;
+        this.landmarks = landmarks;
+        this.minDepths = minDepths;
+        this.maxDepths = maxDepths;
+        this.metrics = metrics;
+    }
+
+    /**
+     * A SAP of an acyclic graph grown from the graph of this one by adding
+     * vertices and edges, the affected vertices being the new ones and the
+     * ones that can reach an edge added to an old vertex, see
+     * {@link #affected}. Only their depths and ancestor rows are computed
+     * again, and only the distances to the landmarks the new edges shorten
+     * are lowered, see {@link LandmarkIndex#update}. The graph itself is
+     * still copied, a linear pass over its arrays. The metrics are shared
+     * with this SAP.
+     */
+    SAP update(Digraph graph, boolean[] affected) {
         if (graph == null) {
             throw new NullPointerException("graph is null");
         }
-        this.graph = new Digraph(graph);
+        Digraph updated = new Digraph(graph).freeze();
+        if (updated.V() < this.graph.V() || affected.length != updated.V()) {
+            throw new IllegalArgumentException("graph is not grown from the graph of this SAP");
+        }
+        AncestorIndex index = this.index == null ? null
+            : new AncestorIndex(updated, this.index, affected);
+        LandmarkIndex landmarks = this.landmarks == null ? null
+            : this.landmarks.update(updated, affected);
+        if (minDepths == null) {
+            CycleDetector detector = new CycleDetector(updated);
+            return new SAP(updated, index, landmarks,
+                           detector.hasCycle() ? null : detector.depths(),
+                           detector.hasCycle() ? null : detector.maxDepths(), metrics);
+        }
+
+        int V = updated.V();
+        int[] minDepths = Arrays.copyOf(this.minDepths, V);
+        int[] maxDepths = Arrays.copyOf(this.maxDepths, V);
+        // Kahn's algorithm over the affected vertices, a vertex is ready once
+        // the depths of all its affected hypernyms are known
+        int[] pending = new int[V];
+        int[] queue = new int[V];
+        int tail = 0;
+        for (int v = 0; v < V; v++) {
+            if (affected[v]) {
+                for (int e = updated.offset(v); e < updated.offset(v + 1); e++) {
+                    if (affected[updated.target(e)]) {
+                        pending[v]++;
+                    }
+                }
+                if (pending[v] == 0) {
+                    queue[tail++] = v;
+                }
+            }
+        }
+        Digraph reverse = updated.reverse();
+        for (int head = 0; head < tail; head++) {
+            int v = queue[head];
+            int minDepth = updated.offset(v + 1) == updated.offset(v) ? 0 : Integer.MAX_VALUE;
+            int maxDepth = 0;
+            for (int e = updated.offset(v); e < updated.offset(v + 1); e++) {
+                int w = updated.target(e);
+                minDepth = Math.min(minDepth, minDepths[w] + 1);
+                maxDepth = Math.max(maxDepth, maxDepths[w] + 1);
+            }
+            minDepths[v] = minDepth;
+            maxDepths[v] = maxDepth;
+            for (int e = reverse.offset(v); e < reverse.offset(v + 1); e++) {
+                int u = reverse.target(e);
+                if (--pending[u] == 0) {
+                    queue[tail++] = u;
+                }
+            }
+        }
+        if (tail < count(affected)) {
+            throw new IllegalArgumentException("graph contains a cycle");
+        }
+
+        return new SAP(updated, index, landmarks, minDepths, maxDepths, metrics);
+    }
+
+    /**
+     * Vertices of a graph that can reach any of the given ones, the given
+     * ones included
+     */
+    static boolean[] affected(Digraph graph, int[] vertices) {
+        Digraph reverse = graph.reverse();
+        boolean[] affected = new boolean[graph.V()];
+        int[] queue = new int[graph.V()];
+        int tail = 0;
+        for (int v: vertices) {
+            if (!affected[v]) {
+                affected[v] = true;
+                queue[tail++] = v;
+            }
+        }
+        for (int head = 0; head < tail; head++) {
+            int v = queue[head];
+            for (int e = reverse.offset(v); e < reverse.offset(v + 1); e++) {
+                int u = reverse.target(e);
+                if (!affected[u]) {
+                    affected[u] = true;
+                    queue[tail++] = u;
+                }
+            }
+        }
+
+        return affected;
+    }
+
+    private static int count(boolean[] values) {
+        int count = 0;
+        for (boolean value: values) {
+            if (value) {
+                count++;
+            }
+        }
+
+        return count;
+    }
+
+    public boolean isIndexed() {
+        return index != null;
+    }
+
+    public boolean hasLandmarks() {
+        return landmarks != null;
+    }
+
+    /**
+     * Shortest depths of the vertices, null when the graph has a cycle,
+     * shared and not to be modified
+     */
+    int[] minDepths() {
+        return minDepths;
+    }
+
+    /**
+     * Longest depths of the vertices, null when the graph has a cycle,
+     * shared and not to be modified
+     */
+    int[] maxDepths() {
+        return maxDepths;
     }
 
-    private class Path {
-        private final Map<Integer, Integer> distance = new HashMap<>();
-        private final Queue<Integer> toVisit = new LinkedList<>();
+    /**
+     * Counters of the length and ancestor queries answered so far
+     */
+    public SearchMetrics metrics() {
+        return metrics;
+    }
 
-        private int maxDistance = 0;
+    /**
+     * Breadth-first search state of one side of a query
+     */
+    private static class Path {
+        private final int[] distance;
+        private final int[] mark;
+        private final int[] toVisit;
+        private int epoch;
+        private int head;
+        private int tail;
+        // smallest depth of the sources
+        private int minDepth;
 
-        public Path(int vertex) {
-            toVisit.add(vertex);
-            distance.put(vertex, 0);
+        public Path(int V) {
+            distance = new int[V];
+            mark = new int[V];
+            toVisit = new int[V];
         }
 
-        public Path(Iterable<Integer> vertices) {
-            for (int vertex: vertices) {
-                toVisit.add(vertex);
-                distance.put(vertex, 0);
+        public void reset(int epoch) {
+            if (epoch == 1) {
+                // epoch counter wrapped around, stale marks could match again
+                Arrays.fill(mark, 0);
             }
+            this.epoch = epoch;
+            head = 0;
+            tail = 0;
+            minDepth = Integer.MAX_VALUE;
+        }
+
+        public boolean contains(int vertex) {
+            return mark[vertex] == epoch;
         }
 
         public int distanceTo(int vertex) {
-            return distance.get(vertex);
+            return distance[vertex];
         }
 
-        public int maxDistance() {
-            return maxDistance;
+        public void add(int vertex, int dist) {
+            mark[vertex] = epoch;
+            distance[vertex] = dist;
+            toVisit[tail++] = vertex;
         }
 
         public boolean hasNext() {
-            return !toVisit.isEmpty();
-        }
-
-        public Iterable<Integer> next() {
-            List<Integer> next = new ArrayList<>();
-            if (hasNext()) {
-                int from = toVisit.poll();
-                for (int neighbor: graph.neighbors(from)) {
-                    if (!distance.containsKey(neighbor)) {
-                        int dist = distance.get(from) + 1;
-                        distance.put(neighbor, dist);
-                        if (dist > maxDistance) {
-                            maxDistance = dist;
+            return head < tail;
+        }
+
+        /**
+         * Distance of the next vertex to visit
+         */
+        public int level() {
+            return distance[toVisit[head]];
+        }
+
+        public int frontier() {
+            return tail - head;
+        }
+
+        public int next() {
+            return toVisit[head++];
+        }
+
+        public void clear() {
+            head = tail;
+        }
+
+        /**
+         * (vertex, distance) pairs of every vertex added since the last
+         * reset, sorted by vertex
+         */
+        public int[] visited() {
+            long[] sorted = new long[tail];
+            for (int i = 0; i < tail; i++) {
+                sorted[i] = ((long) toVisit[i] << 32) | distance[toVisit[i]];
+            }
+            Arrays.sort(sorted);
+
+            int[] pairs = new int[2 * tail];
+            for (int i = 0; i < tail; i++) {
+                pairs[2 * i] = (int) (sorted[i] >>> 32);
+                pairs[2 * i + 1] = (int) sorted[i];
+            }
+
+            return pairs;
+        }
+    }
+
+    /**
+     * State of a query: both sides of the search and its result
+     */
+    private class Search {
+        private final Path vPath = new Path(graph.V());
+        private final Path wPath = new Path(graph.V());
+        private int epoch;
+        private int ancestor;
+        private int length;
+        // longest ancestral path worth finding while none is found
+        private int limit;
+        // whether the landmarks, all of them bounded by the limit, are
+        // left out
+        private boolean skipLandmarks;
+
+        public long path(int v, int w, int limit, boolean skipLandmarks) {
+            reset();
+            this.limit = limit;
+            this.skipLandmarks = skipLandmarks;
+            addSource(vPath, wPath, v);
+            addSource(wPath, vPath, w);
+
+            return search();
+        }
+
+        public long path(Iterable<Integer> v, Iterable<Integer> w) {
+            reset();
+            for (int vertex: v) {
+                addSource(vPath, wPath, vertex);
+            }
+            for (int vertex: w) {
+                addSource(wPath, vPath, vertex);
+            }
+
+            return search();
+        }
+
+        public long path(int[] v, int vFrom, int vTo, int[] w, int wFrom, int wTo,
+                         int limit, boolean skipLandmarks) {
+            reset();
+            this.limit = limit;
+            this.skipLandmarks = skipLandmarks;
+            for (int i = vFrom; i < vTo; i++) {
+                addSource(vPath, wPath, v[i]);
+            }
+            for (int i = wFrom; i < wTo; i++) {
+                addSource(wPath, vPath, w[i]);
+            }
+
+            return search();
+        }
+
+        public int[] ancestors(int[] v, int from, int to) {
+            reset();
+            for (int i = from; i < to; i++) {
+                if (!vPath.contains(v[i])) {
+                    vPath.add(v[i], 0);
+                }
+            }
+            while (vPath.hasNext()) {
+                int vertex = vPath.next();
+                int dist = vPath.distanceTo(vertex) + 1;
+                for (int e = graph.offset(vertex); e < graph.offset(vertex + 1); e++) {
+                    int neighbor = graph.target(e);
+                    if (!vPath.contains(neighbor)) {
+                        vPath.add(neighbor, dist);
+                    }
+                }
+            }
+
+            return vPath.visited();
+        }
+
+        private void reset() {
+            epoch++;
+            if (epoch == 0) {
+                epoch = 1;
+            }
+            vPath.reset(epoch);
+            wPath.reset(epoch);
+            ancestor = -1;
+            length = -1;
+            limit = Integer.MAX_VALUE;
+            skipLandmarks = false;
+        }
+
+        private void addSource(Path path, Path other, int vertex) {
+            if (!path.contains(vertex)) {
+                path.add(vertex, 0);
+                if (minDepths != null) {
+                    path.minDepth = Math.min(path.minDepth, minDepths[vertex]);
+                }
+                if (other.contains(vertex)) {
+                    found(vertex, 0);
+                }
+            }
+        }
+
+        /**
+         * Runs the two breadth-first searches one vertex at a time. A side
+         * is dropped as soon as none of its remaining vertices can lead to
+         * a shorter ancestral path than the best one found so far, and a
+         * vertex is not added when its depth bound rules it out.
+         */
+        private long search() {
+            int expanded = 0;
+            int relaxed = 0;
+            int frontier = vPath.frontier() + wPath.frontier();
+            boolean terminatedEarly = false;
+            while (vPath.hasNext() || wPath.hasNext()) {
+                boolean fromV = !wPath.hasNext() || (vPath.hasNext() && expandFirst(vPath, wPath));
+                Path path = fromV ? vPath : wPath;
+                Path other = fromV ? wPath : vPath;
+                int from = path.next();
+                int dist = path.distanceTo(from) + 1;
+                if (dist > bound()) {
+                    path.clear();
+                    terminatedEarly = true;
+                    continue;
+                }
+                expanded++;
+                int first = graph.offset(from);
+                int last = graph.offset(from + 1);
+                relaxed += last - first;
+                for (int e = first; e < last; e++) {
+                    int neighbor = graph.target(e);
+                    if (!path.contains(neighbor) && !pruned(neighbor, dist, other)) {
+                        path.add(neighbor, dist);
+                        if (other.contains(neighbor)) {
+                            found(neighbor, dist + other.distanceTo(neighbor));
                         }
-                        next.add(neighbor);
-                        toVisit.add(neighbor);
                     }
                 }
+                frontier = Math.max(frontier, vPath.frontier() + wPath.frontier());
+            }
+            metrics.record(expanded, relaxed, frontier, terminatedEarly);
+
+            return pack(ancestor, length);
+        }
+
+        /**
+         * Whether the search goes on from the first side rather than the
+         * second one: the side with the lower level first, so that the two
+         * sides climb together, and of two sides at the same level the one
+         * with the smaller frontier
+         */
+        private boolean expandFirst(Path first, Path second) {
+            int level = first.level() - second.level();
+
+            return level < 0 || (level == 0 && first.frontier() <= second.frontier());
+        }
+
+        /**
+         * Whether no ancestral path through the vertex, reached at the given
+         * distance, can be shorter than the best one found so far, or at
+         * most as long as the limit when none is found
+         */
+        private boolean pruned(int vertex, int dist, Path other) {
+            if (skipLandmarks && landmarks.contains(vertex)) {
+                return true;
             }
+            if (minDepths == null) {
+                return dist > bound();
+            }
+
+            return dist + Math.max(0, other.minDepth - maxDepths[vertex]) > bound();
+        }
+
+        /**
+         * Length of the longest ancestral path still worth finding
+         */
+        private int bound() {
+            return ancestor == -1 ? limit : length - 1;
+        }
 
-            return next;
+        private void found(int vertex, int dist) {
+            if (dist <= bound()) {
+                ancestor = vertex;
+                length = dist;
+            }
         }
     }
 
     public int length(int v, int w) {
-        return length(ancestor(v, w));
+        return lengthOf(path(v, w));
     }
 
     public int length(Iterable<Integer> v, Iterable<Integer> w) {
-        return length(ancestor(v, w));
+        return lengthOf(path(v, w));
     }
 
-    private int length(int ancestor) {
-        if (ancestor == -1) {
-            return -1;
-        } else {
-            return vPath.distanceTo(ancestor) + wPath.distanceTo(ancestor);
-        }
+    public int ancestor(int v, int w) {
+        return ancestorOf(path(v, w));
     }
 
-    public int ancestor(int v, int w) {
+    public int ancestor(Iterable<Integer> v, Iterable<Integer> w) {
+        return ancestorOf(path(v, w));
+    }
+
+    /**
+     * Shortest ancestral path of two vertices, packed by
+     * {@link #path(int, int)}
+     */
+    long path(int v, int w) {
+        if (index != null) {
+            metrics.record(0, 0, 0, false);
+            return index.path(v, w);
+        }
         validateVertex(v);
         validateVertex(w);
+        if (landmarks == null) {
+            return search(v, w, Integer.MAX_VALUE, false);
+        }
 
-        vPath = new Path(v);
-        wPath = new Path(w);
+        long upper = landmarks.upperBound(v, w);
+        boolean skipLandmarks = landmarks.measured(v) && landmarks.measured(w);
+        if (upper == NO_PATH) {
+            return search(v, w, Integer.MAX_VALUE, skipLandmarks);
+        }
+        if (landmarks.lowerBound(v, w) >= lengthOf(upper)) {
+            metrics.record(0, 0, 0, true);
+            return upper;
+        }
+        long path = search(v, w, lengthOf(upper) - 1, skipLandmarks);
 
-        if (v == w) {
-            return v;
-        } else {
-            return ancestor(new ArrayList<>(Arrays.asList(v, w)));
+        return path == NO_PATH ? upper : path;
+    }
+
+    private long search(int v, int w, int limit, boolean skipLandmarks) {
+        Search search = searches.borrow();
+        try {
+            return search.path(v, w, limit, skipLandmarks);
+        } finally {
+            searches.release(search);
         }
     }
 
-    public int ancestor(Iterable<Integer> v, Iterable<Integer> w) {
+    /**
+     * Shortest ancestral path of two sets of vertices, packed by
+     * {@link #path(int, int)}, searched without the landmarks
+     */
+    long path(Iterable<Integer> v, Iterable<Integer> w) {
+        if (index != null) {
+            metrics.record(0, 0, 0, false);
+            return index.path(v, w);
+        }
         validateVertices(v);
         validateVertices(w);
 
-        vPath = new Path(v);
-        wPath = new Path(w);
+        Search search = searches.borrow();
+        try {
+            return search.path(v, w);
+        } finally {
+            searches.release(search);
+        }
+    }
 
-        List<Integer> visited = new ArrayList<>();
-        for (int vertex: v) {
-            visited.add(vertex);
+    /**
+     * Shortest ancestral path of the vertices {@code v[vFrom]} up to
+     * {@code v[vTo - 1]} and {@code w[wFrom]} up to {@code w[wTo - 1]},
+     * packed by {@link #pack(int, int)}
+     */
+    long path(int[] v, int vFrom, int vTo, int[] w, int wFrom, int wTo) {
+        if (index != null) {
+            metrics.record(0, 0, 0, false);
+            return index.path(v, vFrom, vTo, w, wFrom, wTo);
         }
-        for (int vertex: w) {
-            if (visited.contains(vertex)) {
-                return vertex;
-            } else {
-                visited.add(vertex);
-            }
+        validateVertices(v, vFrom, vTo);
+        validateVertices(w, wFrom, wTo);
+        if (landmarks == null) {
+            return search(v, vFrom, vTo, w, wFrom, wTo, Integer.MAX_VALUE, false);
+        }
+
+        long upper = landmarks.upperBound(v, vFrom, vTo, w, wFrom, wTo);
+        // a landmark too far to store may still be on a shorter path
+        boolean skipLandmarks = landmarks.measured(v, vFrom, vTo)
+            && landmarks.measured(w, wFrom, wTo);
+        if (upper == NO_PATH) {
+            // no landmark is a common ancestor, so none leads to a path
+            return search(v, vFrom, vTo, w, wFrom, wTo, Integer.MAX_VALUE, skipLandmarks);
+        }
+        if (landmarks.lowerBound(v, vFrom, vTo, w, wFrom, wTo) >= lengthOf(upper)) {
+            metrics.record(0, 0, 0, true);
+            return upper;
+        }
+        // paths through landmarks are at least as long as the upper bound,
+        // so only a shorter path avoiding them can improve on it
+        long path = search(v, vFrom, vTo, w, wFrom, wTo, lengthOf(upper) - 1, skipLandmarks);
+
+        return path == NO_PATH ? upper : path;
+    }
+
+    private long search(int[] v, int vFrom, int vTo, int[] w, int wFrom, int wTo,
+                        int limit, boolean skipLandmarks) {
+        Search search = searches.borrow();
+        try {
+            return search.path(v, vFrom, vTo, w, wFrom, wTo, limit, skipLandmarks);
+        } finally {
+            searches.release(search);
+        }
+    }
+
+    /**
+     * Some ancestral path of the two sets of vertices, the one through the
+     * closest common landmark when there is one, else the shortest one,
+     * packed by {@link #pack(int, int)}
+     *
+     * Not searching makes it much faster than {@link #path(int[], int, int,
+     * int[], int, int)}, while its length is usually close to the shortest
+     * one. Without landmarks it is the shortest ancestral path.
+     */
+    long approximatePath(int[] v, int vFrom, int vTo, int[] w, int wFrom, int wTo) {
+        if (landmarks == null) {
+            return path(v, vFrom, vTo, w, wFrom, wTo);
         }
+        validateVertices(v, vFrom, vTo);
+        validateVertices(w, wFrom, wTo);
+        long upper = landmarks.upperBound(v, vFrom, vTo, w, wFrom, wTo);
 
-        return ancestor(visited);
+        if (upper == NO_PATH) {
+            return path(v, vFrom, vTo, w, wFrom, wTo);
+        }
+        metrics.record(0, 0, 0, true);
+
+        return upper;
+    }
+
+    /**
+     * Ancestors of the vertices {@code v[from]} up to {@code v[to - 1]}, as
+     * (ancestor, distance) pairs sorted by ancestor, the vertices themselves
+     * included at distance 0. The shortest ancestral path of two sets is
+     * then {@link #meet} of their ancestors, which lets a set computed once
+     * be paired with many others.
+     */
+    int[] ancestors(int[] v, int from, int to) {
+        if (index != null) {
+            return index.ancestors(v, from, to);
+        }
+        validateVertices(v, from, to);
+
+        Search search = searches.borrow();
+        try {
+            return search.ancestors(v, from, to);
+        } finally {
+            searches.release(search);
+        }
+    }
+
+    /**
+     * Shortest ancestral path of two sets of ancestors, packed by
+     * {@link #pack(int, int)}
+     */
+    static long meet(int[] ancestorsV, int[] ancestorsW) {
+        return AncestorIndex.meet(ancestorsV, 0, ancestorsV.length,
+                                  ancestorsW, 0, ancestorsW.length);
+    }
+
+    /**
+     * Packs an ancestor and the length of the path through it into a long,
+     * so that both can be returned by a single query
+     */
+    static long pack(int ancestor, int length) {
+        return ancestor == -1 ? NO_PATH : ((long) ancestor << 32) | length;
+    }
+
+    static int ancestorOf(long path) {
+        return path == NO_PATH ? -1 : (int) (path >>> 32);
+    }
+
+    static int lengthOf(long path) {
+        return path == NO_PATH ? -1 : (int) path;
     }
 
     private void validateVertices(Iterable<Integer> vertices) {
@@ -135,37 +735,16 @@ public class SAP {
         }
     }
 
-    private void validateVertex(int vertex) {
-        if (vertex < 0 || vertex > graph.V()) {
-            throw new IndexOutOfBoundsException("invalid vertex: " + vertex);
+    private void validateVertices(int[] vertices, int from, int to) {
+        for (int i = from; i < to; i++) {
+            validateVertex(vertices[i]);
         }
     }
 
-    private int ancestor(List<Integer> visited) {
-        int ancestor = -1;
-
-        Queue<Path> paths = new LinkedList<>();
-        paths.add(vPath);
-        paths.add(wPath);
-        while (!paths.isEmpty()) {
-            Path path = paths.poll();
-            if (path.hasNext()) {
-                for (int vertex: path.next()) {
-                    if (visited.contains(vertex)) {
-                        if (ancestor == -1 || length(vertex) < length(ancestor)) {
-                            ancestor = vertex;
-                        }
-                    } else {
-                        visited.add(vertex);
-                    }
-                }
-                if (ancestor == -1 || path.maxDistance() <= length(ancestor)) {
-                    paths.add(path);
-                }
-            }
+    private void validateVertex(int vertex) {
+        if (vertex < 0 || vertex >= graph.V()) {
+            throw new IndexOutOfBoundsException("invalid vertex: " + vertex);
         }
-
-        return ancestor;
     }
 
 }
@@ -0,0 +1,110 @@
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Supplier;
+
+/**
+ * Search state lent to one query at a time
+ *
+ * Unlike a thread local, a state outlives the thread that used it, so a
+ * thread per request, a virtual thread for instance, reuses the arrays of
+ * an earlier request instead of allocating them again. The pool creates a
+ * state only when no idle one is found.
+ *
+ * Idle states sit in a fixed number of slots, taken and filled by compare
+ * and set without a lock. A thread starts from a slot picked by its id, so
+ * threads running at once mostly use different slots, which are spread
+ * over separate cache lines. A state released while every slot is full is
+ * dropped, so the pool keeps at most as many idle states as it has slots,
+ * however many queries ran at once.
+ */
+class ScratchPool<T> {
+
+    // slots apart in the array, so that two slots do not share a cache line
+    private static final int STRIDE = 16;
+
+    private final Supplier<T> factory;
+    private final AtomicReferenceArray<T> slots;
+    private final int capacity;
+
+    /**
+     * A pool keeping two idle states per processor
+     */
+    ScratchPool(Supplier<T> factory) {
+        this(factory, 2 * Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * A pool keeping at most the given number of idle states
+     */
+    ScratchPool(Supplier<T> factory, int capacity) {
+        if (factory == null) {
+            throw new NullPointerException("factory is null");
+        }
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        this.factory = factory;
+        this.capacity = capacity;
+        this.slots = new AtomicReferenceArray<>(capacity * STRIDE);
+    }
+
+    /**
+     * A state no other query uses until it is released
+     */
+    T borrow() {
+        int home = home();
+        for (int i = 0; i < capacity; i++) {
+            int slot = slot(home + i);
+            T scratch = slots.get(slot);
+            if (scratch != null && slots.compareAndSet(slot, scratch, null)) {
+                return scratch;
+            }
+        }
+
+        return factory.get();
+    }
+
+    /**
+     * Returns a borrowed state to the first empty slot from the one of the
+     * thread, where the thread looks first on its next query while the
+     * arrays are still likely to be cached
+     */
+    void release(T scratch) {
+        int home = home();
+        for (int i = 0; i < capacity; i++) {
+            int slot = slot(home + i);
+            if (slots.get(slot) == null && slots.compareAndSet(slot, null, scratch)) {
+                return;
+            }
+        }
+        // every slot is full, the state is left to the garbage collector
+    }
+
+    /**
+     * Number of states not lent, exact only while no query runs
+     */
+    int idle() {
+        int idle = 0;
+        for (int i = 0; i < capacity; i++) {
+            if (slots.get(slot(i)) != null) {
+                idle++;
+            }
+        }
+
+        return idle;
+    }
+
+    int capacity() {
+        return capacity;
+    }
+
+    private int home() {
+        long id = Thread.currentThread().getId();
+
+        return (int) ((id * 0x9e3779b97f4a7c15L) >>> 33) % capacity;
+    }
+
+    private int slot(int i) {
+        return (i % capacity) * STRIDE;
+    }
+
+}
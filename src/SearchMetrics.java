@@ -0,0 +1,109 @@
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters of the shortest ancestral path queries of a {@link SAP}
+ *
+ * A search counts the vertices it expands and the edges it relaxes in
+ * local variables and adds them here once it is done, so a query costs a
+ * few striped counter updates and takes no lock. Both counts are also
+ * recorded per query in {@link Histogram}s, for their distributions. A
+ * query terminates early when it stops with vertices left to expand,
+ * because no remaining one can lead to a shorter path, or when the
+ * landmarks answer it without searching. A query answered by the ancestor
+ * index counts as served, with nothing expanded.
+ */
+public class SearchMetrics {
+
+    private final LongAdder queries = new LongAdder();
+    private final LongAdder vertices = new LongAdder();
+    private final LongAdder edges = new LongAdder();
+    private final LongAdder earlyTerminations = new LongAdder();
+    private final LongAccumulator peakFrontier = new LongAccumulator(Math::max, 0);
+    private final Histogram verticesPerQuery = new Histogram();
+    private final Histogram edgesPerQuery = new Histogram();
+
+    void record(int expanded, int relaxed, int frontier, boolean terminatedEarly) {
+        queries.increment();
+        vertices.add(expanded);
+        edges.add(relaxed);
+        if (terminatedEarly) {
+            earlyTerminations.increment();
+        }
+        peakFrontier.accumulate(frontier);
+        verticesPerQuery.record(expanded);
+        edgesPerQuery.record(relaxed);
+    }
+
+    public Snapshot snapshot() {
+        return new Snapshot(queries.sum(), vertices.sum(), edges.sum(),
+                            earlyTerminations.sum(), peakFrontier.get(),
+                            verticesPerQuery.snapshot(), edgesPerQuery.snapshot());
+    }
+
+    public static final class Snapshot {
+        private final long queries;
+        private final long verticesExpanded;
+        private final long edgesRelaxed;
+        private final long earlyTerminations;
+        private final long peakFrontier;
+        private final Histogram.Snapshot verticesPerQuery;
+        private final Histogram.Snapshot edgesPerQuery;
+
+        Snapshot(long queries, long verticesExpanded, long edgesRelaxed,
+                 long earlyTerminations, long peakFrontier,
+                 Histogram.Snapshot verticesPerQuery, Histogram.Snapshot edgesPerQuery) {
+            this.queries = queries;
+            this.verticesExpanded = verticesExpanded;
+            this.edgesRelaxed = edgesRelaxed;
+            this.earlyTerminations = earlyTerminations;
+            this.peakFrontier = peakFrontier;
+            this.verticesPerQuery = verticesPerQuery;
+            this.edgesPerQuery = edgesPerQuery;
+        }
+
+        public long queries() {
+            return queries;
+        }
+
+        public long verticesExpanded() {
+            return verticesExpanded;
+        }
+
+        public long edgesRelaxed() {
+            return edgesRelaxed;
+        }
+
+        public long earlyTerminations() {
+            return earlyTerminations;
+        }
+
+        /**
+         * Largest number of vertices waiting to be expanded by both sides
+         * of a search at once
+         */
+        public long peakFrontier() {
+            return peakFrontier;
+        }
+
+        public double earlyTerminationRate() {
+            return queries == 0 ? 0.0 : (double) earlyTerminations / queries;
+        }
+
+        public Histogram.Snapshot verticesPerQuery() {
+            return verticesPerQuery;
+        }
+
+        public Histogram.Snapshot edgesPerQuery() {
+            return edgesPerQuery;
+        }
+
+        @Override
+        public String toString() {
+            return "queries=" + queries + " vertices=" + verticesExpanded
+                + " edges=" + edgesRelaxed + " earlyTerminations=" + earlyTerminations
+                + " peakFrontier=" + peakFrontier;
+        }
+    }
+
+}
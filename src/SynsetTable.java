@@ -0,0 +1,136 @@
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * An immutable table of synset strings by synset id
+ *
+ * The UTF-8 bytes of all the synsets live in one arena, on the heap or in
+ * a memory mapping, synset i spanning {@code text[offsets[i]]} up to
+ * {@code text[offsets[i + 1] - 1]}. A string is only decoded when it is
+ * requested, so the table holds no objects per synset.
+ */
+public class SynsetTable {
+
+    private final ByteBuffer text;
+    private final IntBuffer offsets;
+
+    /**
+     * A table over existing buffers, which must not be modified afterwards
+     */
+    SynsetTable(ByteBuffer text, IntBuffer offsets) {
+        if (offsets.capacity() == 0 || offsets.get(offsets.capacity() - 1) != text.capacity()) {
+            throw new IllegalArgumentException("offsets do not match the text");
+        }
+        this.text = text;
+        this.offsets = offsets;
+    }
+
+    /**
+     * Copies the synsets parsed from a synsets file into a heap arena,
+     * ordered by id. Ids must be between 0 and the number of synsets - 1,
+     * when an id is repeated its last synset is kept.
+     */
+    static SynsetTable of(WordNetParser.Synsets synsets) {
+        int size = synsets.size();
+        int[] line = new int[size];
+        for (int i = 0; i < size; i++) {
+            int id = synsets.id(i);
+            if (id >= size) {
+                throw new IllegalArgumentException(
+                    "synsets file contains invalid id: " + id);
+            }
+            line[id] = i + 1;
+        }
+
+        int[] offsets = new int[size + 1];
+        for (int id = 0; id < size; id++) {
+            int i = line[id] - 1;
+            int length = i < 0 ? 0 : synsets.textOffset(i + 1) - synsets.textOffset(i);
+            offsets[id + 1] = offsets[id] + length;
+        }
+        byte[] text = new byte[offsets[size]];
+        for (int id = 0; id < size; id++) {
+            int i = line[id] - 1;
+            if (i >= 0) {
+                System.arraycopy(synsets.bytes(), synsets.textOffset(i),
+                                 text, offsets[id], offsets[id + 1] - offsets[id]);
+            }
+        }
+
+        return new SynsetTable(ByteBuffer.wrap(text), IntBuffer.wrap(offsets));
+    }
+
+    /**
+     * A heap table of the synsets of this table followed by the given
+     * ones, whose ids continue from the size of this table
+     */
+    SynsetTable append(List<String> synsets) {
+        if (synsets == null) {
+            throw new NullPointerException("synsets are null");
+        }
+        byte[][] encoded = new byte[synsets.size()][];
+        int added = 0;
+        for (int i = 0; i < encoded.length; i++) {
+            encoded[i] = synsets.get(i).getBytes(StandardCharsets.UTF_8);
+            added += encoded[i].length;
+        }
+        int size = size();
+        int[] appendedOffsets = new int[size + encoded.length + 1];
+        IntBuffer offsetsView = offsets.duplicate();
+        offsetsView.position(0);
+        offsetsView.get(appendedOffsets, 0, size + 1);
+        byte[] appendedText = new byte[appendedOffsets[size] + added];
+        ByteBuffer textView = text.duplicate();
+        textView.position(0);
+        textView.get(appendedText, 0, appendedOffsets[size]);
+        for (int i = 0; i < encoded.length; i++) {
+            int from = appendedOffsets[size + i];
+            System.arraycopy(encoded[i], 0, appendedText, from, encoded[i].length);
+            appendedOffsets[size + i + 1] = from + encoded[i].length;
+        }
+
+        return new SynsetTable(ByteBuffer.wrap(appendedText), IntBuffer.wrap(appendedOffsets));
+    }
+
+    public int size() {
+        return offsets.capacity() - 1;
+    }
+
+    /**
+     * Synonyms of a synset, separated by a space
+     */
+    public String get(int id) {
+        if (id < 0 || id >= size()) {
+            throw new IndexOutOfBoundsException("invalid synset: " + id);
+        }
+        int from = offsets.get(id);
+        int length = offsets.get(id + 1) - from;
+        if (text.hasArray()) {
+            return new String(text.array(), text.arrayOffset() + from, length, StandardCharsets.UTF_8);
+        }
+        byte[] bytes = new byte[length];
+        ByteBuffer view = text.duplicate();
+        view.position(from);
+        view.get(bytes);
+
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Position of the first byte of a synset in the arena,
+     * {@code offset(size())} is the size of the arena
+     */
+    int offset(int id) {
+        return offsets.get(id);
+    }
+
+    /**
+     * Read-only view of the arena
+     */
+    ByteBuffer text() {
+        return text.asReadOnlyBuffer();
+    }
+
+}
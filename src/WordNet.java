@@ -1,29 +1,316 @@
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.nio.charset.Charset;
-import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashMap;
+import java.util.BitSet;
+import java.util.Collection;
 import java.util.List;
-import java.util.Map;
-import java.util.stream.IntStream;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
 
 public class WordNet {
 
-    private final Map<String, List<Integer>> synsetsByNoun = new HashMap<>();
-    private final Map<Integer, String> synsetsById = new HashMap<>();
-    private SAP sap;
+    private final Options options;
+    private final QueryCache cache;
+    private final SearchMetrics searchMetrics = new SearchMetrics();
+    private final WordNetMetrics metrics = new WordNetMetrics(searchMetrics);
+    private volatile State state;
+    private final Coalescer<Request, Long> paths = new Coalescer<>();
+    private final Coalescer<Request, String> outcasts = new Coalescer<>();
+
+    // the graph edits are applied to, the number of synsets without
+    // hypernyms and the edits not applied to the state yet, all guarded by
+    // this WordNet
+    private Digraph graph;
+    private int roots;
+    private final List<String> addedSynsets = new ArrayList<>();
+    private NounIndex.Builder addedNouns;
+    private final BitSet changed = new BitSet();
+    private volatile boolean pending;
+
+    // the hypernyms file and number of synsets of a lazy WordNet whose graph
+    // is not loaded yet, guarded by this WordNet
+    private Path deferredHypernyms;
+    private int deferredSize;
+
+    /**
+     * Nouns, synsets and graph of one version of a WordNet, replaced as a
+     * whole when edits are applied, so that a query never mixes two versions
+     */
+    private static class State {
+        private final NounIndex nouns;
+        // null when the synset text is skipped
+        private final SynsetTable synsets;
+        // frozen, null with the sap until a lazy WordNet loads its graph
+        private final Digraph graph;
+        private final SAP sap;
+        // counts the applied edits, stamps the paths cached from this state
+        private final long version;
+        // built on the first nearest query
+        private volatile NearestNouns nearest;
+
+        State(NounIndex nouns, SynsetTable synsets, Digraph graph, SAP sap) {
+            this(nouns, synsets, graph, sap, 0);
+        }
+
+        State(NounIndex nouns, SynsetTable synsets, Digraph graph, SAP sap, long version) {
+            this.nouns = nouns;
+            this.synsets = synsets;
+            this.graph = graph;
+            this.sap = sap;
+            this.version = version;
+        }
+    }
+
+    /**
+     * A query to coalesce with identical ones, its arguments asked of a
+     * state, queries of two states are never coalesced
+     */
+    private static final class Request {
+        private final State state;
+        private final Object[] arguments;
+        private final int hash;
+
+        Request(State state, Object... arguments) {
+            this.state = state;
+            this.arguments = arguments;
+            this.hash = 31 * System.identityHashCode(state) + Arrays.hashCode(arguments);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Request)) {
+                return false;
+            }
+            Request request = (Request) o;
+
+            return state == request.state && Arrays.equals(arguments, request.arguments);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    /**
+     * Optional features of a WordNet, all of them disabled by default
+     */
+    public static class Options {
+        private boolean ancestorIndex;
+        private int cacheSize;
+        private QueryCache.Policy cachePolicy;
+        private int parserThreads = 1;
+        private boolean skipSynsetText;
+        private int landmarks;
+        private boolean approximateDistances;
+        private boolean offHeapGraph;
+        private boolean concurrentLoad;
+        private boolean lazyGraph;
+
+        /**
+         * Precompute the ancestors of every synset at load time, so that
+         * distance and sap queries merge two sorted lists instead of
+         * searching the hypernyms graph
+         */
+        public Options ancestorIndex(boolean enabled) {
+            ancestorIndex = enabled;
+            return this;
+        }
+
+        /**
+         * Precompute the distances of every synset to the given number of
+         * landmark synsets, so that queries whose bounds meet are answered
+         * without searching and the others search less, see
+         * {@link LandmarkIndex}
+         */
+        public Options landmarks(int count) {
+            if (count < 0) {
+                throw new IllegalArgumentException("number of landmarks must not be negative");
+            }
+            landmarks = count;
+            return this;
+        }
+
+        /**
+         * Answer distance queries with the length of the path through the
+         * closest common landmark, which may be longer than the shortest
+         * one, and only search when the nouns have no landmark in common.
+         * Takes effect together with {@link #landmarks(int)}.
+         */
+        public Options approximateDistances(boolean enabled) {
+            approximateDistances = enabled;
+            return this;
+        }
+
+        /**
+         * Keep the hypernyms graph off the heap, in direct buffers, or in
+         * the mapping of a snapshot, for graphs of tens of millions of
+         * synsets, see {@link Digraph#offHeap(Digraph)}
+         */
+        public Options offHeapGraph(boolean enabled) {
+            offHeapGraph = enabled;
+            return this;
+        }
+
+        /**
+         * Parse the synsets and hypernyms files at the same time and check
+         * the hypernyms graph for cycles and roots while the nouns are
+         * indexed, on threads of their own, so that the load takes about as
+         * long as its slowest phase on a machine with enough cores
+         */
+        public Options concurrentLoad(boolean enabled) {
+            concurrentLoad = enabled;
+            return this;
+        }
+
+        /**
+         * Load only the nouns and synsets with the WordNet, and the
+         * hypernyms graph, its validation and search structures once, on
+         * the first query that needs them, for services answering mostly
+         * {@link WordNet#isNoun} and {@link WordNet#nouns}. A broken
+         * hypernyms file then fails the queries instead of the constructor.
+         * Takes effect when loading text files, a snapshot is opened
+         * without parsing or validating anything already.
+         */
+        public Options lazyGraph(boolean enabled) {
+            lazyGraph = enabled;
+            return this;
+        }
+
+        /**
+         * Do not keep the synset strings, for deployments answering only
+         * distance queries, {@link WordNet#sap} is then unsupported
+         */
+        public Options skipSynsetText(boolean skip) {
+            skipSynsetText = skip;
+            return this;
+        }
+
+        /**
+         * Split large synsets and hypernyms files into chunks parsed on up
+         * to the given number of threads
+         */
+        public Options parserThreads(int threads) {
+            if (threads <= 0) {
+                throw new IllegalArgumentException("number of threads must be positive");
+            }
+            parserThreads = threads;
+            return this;
+        }
+
+        /**
+         * Cache up to maximumSize distance and sap results, evicted by the
+         * given policy
+         */
+        public Options cache(int maximumSize, QueryCache.Policy policy) {
+            if (maximumSize <= 0) {
+                throw new IllegalArgumentException("maximum size must be positive");
+            }
+            if (policy == null) {
+                throw new NullPointerException("policy is null");
+            }
+            cacheSize = maximumSize;
+            cachePolicy = policy;
+            return this;
+        }
+    }
 
     public WordNet(String synsets, String hypernyms) {
+        this(synsets, hypernyms, new Options());
+    }
+
+    public WordNet(String synsets, String hypernyms, Options options) {
+        if (options == null) {
+            throw new NullPointerException("options are null");
+        }
+        this.options = options;
+        this.cache = createCache(options);
         Path synsetsPath = getPath(synsets, "synsets");
         Path hypernymsPath = getPath(hypernyms, "hypernyms");
 
-        readSynsets(synsetsPath);
-        readHypernyms(hypernymsPath, synsetsById.size());
+        long start = System.nanoTime();
+        if (options.lazyGraph) {
+            WordNetParser.Synsets parsed = timed(WordNetMetrics.Phase.SYNSETS,
+                                                 () -> readSynsets(synsetsPath));
+            state = dictionary(parsed);
+            deferredHypernyms = hypernymsPath;
+            deferredSize = parsed.size();
+        } else {
+            install(options.concurrentLoad
+                ? loadConcurrently(synsetsPath, hypernymsPath)
+                : load(synsetsPath, hypernymsPath));
+        }
+        metrics.recordLoad(System.nanoTime() - start);
+    }
+
+    private WordNet(WordNetSnapshot snapshot, Options options) {
+        if (options == null) {
+            throw new NullPointerException("options are null");
+        }
+        if (!snapshot.isAcyclic()) {
+            throw new IllegalArgumentException(
+                "hypernyms graph contains a cycle");
+        }
+        if (!snapshot.isRooted()) {
+            throw new IllegalArgumentException(
+                "hypernyms graph contains multiple roots");
+        }
+        this.options = options;
+        this.cache = createCache(options);
+        this.graph = snapshot.graph();
+        // an acyclic graph with at most one root has exactly one unless empty
+        this.roots = graph.V() == 0 ? 0 : 1;
+        SAP sap = new SAP(graph, options.ancestorIndex, snapshot.minDepths(),
+                          snapshot.maxDepths(), options.landmarks, searchMetrics);
+        this.state = new State(snapshot.nouns(), options.skipSynsetText ? null : snapshot.synsets(),
+                               new Digraph(graph), sap);
+    }
+
+    /**
+     * Opens a snapshot written by {@link #save(String)}, the synsets are
+     * served straight from the memory mapped file
+     */
+    public static WordNet open(String snapshot) {
+        return open(snapshot, new Options());
+    }
+
+    public static WordNet open(String snapshot, Options options) {
+        if (options == null) {
+            throw new NullPointerException("options are null");
+        }
+
+        return new WordNet(WordNetSnapshot.open(snapshot, options.offHeapGraph), options);
+    }
+
+    /**
+     * Writes a binary snapshot of this WordNet, which {@link #open(String)}
+     * loads without parsing or validating the text files again
+     */
+    public void save(String snapshot) {
+        State state = searchState();
+        if (state.synsets == null) {
+            throw new UnsupportedOperationException("synset text is not loaded");
+        }
+        WordNetSnapshot.write(snapshot, state.nouns, state.synsets, state.graph,
+                              state.sap.minDepths(), state.sap.maxDepths(),
+                              WordNetSnapshot.ACYCLIC | WordNetSnapshot.ROOTED);
+    }
+
+    private static QueryCache createCache(Options options) {
+        return options.cacheSize > 0
+            ? new QueryCache(options.cacheSize, options.cachePolicy)
+            : null;
     }
 
     private Path getPath(String filename, String filetype) {
@@ -41,90 +328,212 @@ public class WordNet {
         return path;
     }
 
-    private void readSynsets(Path path) {
-        Charset charset = StandardCharsets.US_ASCII;
-        try (BufferedReader reader = Files.newBufferedReader(path, charset)) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                addSynset(line);
-            }
-        } catch (IOException e) {
-            e.printStackTrace();
+    /**
+     * Runs the load phases one after another, the state holds the editable
+     * graph
+     */
+    private State load(Path synsetsPath, Path hypernymsPath) {
+        WordNetParser.Synsets parsed = timed(WordNetMetrics.Phase.SYNSETS,
+                                             () -> readSynsets(synsetsPath));
+
+        return loadGraph(dictionary(parsed), hypernymsPath, parsed.size());
+    }
+
+    /**
+     * A state of the nouns and synsets only, without a graph
+     */
+    private State dictionary(WordNetParser.Synsets parsed) {
+        SynsetTable table = options.skipSynsetText ? null
+            : timed(WordNetMetrics.Phase.SYNSETS, () -> SynsetTable.of(parsed));
+        NounIndex nouns = timed(WordNetMetrics.Phase.NOUNS, () -> indexNouns(parsed));
+
+        return new State(nouns, table, null, null);
+    }
+
+    /**
+     * The state of the given nouns and synsets with the hypernyms graph of
+     * the given number of synsets
+     */
+    private State loadGraph(State dictionary, Path hypernymsPath, int size) {
+        WordNetParser.Hypernyms hypernyms = timed(WordNetMetrics.Phase.HYPERNYMS,
+                                                  () -> readHypernyms(hypernymsPath));
+        Digraph hypernymsGraph = timed(WordNetMetrics.Phase.HYPERNYMS,
+                                       () -> buildGraph(hypernyms, size));
+        CycleDetector detector = timed(WordNetMetrics.Phase.VALIDATION,
+                                       () -> validateHypernymsGraph(hypernymsGraph));
+
+        return index(dictionary.nouns, dictionary.synsets, hypernymsGraph, detector);
+    }
+
+    /**
+     * Runs the load phases as soon as their inputs are ready: both files
+     * are parsed at the same time, the hypernym edges are buffered until
+     * the synsets give the number of vertices, and the graph is validated
+     * while the nouns are indexed. A failing phase fails the load with its
+     * own exception.
+     */
+    private State loadConcurrently(Path synsetsPath, Path hypernymsPath) {
+        // the synset table, the noun index and the validation run together
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            CompletableFuture<WordNetParser.Synsets> parsed = CompletableFuture.supplyAsync(
+                () -> timed(WordNetMetrics.Phase.SYNSETS, () -> readSynsets(synsetsPath)),
+                executor);
+            CompletableFuture<WordNetParser.Hypernyms> hypernyms = CompletableFuture.supplyAsync(
+                () -> timed(WordNetMetrics.Phase.HYPERNYMS, () -> readHypernyms(hypernymsPath)),
+                executor);
+            CompletableFuture<SynsetTable> table = parsed.thenApplyAsync(
+                synsets -> options.skipSynsetText ? null
+                    : timed(WordNetMetrics.Phase.SYNSETS, () -> SynsetTable.of(synsets)),
+                executor);
+            CompletableFuture<NounIndex> nouns = parsed.thenApplyAsync(
+                synsets -> timed(WordNetMetrics.Phase.NOUNS, () -> indexNouns(synsets)),
+                executor);
+            CompletableFuture<Digraph> hypernymsGraph = parsed.thenCombineAsync(hypernyms,
+                (synsets, edges) -> timed(WordNetMetrics.Phase.HYPERNYMS,
+                                          () -> buildGraph(edges, synsets.size())),
+                executor);
+            CompletableFuture<CycleDetector> detector = hypernymsGraph.thenApplyAsync(
+                g -> timed(WordNetMetrics.Phase.VALIDATION, () -> validateHypernymsGraph(g)),
+                executor);
+
+            // the validation is joined first, its failure is the one worth
+            // reporting when the graph is broken
+            CycleDetector validated = join(detector);
+            return index(join(nouns), join(table), join(hypernymsGraph), validated);
+        } finally {
+            executor.shutdownNow();
         }
     }
 
-    private void addSynset(String line) {
-        String[] chunks = line.split(",");
-        if (chunks.length < 3 || !chunks[0].matches("^\\d+$")) {
-            throw new IllegalArgumentException(
-                "synset file contains invalid line: " + line);
+    private State index(NounIndex nouns, SynsetTable table, Digraph hypernymsGraph,
+                        CycleDetector detector) {
+        Digraph loaded = options.offHeapGraph ? Digraph.offHeap(hypernymsGraph) : hypernymsGraph;
+        SAP sap = timed(WordNetMetrics.Phase.SEARCH,
+                        () -> new SAP(loaded, options.ancestorIndex, detector, options.landmarks,
+                                      searchMetrics));
+
+        return new State(nouns, table, loaded, sap);
+    }
+
+    /**
+     * Makes the graph of a loaded state the editable graph and answers the
+     * queries from a frozen copy of it
+     */
+    private void install(State loaded) {
+        graph = loaded.graph;
+        roots = countRoots(graph);
+        state = new State(loaded.nouns, loaded.synsets, new Digraph(graph), loaded.sap);
+    }
+
+    /**
+     * Loads the graph of a lazy WordNet, once, a failed load is tried again
+     * by the next query. Guarded by this WordNet.
+     */
+    private void loadDeferredGraph() {
+        if (deferredHypernyms == null) {
+            return;
         }
+        long start = System.nanoTime();
+        // no edits before the graph is loaded, the state is the dictionary
+        install(loadGraph(state, deferredHypernyms, deferredSize));
+        deferredHypernyms = null;
+        metrics.recordLoad(System.nanoTime() - start);
+    }
 
-        int id = Integer.parseInt(chunks[0]);
-        List<String> words = Arrays.asList(chunks[1].split(" "));
+    /**
+     * Adds the duration of a task to its phase
+     */
+    private <T> T timed(WordNetMetrics.Phase phase, Supplier<T> task) {
+        long start = System.nanoTime();
+        T result = task.get();
+        metrics.recordPhase(phase, System.nanoTime() - start);
 
-        synsetsById.put(id, chunks[1]);
+        return result;
+    }
 
-        for (String noun: words) {
-            List<Integer> ids = synsetsByNoun.get(noun);
-            if (ids == null) {
-                ids = new ArrayList<>();
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
             }
-            ids.add(id);
-            synsetsByNoun.put(noun, ids);
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw e;
         }
     }
 
-    private void readHypernyms(Path path, int size) {
-        Charset charset = StandardCharsets.US_ASCII;
-        Digraph graph = new Digraph(size);
-        try (BufferedReader reader = Files.newBufferedReader(path, charset)) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                addHypernym(graph, line);
+    private static int countRoots(Digraph graph) {
+        int roots = 0;
+        for (int v = 0; v < graph.V(); v++) {
+            if (graph.outdegree(v) == 0) {
+                roots++;
             }
+        }
+
+        return roots;
+    }
+
+    private WordNetParser.Synsets readSynsets(Path path) {
+        try {
+            return WordNetParser.parseSynsets(path, options.parserThreads);
         } catch (IOException e) {
             e.printStackTrace();
         }
-        validateHypernymsGraph(graph);
 
-        sap = new SAP(graph);
+        return new WordNetParser.Synsets();
     }
 
-    private void validateHypernymsGraph(Digraph graph) {
-        if (new CycleDetector(graph).hasCycle()) {
-            throw new IllegalArgumentException(
-                "hypernyms graph contains a cycle");
+    private static NounIndex indexNouns(WordNetParser.Synsets synsets) {
+        NounIndex.Builder nouns = new NounIndex.Builder();
+        for (int synset = 0; synset < synsets.size(); synset++) {
+            for (int i = 0; i < synsets.nounCount(synset); i++) {
+                nouns.add(synsets.noun(synset, i), synsets.id(synset));
+            }
         }
 
-        long roots = IntStream
-            .range(0, graph.V())
-            .filter(i -> graph.outdegree(i) == 0)
-            .limit(2)
-            .count();
-        if (roots > 1) {
-            throw new IllegalArgumentException(
-                "hypernyms graph contains multiple roots");
+        return nouns.build();
+    }
+
+    private WordNetParser.Hypernyms readHypernyms(Path path) {
+        try {
+            return WordNetParser.parseHypernyms(path, options.parserThreads);
+        } catch (IOException e) {
+            e.printStackTrace();
         }
+
+        return new WordNetParser.Hypernyms();
     }
 
-    private void addHypernym(Digraph graph, String line) {
-        String[] chunks = line.split(",");
-        if (chunks.length < 1 || !line.matches("^\\d+(,\\d+)*$")) {
-            throw new IllegalArgumentException(
-                "hypernym file contains invalid line: " + line);
+    private static Digraph buildGraph(WordNetParser.Hypernyms hypernyms, int size) {
+        Digraph graph = new Digraph(size);
+        for (int i = 0; i < hypernyms.size(); i++) {
+            graph.addEdge(hypernyms.from(i), hypernyms.to(i));
         }
 
-        if (chunks.length > 1) {
-            int synsetId = Integer.parseInt(chunks[0]);
-            for (int i = 1; i < chunks.length; i++) {
-                graph.addEdge(synsetId, Integer.parseInt(chunks[i]));
-            }
+        return graph.freeze();
+    }
+
+    private CycleDetector validateHypernymsGraph(Digraph graph) {
+        CycleDetector detector = new CycleDetector(graph);
+        if (detector.hasCycle()) {
+            throw new IllegalArgumentException(
+                "hypernyms graph contains a cycle");
+        }
+        if (detector.rootCount() > 1) {
+            throw new IllegalArgumentException(
+                "hypernyms graph contains multiple roots");
         }
+
+        return detector;
     }
 
     public Iterable<String> nouns() {
-        return synsetsByNoun.keySet();
+        return state().nouns;
     }
 
     public boolean isNoun(String word) {
@@ -132,26 +541,424 @@ public class WordNet {
             throw new NullPointerException("word is null");
         }
 
-        return synsetsByNoun.containsKey(word);
+        return state().nouns.contains(word);
     }
 
     public int distance(String nounA, String nounB) {
-        return sap.length(getSynsetIds(nounA), getSynsetIds(nounB));
+        State state = searchState();
+        long start = System.nanoTime();
+        int distance = SAP.lengthOf(options.approximateDistances
+            ? approximatePath(state, nounA, nounB)
+            : path(state, nounA, nounB));
+        metrics.record(WordNetMetrics.Operation.DISTANCE, System.nanoTime() - start);
+
+        return distance;
     }
 
     public String sap(String nounA, String nounB) {
-        int ancestor = sap.ancestor(getSynsetIds(nounA), getSynsetIds(nounB));
+        State state = searchState();
+        if (state.synsets == null) {
+            throw new UnsupportedOperationException("synset text is not loaded");
+        }
+        long start = System.nanoTime();
+        int ancestor = SAP.ancestorOf(path(state, nounA, nounB));
+        String sap = ancestor == -1 ? null : state.synsets.get(ancestor);
+        metrics.record(WordNetMetrics.Operation.SAP, System.nanoTime() - start);
+
+        return sap;
+    }
+
+    /**
+     * {@link #distance} computed on the common fork-join pool, see
+     * {@link #distanceAsync(String, String, Executor)}
+     */
+    public CompletableFuture<Integer> distanceAsync(String nounA, String nounB) {
+        return distanceAsync(nounA, nounB, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * {@link #distance} computed on the executor. The distance and sap
+     * queries of a pair of nouns, in either order, asked while one of them
+     * is computed share its search instead of repeating it. Nouns that are
+     * not in the WordNet are rejected right away.
+     */
+    public CompletableFuture<Integer> distanceAsync(String nounA, String nounB, Executor executor) {
+        long start = System.nanoTime();
+        return pathAsync(nounA, nounB, options.approximateDistances, executor).thenApply(path -> {
+            int distance = SAP.lengthOf(path);
+            metrics.record(WordNetMetrics.Operation.DISTANCE, System.nanoTime() - start);
+
+            return distance;
+        });
+    }
+
+    /**
+     * {@link #sap} computed on the common fork-join pool, see
+     * {@link #sapAsync(String, String, Executor)}
+     */
+    public CompletableFuture<String> sapAsync(String nounA, String nounB) {
+        return sapAsync(nounA, nounB, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * {@link #sap} computed on the executor, sharing the searches of
+     * identical queries like {@link #distanceAsync(String, String, Executor)}
+     */
+    public CompletableFuture<String> sapAsync(String nounA, String nounB, Executor executor) {
+        if (state().synsets == null) {
+            throw new UnsupportedOperationException("synset text is not loaded");
+        }
+        long start = System.nanoTime();
+        return pathAsync(nounA, nounB, false, executor).thenApply(path -> {
+            int ancestor = SAP.ancestorOf(path);
+            // synsets are only appended, the latest state has the ancestor
+            String sap = ancestor == -1 ? null : state.synsets.get(ancestor);
+            metrics.record(WordNetMetrics.Operation.SAP, System.nanoTime() - start);
+
+            return sap;
+        });
+    }
+
+    /**
+     * The outcast of the nouns computed on the common fork-join pool, see
+     * {@link #outcastAsync(String[], Executor)}
+     */
+    public CompletableFuture<String> outcastAsync(String[] nouns) {
+        return outcastAsync(nouns, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * The outcast of the nouns, see {@link Outcast}, computed on the
+     * executor. Queries of the same nouns in the same order asked while one
+     * of them is computed share its result.
+     */
+    public CompletableFuture<String> outcastAsync(String[] nouns, Executor executor) {
+        if (nouns == null) {
+            throw new NullPointerException("nouns are null");
+        }
+        if (executor == null) {
+            throw new NullPointerException("executor is null");
+        }
+        State state = state();
+        String[] words = nouns.clone();
+        for (String word: words) {
+            indexOf(state.nouns, word);
+        }
+
+        return outcasts.submit(new Request(state, (Object[]) words),
+                               () -> new Outcast(this).outcast(words), executor);
+    }
+
+    /**
+     * The path of a pair of nouns computed on the executor, shared by the
+     * queries of the same unordered pair
+     */
+    private CompletableFuture<Long> pathAsync(String nounA, String nounB, boolean approximate,
+                                              Executor executor) {
+        if (executor == null) {
+            throw new NullPointerException("executor is null");
+        }
+        State state = state();
+        int a = indexOf(state.nouns, nounA);
+        int b = indexOf(state.nouns, nounB);
+        Request request = new Request(state, approximate, Math.min(a, b), Math.max(a, b));
+
+        return paths.submit(request, () -> {
+            // the graph of a lazy WordNet is loaded by the executor
+            State current = searchState();
+            return approximate ? approximatePath(current, nounA, nounB)
+                               : path(current, nounA, nounB);
+        }, executor);
+    }
+
+    /**
+     * Adds a synset of the given synonyms, separated by spaces, as a hyponym
+     * of the given synsets and returns its id, which follows the ids of the
+     * existing synsets. A synset without hypernyms is only accepted as the
+     * root of an empty WordNet. Edits are applied to the queries starting
+     * after them, in one pass over the graph however many there are, see
+     * {@link #addHypernym}.
+     */
+    public synchronized int addSynset(String synset, int... hypernyms) {
+        if (synset == null) {
+            throw new NullPointerException("synset is null");
+        }
+        if (hypernyms == null) {
+            throw new NullPointerException("hypernyms are null");
+        }
+        loadDeferredGraph();
+        String[] words = synset.split(" ");
+        for (String word: words) {
+            if (word.isEmpty()) {
+                throw new IllegalArgumentException("synset contains an empty noun: " + synset);
+            }
+        }
+        for (int hypernym: hypernyms) {
+            validateSynset(hypernym);
+        }
+        // nothing reaches a new synset, so its edges cannot close a cycle
+        if (hypernyms.length == 0 && roots > 0) {
+            throw new IllegalArgumentException(
+                "hypernyms graph contains multiple roots");
+        }
+
+        int id = graph.addVertex();
+        for (int hypernym: hypernyms) {
+            graph.addEdge(id, hypernym);
+        }
+        if (hypernyms.length == 0) {
+            roots++;
+        }
+        if (addedNouns == null) {
+            addedNouns = new NounIndex.Builder();
+        }
+        for (String word: words) {
+            addedNouns.add(word, id);
+        }
+        addedSynsets.add(synset);
+        changed.set(id);
+        pending = true;
+
+        return id;
+    }
+
+    /**
+     * Adds an edge from a synset to a hypernym. An edge closes a cycle when
+     * the synset is reachable from the hypernym, so only the ancestors of
+     * the hypernym are searched instead of the whole graph. When the edits
+     * are applied only the synsets that can reach the synset have their
+     * depths, ancestors and cached paths computed again.
+     */
+    public synchronized void addHypernym(int synset, int hypernym) {
+        loadDeferredGraph();
+        validateSynset(synset);
+        validateSynset(hypernym);
+        if (graph.hasPath(hypernym, synset)) {
+            throw new IllegalArgumentException(
+                "hypernym would close a cycle: " + synset + " -> " + hypernym);
+        }
+
+        if (graph.outdegree(synset) == 0) {
+            roots--;
+        }
+        graph.addEdge(synset, hypernym);
+        changed.set(synset);
+        pending = true;
+    }
+
+    /**
+     * Latencies of the queries, counters of the searches behind them and
+     * timings of the load phases
+     */
+    public WordNetMetrics metrics() {
+        return metrics;
+    }
+
+    /**
+     * Counters of the distance and sap cache, null when it is disabled
+     */
+    public QueryCache.Stats cacheStats() {
+        return cache == null ? null : cache.stats();
+    }
+
+    /**
+     * The k nouns at the shortest distance from the noun, nearest first,
+     * see {@link NearestNouns}
+     */
+    public List<String> nearest(String noun, int k) {
+        State state = searchState();
+        indexOf(state.nouns, noun);
+        NearestNouns nearest = state.nearest;
+        if (nearest == null) {
+            synchronized (state) {
+                nearest = state.nearest;
+                if (nearest == null) {
+                    nearest = new NearestNouns(state.graph, state.nouns);
+                    state.nearest = nearest;
+                }
+            }
+        }
 
-        return synsetsById.get(ancestor);
+        return nearest.nearest(noun, k);
     }
 
-    private Iterable<Integer> getSynsetIds(String word) {
-        if (!isNoun(word)) {
+    /**
+     * Distances between all the given nouns, computed by breadth-first
+     * searches of 64 nouns at once on the common fork-join pool, see
+     * {@link DistanceMatrix#search}
+     */
+    public DistanceMatrix distanceMatrix(Collection<String> nouns) {
+        return distanceMatrix(nouns, ForkJoinPool.commonPool());
+    }
+
+    public DistanceMatrix distanceMatrix(Collection<String> nouns, ForkJoinPool pool) {
+        if (nouns == null) {
+            throw new NullPointerException("nouns are null");
+        }
+        if (pool == null) {
+            throw new NullPointerException("pool is null");
+        }
+        State state = searchState();
+        String[] words = nouns.toArray(new String[0]);
+        int[][] synsets = new int[words.length][];
+        for (int i = 0; i < words.length; i++) {
+            int index = indexOf(state.nouns, words[i]);
+            synsets[i] = Arrays.copyOfRange(state.nouns.postings(), state.nouns.from(index),
+                                            state.nouns.to(index));
+        }
+
+        return DistanceMatrix.search(state.graph, words, synsets, pool);
+    }
+
+    /**
+     * Distances between all the nouns, every one read from the same state,
+     * see {@link DistanceMatrix#of(WordNet, String[], ForkJoinPool)}
+     */
+    DistanceMatrix pairwiseDistances(String[] nouns, ForkJoinPool pool) {
+        State state = searchState();
+        NounIndex index = state.nouns;
+        int[] ids = index.postings();
+        int n = nouns.length;
+        int[] from = new int[n];
+        int[] to = new int[n];
+        for (int i = 0; i < n; i++) {
+            int noun = indexOf(index, nouns[i]);
+            from[i] = index.from(noun);
+            to[i] = index.to(noun);
+        }
+        boolean approximate = options.approximateDistances;
+        int[][] ancestors = new int[n][];
+        if (!approximate) {
+            DistanceMatrix.run(pool, n,
+                               i -> ancestors[i] = state.sap.ancestors(ids, from[i], to[i]));
+        }
+
+        return DistanceMatrix.of(nouns, (i, j) -> {
+            Long cached = cache == null ? null : cache.getIfPresent(
+                new QueryCache.Key(ids, from[i], to[i], ids, from[j], to[j]), state.version);
+            if (cached != null) {
+                return SAP.lengthOf(cached);
+            }
+
+            return SAP.lengthOf(approximate
+                ? state.sap.approximatePath(ids, from[i], to[i], ids, from[j], to[j])
+                : SAP.meet(ancestors[i], ancestors[j]));
+        }, pool);
+    }
+
+    private static long approximatePath(State state, String nounA, String nounB) {
+        NounIndex nouns = state.nouns;
+        int a = indexOf(nouns, nounA);
+        int b = indexOf(nouns, nounB);
+        int[] ids = nouns.postings();
+
+        return state.sap.approximatePath(ids, nouns.from(a), nouns.to(a),
+                                         ids, nouns.from(b), nouns.to(b));
+    }
+
+    private long path(State state, String nounA, String nounB) {
+        NounIndex nouns = state.nouns;
+        SAP sap = state.sap;
+        int a = indexOf(nouns, nounA);
+        int b = indexOf(nouns, nounB);
+        int[] ids = nouns.postings();
+        int aFrom = nouns.from(a);
+        int aTo = nouns.to(a);
+        int bFrom = nouns.from(b);
+        int bTo = nouns.to(b);
+        if (cache == null) {
+            return sap.path(ids, aFrom, aTo, ids, bFrom, bTo);
+        }
+
+        return cache.get(new QueryCache.Key(ids, aFrom, aTo, ids, bFrom, bTo), state.version,
+                         () -> sap.path(ids, aFrom, aTo, ids, bFrom, bTo));
+    }
+
+    /**
+     * The state to answer a query needing the graph from, with the graph of
+     * a lazy WordNet loaded
+     */
+    private State searchState() {
+        State state = state();
+        if (state.sap == null) {
+            synchronized (this) {
+                loadDeferredGraph();
+                state = state();
+            }
+        }
+
+        return state;
+    }
+
+    /**
+     * The state to answer a query from, with the edits made so far applied
+     */
+    private State state() {
+        if (pending) {
+            synchronized (this) {
+                if (pending) {
+                    apply();
+                }
+            }
+        }
+
+        return state;
+    }
+
+    /**
+     * Replaces the state by one with the pending edits: the new nouns are
+     * merged into the noun index, and the depths, ancestors and cached paths
+     * of the synsets that can reach a changed synset are computed again.
+     * Finding those synsets reverses the whole graph and the new state gets
+     * a copy of it, linear passes over its arrays, the searches only cover
+     * the affected synsets.
+     */
+    private void apply() {
+        State current = state;
+        NounIndex nouns = addedNouns == null ? current.nouns
+            : current.nouns.merge(addedNouns.build());
+        SynsetTable synsets = current.synsets == null ? null
+            : current.synsets.append(addedSynsets);
+        graph.freeze();
+        boolean[] affected = SAP.affected(graph, changed.stream().toArray());
+        SAP sap = current.sap.update(graph, affected);
+        long version = current.version + 1;
+        if (cache != null) {
+            // queries still running on the current state can no longer put
+            // their paths back once they are removed
+            cache.invalidate(version, id -> affected[id]);
+        }
+        state = new State(nouns, synsets, new Digraph(graph), sap, version);
+
+        // only cleared once the new state is in place, an apply that failed
+        // is tried again by the next query
+        addedNouns = null;
+        addedSynsets.clear();
+        changed.clear();
+        pending = false;
+    }
+
+    private void validateSynset(int id) {
+        if (id < 0 || id >= graph.V()) {
+            throw new IllegalArgumentException("invalid synset id: " + id);
+        }
+    }
+
+    /**
+     * Index of a noun in the noun index, its synset ids are the postings
+     * from {@link NounIndex#from(int)} to {@link NounIndex#to(int)}
+     */
+    private static int indexOf(NounIndex nouns, String word) {
+        if (word == null) {
+            throw new NullPointerException("word is null");
+        }
+        int index = nouns.indexOf(word);
+        if (index < 0) {
             throw new IllegalArgumentException(
                 "not a WordNet noun: " + word);
         }
 
-        return synsetsByNoun.get(word);
+        return index;
     }
 
 }
@@ -0,0 +1,330 @@
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Query and load metrics of a {@link WordNet}
+ *
+ * Latencies of the distance, sap and outcast operations are recorded in
+ * nanoseconds in lock-free {@link Histogram}s, the search counters come
+ * from the {@link SearchMetrics} of the WordNet's {@link SAP}. A query is
+ * timed once the graph it searches is loaded and its pending edits are
+ * applied, so that a deferred load does not count as a slow query. Queries
+ * answered by the cache are timed but do not reach the search. The load
+ * phases are timed by the constructor, or by the first query of a lazy
+ * WordNet for the phases it defers, they are 0 for a WordNet opened from a
+ * snapshot, which neither parses nor validates anything. When the phases
+ * run concurrently their sum exceeds the load time, the wall time of the
+ * constructor and of the deferred load.
+ *
+ * Read the metrics with {@link #snapshot()}, or through JMX once
+ * {@link #register(String)} has exposed them as a standard MBean.
+ */
+public class WordNetMetrics implements WordNetMetricsMBean {
+
+    /**
+     * Operations whose latencies are recorded
+     */
+    public enum Operation { DISTANCE, SAP, OUTCAST }
+
+    /**
+     * Phases of loading a WordNet from text files: parsing the synsets into
+     * the synset table, indexing the nouns, parsing the hypernyms into the
+     * graph, checking the graph for cycles and roots, and building the
+     * search structures of the {@link SAP}
+     */
+    public enum Phase { SYNSETS, NOUNS, HYPERNYMS, VALIDATION, SEARCH }
+
+    private final SearchMetrics search;
+    private final Histogram[] latencies = new Histogram[Operation.values().length];
+    private final AtomicLongArray phaseNanos = new AtomicLongArray(Phase.values().length);
+    private final AtomicLong loadNanos = new AtomicLong();
+
+    WordNetMetrics(SearchMetrics search) {
+        this.search = search;
+        for (int i = 0; i < latencies.length; i++) {
+            latencies[i] = new Histogram();
+        }
+    }
+
+    void record(Operation operation, long nanos) {
+        latencies[operation.ordinal()].record(nanos);
+    }
+
+    /**
+     * Adds to the time spent in a load phase, phases split into several
+     * tasks record each of them
+     */
+    void recordPhase(Phase phase, long nanos) {
+        phaseNanos.addAndGet(phase.ordinal(), nanos);
+    }
+
+    /**
+     * Adds to the wall time of the load
+     */
+    void recordLoad(long nanos) {
+        loadNanos.addAndGet(nanos);
+    }
+
+    public Snapshot snapshot() {
+        Histogram.Snapshot[] snapshots = new Histogram.Snapshot[latencies.length];
+        for (int i = 0; i < latencies.length; i++) {
+            snapshots[i] = latencies[i].snapshot();
+        }
+
+        long[] phases = new long[phaseNanos.length()];
+        for (int i = 0; i < phases.length; i++) {
+            phases[i] = phaseNanos.get(i);
+        }
+
+        return new Snapshot(search.snapshot(), snapshots, phases, loadNanos.get());
+    }
+
+    /**
+     * Registers the metrics with the platform MBean server under the given
+     * object name, such as {@code wordnet:type=WordNetMetrics}
+     */
+    public ObjectName register(String name) {
+        if (name == null) {
+            throw new NullPointerException("name is null");
+        }
+        try {
+            ObjectName objectName = new ObjectName(name);
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+
+            return objectName;
+        } catch (JMException e) {
+            throw new IllegalArgumentException("cannot register metrics as " + name, e);
+        }
+    }
+
+    public void unregister(ObjectName name) {
+        if (name == null) {
+            throw new NullPointerException("name is null");
+        }
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(name);
+        } catch (JMException e) {
+            throw new IllegalArgumentException("cannot unregister metrics " + name, e);
+        }
+    }
+
+    /**
+     * Metrics at one point in time
+     */
+    public static final class Snapshot {
+        private final SearchMetrics.Snapshot search;
+        private final Histogram.Snapshot[] latencies;
+        private final long[] phaseNanos;
+        private final long loadNanos;
+
+        Snapshot(SearchMetrics.Snapshot search, Histogram.Snapshot[] latencies,
+                 long[] phaseNanos, long loadNanos) {
+            this.search = search;
+            this.latencies = latencies;
+            this.phaseNanos = phaseNanos;
+            this.loadNanos = loadNanos;
+        }
+
+        public SearchMetrics.Snapshot search() {
+            return search;
+        }
+
+        /**
+         * Latencies of an operation, in nanoseconds
+         */
+        public Histogram.Snapshot latency(Operation operation) {
+            if (operation == null) {
+                throw new NullPointerException("operation is null");
+            }
+
+            return latencies[operation.ordinal()];
+        }
+
+        /**
+         * Time spent in a load phase, in nanoseconds
+         */
+        public long phaseNanos(Phase phase) {
+            if (phase == null) {
+                throw new NullPointerException("phase is null");
+            }
+
+            return phaseNanos[phase.ordinal()];
+        }
+
+        public long synsetParseNanos() {
+            return phaseNanos(Phase.SYNSETS);
+        }
+
+        public long hypernymParseNanos() {
+            return phaseNanos(Phase.HYPERNYMS);
+        }
+
+        public long cycleCheckNanos() {
+            return phaseNanos(Phase.VALIDATION);
+        }
+
+        /**
+         * Wall time of the load, in nanoseconds
+         */
+        public long loadNanos() {
+            return loadNanos;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder builder = new StringBuilder(search.toString());
+            for (Operation operation: Operation.values()) {
+                builder.append(' ').append(operation.name().toLowerCase())
+                       .append("=[").append(latencies[operation.ordinal()]).append(']');
+            }
+
+            return builder.toString();
+        }
+    }
+
+    @Override
+    public long getQueries() {
+        return search.snapshot().queries();
+    }
+
+    @Override
+    public long getVerticesExpanded() {
+        return search.snapshot().verticesExpanded();
+    }
+
+    @Override
+    public long getEdgesRelaxed() {
+        return search.snapshot().edgesRelaxed();
+    }
+
+    @Override
+    public double getMeanVerticesExpanded() {
+        return search.snapshot().verticesPerQuery().mean();
+    }
+
+    @Override
+    public long getVerticesExpandedP50() {
+        return search.snapshot().verticesPerQuery().percentile(0.5);
+    }
+
+    @Override
+    public long getVerticesExpandedP99() {
+        return search.snapshot().verticesPerQuery().percentile(0.99);
+    }
+
+    @Override
+    public double getMeanEdgesRelaxed() {
+        return search.snapshot().edgesPerQuery().mean();
+    }
+
+    @Override
+    public long getEdgesRelaxedP50() {
+        return search.snapshot().edgesPerQuery().percentile(0.5);
+    }
+
+    @Override
+    public long getEdgesRelaxedP99() {
+        return search.snapshot().edgesPerQuery().percentile(0.99);
+    }
+
+    @Override
+    public long getPeakFrontier() {
+        return search.snapshot().peakFrontier();
+    }
+
+    @Override
+    public double getEarlyTerminationRate() {
+        return search.snapshot().earlyTerminationRate();
+    }
+
+    @Override
+    public long getDistanceCount() {
+        return latency(Operation.DISTANCE).count();
+    }
+
+    @Override
+    public double getDistanceP50Micros() {
+        return micros(latency(Operation.DISTANCE).percentile(0.5));
+    }
+
+    @Override
+    public double getDistanceP99Micros() {
+        return micros(latency(Operation.DISTANCE).percentile(0.99));
+    }
+
+    @Override
+    public long getSapCount() {
+        return latency(Operation.SAP).count();
+    }
+
+    @Override
+    public double getSapP50Micros() {
+        return micros(latency(Operation.SAP).percentile(0.5));
+    }
+
+    @Override
+    public double getSapP99Micros() {
+        return micros(latency(Operation.SAP).percentile(0.99));
+    }
+
+    @Override
+    public long getOutcastCount() {
+        return latency(Operation.OUTCAST).count();
+    }
+
+    @Override
+    public double getOutcastP50Micros() {
+        return micros(latency(Operation.OUTCAST).percentile(0.5));
+    }
+
+    @Override
+    public double getOutcastP99Micros() {
+        return micros(latency(Operation.OUTCAST).percentile(0.99));
+    }
+
+    @Override
+    public double getSynsetParseMillis() {
+        return millis(Phase.SYNSETS);
+    }
+
+    @Override
+    public double getNounIndexMillis() {
+        return millis(Phase.NOUNS);
+    }
+
+    @Override
+    public double getHypernymParseMillis() {
+        return millis(Phase.HYPERNYMS);
+    }
+
+    @Override
+    public double getCycleCheckMillis() {
+        return millis(Phase.VALIDATION);
+    }
+
+    @Override
+    public double getSearchIndexMillis() {
+        return millis(Phase.SEARCH);
+    }
+
+    @Override
+    public double getLoadMillis() {
+        return loadNanos.get() / 1e6;
+    }
+
+    private double millis(Phase phase) {
+        return phaseNanos.get(phase.ordinal()) / 1e6;
+    }
+
+    private Histogram.Snapshot latency(Operation operation) {
+        return latencies[operation.ordinal()].snapshot();
+    }
+
+    private static double micros(long nanos) {
+        return nanos / 1e3;
+    }
+
+}
@@ -0,0 +1,59 @@
+/**
+ * Management interface of {@link WordNetMetrics}, latencies are in
+ * microseconds and load phases in milliseconds
+ */
+public interface WordNetMetricsMBean {
+
+    long getQueries();
+
+    long getVerticesExpanded();
+
+    long getEdgesRelaxed();
+
+    double getMeanVerticesExpanded();
+
+    long getVerticesExpandedP50();
+
+    long getVerticesExpandedP99();
+
+    double getMeanEdgesRelaxed();
+
+    long getEdgesRelaxedP50();
+
+    long getEdgesRelaxedP99();
+
+    long getPeakFrontier();
+
+    double getEarlyTerminationRate();
+
+    long getDistanceCount();
+
+    double getDistanceP50Micros();
+
+    double getDistanceP99Micros();
+
+    long getSapCount();
+
+    double getSapP50Micros();
+
+    double getSapP99Micros();
+
+    long getOutcastCount();
+
+    double getOutcastP50Micros();
+
+    double getOutcastP99Micros();
+
+    double getSynsetParseMillis();
+
+    double getNounIndexMillis();
+
+    double getHypernymParseMillis();
+
+    double getCycleCheckMillis();
+
+    double getSearchIndexMillis();
+
+    double getLoadMillis();
+
+}
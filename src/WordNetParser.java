@@ -0,0 +1,396 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * A byte-level scanner of the synsets and hypernyms files
+ *
+ * Files are memory mapped and scanned in place: numbers are parsed straight
+ * from the bytes and the nouns of the synsets are copied as bytes, strings
+ * are only created on request. A file can be split at line boundaries into
+ * chunks scanned on several threads, the chunks are merged back in file
+ * order so the result does not depend on the number of threads.
+ *
+ * Accepted lines, anything else is reported as an invalid line:
+ *
+ *     synsets:    id,noun[ noun]*,gloss
+ *     hypernyms:  id[,hypernym id]*
+ */
+public class WordNetParser {
+
+    // chunks smaller than this are not worth a thread of their own
+    private static final int MIN_CHUNK_BYTES = 1 << 20;
+
+    private WordNetParser() {
+    }
+
+    /**
+     * Synsets of a synsets file, in file order
+     *
+     * The nouns field of every synset is kept as UTF-8 bytes in one arena,
+     * synset i spanning {@code bytes[textOffsets[i]]} up to
+     * {@code bytes[textOffsets[i + 1] - 1]}, and only decoded on request.
+     */
+    public static class Synsets {
+        private int[] ids = new int[1024];
+        private int[] textOffsets = new int[1025];
+        private byte[] bytes = new byte[1 << 16];
+        // byte bounds of the nouns of synset i within its text are
+        // words[2 * j], words[2 * j + 1] for j from wordOffsets[i] to
+        // wordOffsets[i + 1]
+        private int[] wordOffsets = new int[1025];
+        private int[] words = new int[2048];
+        private int size;
+        private int wordCount;
+
+        public int size() {
+            return size;
+        }
+
+        public int id(int synset) {
+            return ids[synset];
+        }
+
+        public String text(int synset) {
+            return new String(bytes, textOffsets[synset],
+                              textOffsets[synset + 1] - textOffsets[synset],
+                              StandardCharsets.UTF_8);
+        }
+
+        public int nounCount(int synset) {
+            return wordOffsets[synset + 1] - wordOffsets[synset];
+        }
+
+        public String noun(int synset, int index) {
+            int word = 2 * (wordOffsets[synset] + index);
+            int from = textOffsets[synset] + words[word];
+
+            return new String(bytes, from, words[word + 1] - words[word], StandardCharsets.UTF_8);
+        }
+
+        /**
+         * Position in {@link #bytes()} of the text of a synset
+         */
+        int textOffset(int synset) {
+            return textOffsets[synset];
+        }
+
+        /**
+         * The text arena, shared and not to be modified
+         */
+        byte[] bytes() {
+            return bytes;
+        }
+
+        private void add(int id, ByteBuffer buffer, int from, int to) {
+            if (size == ids.length) {
+                int capacity = 2 * size;
+                ids = Arrays.copyOf(ids, capacity);
+                textOffsets = Arrays.copyOf(textOffsets, capacity + 1);
+                wordOffsets = Arrays.copyOf(wordOffsets, capacity + 1);
+            }
+            int offset = textOffsets[size];
+            if (offset + to - from > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(2 * bytes.length, offset + to - from));
+            }
+            for (int i = from; i < to; i++) {
+                bytes[offset++] = buffer.get(i);
+            }
+            ids[size] = id;
+            size++;
+            textOffsets[size] = offset;
+            wordOffsets[size] = wordCount;
+        }
+
+        private void addNoun(int from, int to) {
+            if (2 * wordCount + 2 > words.length) {
+                words = Arrays.copyOf(words, 2 * words.length);
+            }
+            words[2 * wordCount] = from;
+            words[2 * wordCount + 1] = to;
+            wordCount++;
+        }
+
+        private void append(Synsets chunk) {
+            ByteBuffer text = ByteBuffer.wrap(chunk.bytes);
+            for (int i = 0; i < chunk.size; i++) {
+                for (int j = chunk.wordOffsets[i]; j < chunk.wordOffsets[i + 1]; j++) {
+                    addNoun(chunk.words[2 * j], chunk.words[2 * j + 1]);
+                }
+                add(chunk.ids[i], text, chunk.textOffsets[i], chunk.textOffsets[i + 1]);
+            }
+        }
+    }
+
+    /**
+     * Hypernym edges of a hypernyms file, in file order
+     */
+    public static class Hypernyms {
+        private int[] from = new int[1024];
+        private int[] to = new int[1024];
+        private int size;
+
+        public int size() {
+            return size;
+        }
+
+        public int from(int edge) {
+            return from[edge];
+        }
+
+        public int to(int edge) {
+            return to[edge];
+        }
+
+        private void add(int synset, int hypernym) {
+            if (size == from.length) {
+                from = Arrays.copyOf(from, 2 * size);
+                to = Arrays.copyOf(to, 2 * size);
+            }
+            from[size] = synset;
+            to[size] = hypernym;
+            size++;
+        }
+
+        private void append(Hypernyms chunk) {
+            for (int i = 0; i < chunk.size; i++) {
+                add(chunk.from[i], chunk.to[i]);
+            }
+        }
+    }
+
+    public static Synsets parseSynsets(Path path, int threads) throws IOException {
+        List<Synsets> chunks = scan(map(path), threads, WordNetParser::scanSynsets);
+        if (chunks.size() == 1) {
+            return chunks.get(0);
+        }
+        Synsets synsets = new Synsets();
+        for (Synsets chunk: chunks) {
+            synsets.append(chunk);
+        }
+
+        return synsets;
+    }
+
+    public static Hypernyms parseHypernyms(Path path, int threads) throws IOException {
+        List<Hypernyms> chunks = scan(map(path), threads, WordNetParser::scanHypernyms);
+        if (chunks.size() == 1) {
+            return chunks.get(0);
+        }
+        Hypernyms hypernyms = new Hypernyms();
+        for (Hypernyms chunk: chunks) {
+            hypernyms.append(chunk);
+        }
+
+        return hypernyms;
+    }
+
+    private interface ChunkScanner<T> {
+        T scan(ByteBuffer buffer, int from, int to);
+    }
+
+    private static ByteBuffer map(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException(
+                    "file is larger than 2GB: " + path);
+            }
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    /**
+     * Scans the buffer in chunks ending at line boundaries, on up to the
+     * given number of threads, and returns the chunks in file order
+     */
+    private static <T> List<T> scan(ByteBuffer buffer, int threads, ChunkScanner<T> scanner) {
+        int length = buffer.limit();
+        int chunks = Math.max(1, Math.min(threads, length / MIN_CHUNK_BYTES));
+        if (chunks == 1) {
+            return Arrays.asList(scanner.scan(buffer, 0, length));
+        }
+
+        int[] bounds = new int[chunks + 1];
+        bounds[chunks] = length;
+        for (int i = 1; i < chunks; i++) {
+            int bound = Math.max(bounds[i - 1], (int) ((long) length * i / chunks));
+            while (bound < length && buffer.get(bound - 1) != '\n') {
+                bound++;
+            }
+            bounds[i] = bound;
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(chunks);
+        try {
+            List<Future<T>> futures = new ArrayList<>(chunks);
+            for (int i = 0; i < chunks; i++) {
+                ByteBuffer view = buffer.duplicate();
+                int from = bounds[i];
+                int to = bounds[i + 1];
+                futures.add(executor.submit((Callable<T>) () -> scanner.scan(view, from, to)));
+            }
+            List<T> results = new ArrayList<>(chunks);
+            for (Future<T> future: futures) {
+                results.add(future.get());
+            }
+
+            return results;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while parsing", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static Synsets scanSynsets(ByteBuffer buffer, int from, int to) {
+        Synsets synsets = new Synsets();
+        int start = from;
+        while (start < to) {
+            int end = lineEnd(buffer, start, to);
+            addSynset(synsets, buffer, start, end);
+            start = nextLine(buffer, end, to);
+        }
+
+        return synsets;
+    }
+
+    private static void addSynset(Synsets synsets, ByteBuffer buffer, int from, int to) {
+        int i = from;
+        long id = 0;
+        while (i < to && isDigit(buffer.get(i)) && id <= Integer.MAX_VALUE) {
+            id = 10 * id + (buffer.get(i++) - '0');
+        }
+        if (i == from || i == to || buffer.get(i) != ',' || id > Integer.MAX_VALUE) {
+            throw invalidLine("synset", buffer, from, to);
+        }
+
+        int nounsFrom = ++i;
+        while (i < to && buffer.get(i) != ',') {
+            i++;
+        }
+        int nounsTo = i;
+        // like String.split, a gloss made of commas only does not count
+        boolean gloss = false;
+        while (++i < to) {
+            if (buffer.get(i) != ',') {
+                gloss = true;
+                break;
+            }
+        }
+        if (nounsTo == to || !gloss) {
+            throw invalidLine("synset", buffer, from, to);
+        }
+
+        int wordFrom = 0;
+        for (int j = nounsFrom; j <= nounsTo; j++) {
+            if (j == nounsTo || buffer.get(j) == ' ') {
+                if (j > nounsFrom + wordFrom) {
+                    synsets.addNoun(wordFrom, j - nounsFrom);
+                }
+                wordFrom = j - nounsFrom + 1;
+            }
+        }
+        synsets.add((int) id, buffer, nounsFrom, nounsTo);
+    }
+
+    private static Hypernyms scanHypernyms(ByteBuffer buffer, int from, int to) {
+        Hypernyms hypernyms = new Hypernyms();
+        int start = from;
+        while (start < to) {
+            int end = lineEnd(buffer, start, to);
+            addHypernyms(hypernyms, buffer, start, end);
+            start = nextLine(buffer, end, to);
+        }
+
+        return hypernyms;
+    }
+
+    private static void addHypernyms(Hypernyms hypernyms, ByteBuffer buffer, int from, int to) {
+        int synset = -1;
+        int i = from;
+        while (true) {
+            int digits = i;
+            long id = 0;
+            while (i < to && isDigit(buffer.get(i)) && id <= Integer.MAX_VALUE) {
+                id = 10 * id + (buffer.get(i++) - '0');
+            }
+            if (i == digits || id > Integer.MAX_VALUE || (i < to && buffer.get(i) != ',')) {
+                throw invalidLine("hypernym", buffer, from, to);
+            }
+            if (synset == -1) {
+                synset = (int) id;
+            } else {
+                hypernyms.add(synset, (int) id);
+            }
+            if (i == to) {
+                return;
+            }
+            i++;
+        }
+    }
+
+    /**
+     * Position of the line terminator, \n, \r or \r\n, or of the chunk end
+     */
+    private static int lineEnd(ByteBuffer buffer, int from, int to) {
+        int i = from;
+        while (i < to) {
+            byte b = buffer.get(i);
+            if (b == '\n' || b == '\r') {
+                break;
+            }
+            i++;
+        }
+
+        return i;
+    }
+
+    private static int nextLine(ByteBuffer buffer, int end, int to) {
+        if (end < to && buffer.get(end) == '\r') {
+            end++;
+            if (end < to && buffer.get(end) == '\n') {
+                end++;
+            }
+            return end;
+        }
+
+        return end + 1;
+    }
+
+    private static boolean isDigit(byte b) {
+        return b >= '0' && b <= '9';
+    }
+
+    private static String decode(ByteBuffer buffer, int from, int to) {
+        byte[] bytes = new byte[to - from];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = buffer.get(from + i);
+        }
+
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static IllegalArgumentException invalidLine(
+            String filetype, ByteBuffer buffer, int from, int to) {
+        return new IllegalArgumentException(
+            filetype + " file contains invalid line: " + decode(buffer, from, to));
+    }
+
+}
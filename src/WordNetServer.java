@@ -0,0 +1,256 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An HTTP server answering queries against a loaded WordNet
+ *
+ * Requests are GET requests with URL encoded parameters, answered in plain
+ * text:
+ *
+ *     /ancestor?v=noun&w=noun    shortest ancestral path synset
+ *     /distance?v=noun&w=noun    shortest ancestral path length
+ *     /outcast?nouns=noun,noun   outcast of the nouns
+ *     /isNoun?word=word          true or false
+ *
+ * A request for nouns not in WordNet or with missing parameters is answered
+ * with 400, a query failing otherwise with 500. At most a fixed number of
+ * requests are answered at once and as many more may wait for their turn.
+ * A request arriving when that many are waiting already, or waiting longer
+ * than a short while, is rejected with 503 so that clients back off
+ * instead of piling up. Admission is decided on the thread accepting the
+ * connections, before a request is handed to a worker, so nothing queues
+ * past these limits. Each request runs on its own virtual thread when the
+ * JVM has them, the searches borrow their scratch arrays from pools that
+ * keep them across requests and threads.
+ *
+ * The JDK server writes the headers and the body of a response separately,
+ * which with Nagle's algorithm and delayed acks stalls every keep-alive
+ * request for about 40ms. Launch the JVM with
+ * {@code -Dsun.net.httpserver.nodelay=true} to avoid it.
+ */
+public class WordNetServer {
+
+    // how long a request may wait for its turn before being rejected
+    private static final long ADMISSION_TIMEOUT_MILLIS = 100;
+
+    private final WordNet wordnet;
+    private final Outcast outcast;
+    private final HttpServer server;
+    private final ExecutorService executor;
+    // requests being answered or waiting for a permit
+    private final Semaphore admissions;
+    private final Semaphore permits;
+
+    public WordNetServer(WordNet wordnet, InetSocketAddress address, int maxConcurrentRequests)
+            throws IOException {
+        if (wordnet == null) {
+            throw new NullPointerException("wordnet is null");
+        }
+        if (address == null) {
+            throw new NullPointerException("address is null");
+        }
+        if (maxConcurrentRequests <= 0) {
+            throw new IllegalArgumentException("maximum concurrent requests must be positive");
+        }
+        this.wordnet = wordnet;
+        this.outcast = new Outcast(wordnet);
+        this.admissions = new Semaphore(2 * maxConcurrentRequests);
+        this.permits = new Semaphore(maxConcurrentRequests);
+        this.executor = newExecutor(2 * maxConcurrentRequests);
+        // no executor, so handle runs on the dispatcher thread
+        this.server = HttpServer.create(address, 0);
+        server.createContext("/", this::handle);
+    }
+
+    /**
+     * A virtual thread per request when the JVM has them, looked up
+     * reflectively so the server still builds and runs on JVMs without
+     * them. Otherwise a pool of platform threads, one per admitted request,
+     * and a queue just as bounded for the moment a thread takes to become
+     * free again.
+     */
+    private static ExecutorService newExecutor(int maxAdmittedRequests) {
+        try {
+            return (ExecutorService) Executors.class
+                .getMethod("newVirtualThreadPerTaskExecutor")
+                .invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return new ThreadPoolExecutor(
+                maxAdmittedRequests, maxAdmittedRequests, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(maxAdmittedRequests));
+        }
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * Stops accepting requests and waits up to the given number of seconds
+     * for the running ones to complete
+     */
+    public void stop(int delaySeconds) {
+        server.stop(delaySeconds);
+        executor.shutdown();
+        try {
+            executor.awaitTermination(delaySeconds, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        executor.shutdownNow();
+    }
+
+    public int port() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Admits the request on the dispatcher thread, which must not block, and
+     * hands it to a worker
+     */
+    private void handle(HttpExchange exchange) throws IOException {
+        if (!exchange.getRequestMethod().equals("GET")) {
+            try {
+                respond(exchange, 405, "method not allowed: " + exchange.getRequestMethod());
+            } finally {
+                exchange.close();
+            }
+            return;
+        }
+        if (!admissions.tryAcquire()) {
+            reject(exchange, "server is busy");
+            return;
+        }
+        try {
+            executor.execute(() -> serve(exchange));
+        } catch (RejectedExecutionException e) {
+            admissions.release();
+            reject(exchange, "server is stopping");
+        }
+    }
+
+    private void serve(HttpExchange exchange) {
+        try {
+            if (!permits.tryAcquire(ADMISSION_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                reject(exchange, "server is busy");
+                return;
+            }
+            try {
+                answer(exchange);
+            } finally {
+                permits.release();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            reject(exchange, "server is stopping");
+        } catch (IOException e) {
+            // the client went away, nothing left to answer
+        } finally {
+            admissions.release();
+            exchange.close();
+        }
+    }
+
+    /**
+     * Answers 503 and closes the exchange
+     */
+    private static void reject(HttpExchange exchange, String reason) {
+        try {
+            exchange.getResponseHeaders().set("Retry-After", "1");
+            respond(exchange, 503, reason);
+        } catch (IOException e) {
+            // the client went away, nothing left to answer
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void answer(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        String result;
+        try {
+            Map<String, String> params = parseQuery(exchange.getRequestURI().getRawQuery());
+            switch (path) {
+                case "/ancestor":
+                    result = wordnet.sap(param(params, "v"), param(params, "w"));
+                    break;
+                case "/distance":
+                    result = String.valueOf(wordnet.distance(param(params, "v"), param(params, "w")));
+                    break;
+                case "/outcast":
+                    result = outcast.outcast(param(params, "nouns").split(","));
+                    break;
+                case "/isNoun":
+                    result = String.valueOf(wordnet.isNoun(param(params, "word")));
+                    break;
+                default:
+                    respond(exchange, 404, "unknown query: " + path);
+                    return;
+            }
+        } catch (IllegalArgumentException e) {
+            respond(exchange, 400, e.getMessage());
+            return;
+        } catch (RuntimeException e) {
+            respond(exchange, 500, "query failed: " + e);
+            return;
+        }
+        respond(exchange, 200, result);
+    }
+
+    private static Map<String, String> parseQuery(String query) {
+        Map<String, String> params = new HashMap<>();
+        if (query == null) {
+            return params;
+        }
+        for (String pair: query.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq > 0) {
+                params.put(decode(pair.substring(0, eq)), decode(pair.substring(eq + 1)));
+            }
+        }
+
+        return params;
+    }
+
+    private static String decode(String value) {
+        try {
+            return URLDecoder.decode(value, "UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String param(Map<String, String> params, String name) {
+        String value = params.get(name);
+        if (value == null || value.isEmpty()) {
+            throw new IllegalArgumentException("missing parameter: " + name);
+        }
+
+        return value;
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = (body + "\n").getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+}
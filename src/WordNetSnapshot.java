@@ -0,0 +1,320 @@
+import java.io.BufferedOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A binary snapshot of a validated WordNet, opened through a read-only
+ * memory mapping so that loading does not parse anything and several
+ * processes share the same pages
+ *
+ * All values are little-endian ints, byte sections are padded to a multiple
+ * of 4 bytes. The file starts with a header:
+ *
+ *     magic, version, flags, V, E, nouns, noun bytes, postings, synset bytes
+ *
+ * followed by the sections:
+ *
+ *     graph offsets     int[V + 1]   compressed sparse row hypernyms graph
+ *     graph targets     int[E]
+ *     min depths        int[V]       shortest and longest path to the root
+ *     max depths        int[V]
+ *     synset offsets    int[V + 1]   synset strings by id, UTF-8
+ *     synset bytes      byte[]
+ *     noun offsets      int[nouns + 1]   nouns sorted by their UTF-8 bytes
+ *     noun bytes        byte[]
+ *     posting offsets   int[nouns + 1]   synset ids of each noun
+ *     postings          int[postings]
+ *
+ * The flags record the outcome of the hypernyms graph validation, and the
+ * depths its result, so that opening a snapshot validates nothing. The
+ * nouns and postings sections have the layout of a {@link NounIndex} and
+ * are copied into one when the snapshot is opened. The graph sections are
+ * copied to the heap as well, unless the snapshot is opened for an
+ * off-heap graph, which then reads them from the mapping.
+ */
+public class WordNetSnapshot {
+
+    static final int MAGIC = 0x534E5757;
+    static final int VERSION = 2;
+
+    static final int ACYCLIC = 1;
+    static final int ROOTED = 2;
+
+    private static final int HEADER_INTS = 9;
+
+    private final int flags;
+    private final Digraph graph;
+    private final int[] minDepths;
+    private final int[] maxDepths;
+    private final NounIndex nouns;
+    private final SynsetTable synsets;
+
+    private WordNetSnapshot(ByteBuffer buffer, boolean offHeapGraph) {
+        IntBuffer header = buffer.asIntBuffer();
+        if (buffer.capacity() < 4 * HEADER_INTS || header.get(0) != MAGIC) {
+            throw new IllegalArgumentException("not a WordNet snapshot");
+        }
+        if (header.get(1) != VERSION) {
+            throw new IllegalArgumentException(
+                "unsupported snapshot version: " + header.get(1));
+        }
+        flags = header.get(2);
+        int V = header.get(3);
+        int E = header.get(4);
+        int nounCount = header.get(5);
+        int nounBytes = header.get(6);
+        int postings = header.get(7);
+        int synsetBytes = header.get(8);
+
+        int position = 4 * HEADER_INTS;
+        IntBuffer graphOffsets = ints(buffer, position, V + 1);
+        position += 4 * (V + 1);
+        IntBuffer graphTargets = ints(buffer, position, E);
+        position += 4 * E;
+        if (offHeapGraph) {
+            graph = new Digraph(V, graphOffsets, graphTargets);
+        } else {
+            int[] offsets = new int[V + 1];
+            graphOffsets.get(offsets);
+            int[] targets = new int[E];
+            graphTargets.get(targets);
+            graph = new Digraph(V, offsets, targets);
+        }
+        minDepths = new int[V];
+        ints(buffer, position, V).get(minDepths);
+        position += 4 * V;
+        maxDepths = new int[V];
+        ints(buffer, position, V).get(maxDepths);
+        position += 4 * V;
+
+        IntBuffer synsetOffsets = ints(buffer, position, V + 1);
+        position += 4 * (V + 1);
+        ByteBuffer synsetText = bytes(buffer, position, synsetBytes);
+        position += padded(synsetBytes);
+        synsets = new SynsetTable(synsetText, synsetOffsets);
+
+        int[] nounOffsets = new int[nounCount + 1];
+        ints(buffer, position, nounCount + 1).get(nounOffsets);
+        position += 4 * (nounCount + 1);
+        byte[] nounText = new byte[nounBytes];
+        bytes(buffer, position, nounBytes).get(nounText);
+        position += padded(nounBytes);
+        int[] postingOffsets = new int[nounCount + 1];
+        ints(buffer, position, nounCount + 1).get(postingOffsets);
+        position += 4 * (nounCount + 1);
+        int[] postingIds = new int[postings];
+        ints(buffer, position, postings).get(postingIds);
+        nouns = new NounIndex(nounText, nounOffsets, postingOffsets, postingIds);
+    }
+
+    /**
+     * Maps a snapshot file written by {@link #write}
+     */
+    public static WordNetSnapshot open(String filename) {
+        return open(filename, false);
+    }
+
+    /**
+     * Maps a snapshot file, keeping the graph in the mapping when
+     * offHeapGraph is set, see {@link Digraph#offHeap(Digraph)}
+     */
+    public static WordNetSnapshot open(String filename, boolean offHeapGraph) {
+        if (filename == null) {
+            throw new NullPointerException("snapshot file is null");
+        }
+        Path path = Paths.get(filename);
+        if (!Files.isRegularFile(path)) {
+            throw new IllegalArgumentException("snapshot file does not exist");
+        }
+        if (!Files.isReadable(path)) {
+            throw new IllegalArgumentException("snapshot file is not readable");
+        }
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer buffer = channel
+                .map(FileChannel.MapMode.READ_ONLY, 0, channel.size())
+                .order(ByteOrder.LITTLE_ENDIAN);
+
+            return new WordNetSnapshot(buffer, offHeapGraph);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Writes a snapshot of a WordNet's nouns, synsets and hypernyms graph
+     * with the shortest and longest depths of its synsets
+     */
+    static void write(String filename, NounIndex nouns, SynsetTable synsets, Digraph graph,
+                      int[] minDepths, int[] maxDepths, int flags) {
+        if (filename == null) {
+            throw new NullPointerException("snapshot file is null");
+        }
+        graph.freeze();
+        int V = graph.V();
+        if (synsets.size() != V) {
+            throw new IllegalArgumentException("synsets do not match the graph");
+        }
+        if (minDepths.length != V || maxDepths.length != V) {
+            throw new IllegalArgumentException("depths do not match the graph");
+        }
+
+        int synsetBytes = synsets.offset(V);
+        int nounBytes = nouns.text().length;
+        int postings = nouns.postings().length;
+
+        Path path = Paths.get(filename);
+        try (OutputStream file = Files.newOutputStream(path);
+             LittleEndianOutput out = new LittleEndianOutput(new BufferedOutputStream(file, 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(flags);
+            out.writeInt(V);
+            out.writeInt(graph.E());
+            out.writeInt(nouns.size());
+            out.writeInt(nounBytes);
+            out.writeInt(postings);
+            out.writeInt(synsetBytes);
+
+            for (int v = 0; v <= V; v++) {
+                out.writeInt(graph.offset(v));
+            }
+            for (int e = 0; e < graph.E(); e++) {
+                out.writeInt(graph.target(e));
+            }
+            for (int depth: minDepths) {
+                out.writeInt(depth);
+            }
+            for (int depth: maxDepths) {
+                out.writeInt(depth);
+            }
+
+            for (int id = 0; id <= V; id++) {
+                out.writeInt(synsets.offset(id));
+            }
+            ByteBuffer text = synsets.text();
+            byte[] chunk = new byte[1 << 16];
+            while (text.hasRemaining()) {
+                int length = Math.min(chunk.length, text.remaining());
+                text.get(chunk, 0, length);
+                out.write(chunk, 0, length);
+            }
+            out.pad(synsetBytes);
+
+            for (int nounOffset: nouns.offsets()) {
+                out.writeInt(nounOffset);
+            }
+            out.write(nouns.text());
+            out.pad(nounBytes);
+
+            for (int postingOffset: nouns.postingOffsets()) {
+                out.writeInt(postingOffset);
+            }
+            for (int id: nouns.postings()) {
+                out.writeInt(id);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Compiles the synsets and hypernyms files into a snapshot:
+     *
+     *     $ java -cp build/libs/wordnet.jar WordNetSnapshot \
+     *         data/synsets.txt data/hypernyms.txt data/wordnet.snapshot
+     */
+    public static void main(String[] args) {
+        if (args.length != 3) {
+            System.out.println("Usage: WordNetSnapshot <synsets> <hypernyms> <snapshot>");
+            return;
+        }
+        new WordNet(args[0], args[1]).save(args[2]);
+    }
+
+    public boolean isAcyclic() {
+        return (flags & ACYCLIC) != 0;
+    }
+
+    public boolean isRooted() {
+        return (flags & ROOTED) != 0;
+    }
+
+    Digraph graph() {
+        return graph;
+    }
+
+    int[] minDepths() {
+        return minDepths;
+    }
+
+    int[] maxDepths() {
+        return maxDepths;
+    }
+
+    NounIndex nouns() {
+        return nouns;
+    }
+
+    SynsetTable synsets() {
+        return synsets;
+    }
+
+    private static IntBuffer ints(ByteBuffer buffer, int position, int length) {
+        return slice(buffer, position, 4 * length).asIntBuffer();
+    }
+
+    private static ByteBuffer bytes(ByteBuffer buffer, int position, int length) {
+        return slice(buffer, position, length);
+    }
+
+    private static ByteBuffer slice(ByteBuffer buffer, int position, int length) {
+        ByteBuffer duplicate = buffer.duplicate();
+        duplicate.position(position);
+        duplicate.limit(position + length);
+
+        return duplicate.slice().order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private static int padded(int bytes) {
+        return (bytes + 3) & ~3;
+    }
+
+    /**
+     * Writes little-endian ints, matching the byte order of the mapping
+     */
+    private static class LittleEndianOutput extends FilterOutputStream {
+        LittleEndianOutput(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+        }
+
+        void writeInt(int value) throws IOException {
+            write(value & 0xff);
+            write((value >>> 8) & 0xff);
+            write((value >>> 16) & 0xff);
+            write((value >>> 24) & 0xff);
+        }
+
+        void pad(int bytes) throws IOException {
+            for (int i = bytes; i < padded(bytes); i++) {
+                write(0);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,151 @@
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Random;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+public class AncestorIndexTest {
+
+    @Rule
+    public ExpectedException thrown = ExpectedException.none();
+
+    private Digraph graph;
+
+    /**
+     *          0
+     *         / \
+     *        1   2-6
+     *       /  \  \
+     *      3    4  7
+     *     /
+     *    5         8
+     */
+    @Before
+    public void setUp() {
+        graph = new Digraph(9);
+        graph.addEdge(1, 0);
+        graph.addEdge(2, 0);
+        graph.addEdge(3, 1);
+        graph.addEdge(4, 1);
+        graph.addEdge(5, 3);
+        graph.addEdge(6, 2);
+        graph.addEdge(7, 2);
+    }
+
+    @Test
+    public void constructorWithNullThrowsException() {
+        thrown.expect(NullPointerException.class);
+        thrown.expectMessage("graph is null");
+
+        new AncestorIndex(null);
+    }
+
+    @Test
+    public void constructorLeavesGraphUnfrozen() {
+        new AncestorIndex(graph);
+
+        assertThat(graph.isFrozen(), is(false));
+    }
+
+    @Test
+    public void lengthWithInvalidVertexThrowsException() {
+        thrown.expect(IndexOutOfBoundsException.class);
+        thrown.expectMessage("invalid vertex: 9");
+
+        new AncestorIndex(graph).length(1, 9);
+    }
+
+    @Test
+    public void ancestorWithNullThrowsException() {
+        thrown.expect(NullPointerException.class);
+        thrown.expectMessage("vertices are null");
+
+        new AncestorIndex(graph).ancestor(Collections.singletonList(1), null);
+    }
+
+    @Test
+    public void size() {
+        AncestorIndex index = new AncestorIndex(graph);
+
+        assertThat(index.V(), is(9));
+        assertThat(index.size(), is(1 + 2 + 2 + 3 + 3 + 4 + 3 + 3 + 1));
+    }
+
+    @Test
+    public void length() {
+        AncestorIndex index = new AncestorIndex(graph);
+
+        assertThat(index.length(5, 2), is(4));
+        assertThat(index.length(5, 4), is(3));
+        assertThat(index.length(5, 5), is(0));
+        assertThat(index.length(5, 8), is(-1));
+    }
+
+    @Test
+    public void ancestor() {
+        AncestorIndex index = new AncestorIndex(graph);
+
+        assertThat(index.ancestor(5, 2), is(0));
+        assertThat(index.ancestor(5, 4), is(1));
+        assertThat(index.ancestor(5, 8), is(-1));
+    }
+
+    @Test
+    public void lengthForIterable() {
+        AncestorIndex index = new AncestorIndex(graph);
+
+        assertThat(index.length(Arrays.asList(5, 4), Arrays.asList(6, 7, 8)), is(4));
+        assertThat(index.length(Arrays.asList(5, 4), Arrays.asList(6, 5, 8)), is(0));
+        assertThat(index.ancestor(Arrays.asList(5, 3), Arrays.asList(7, 4)), is(1));
+        assertThat(index.length(Arrays.asList(5, 3), Arrays.asList(7, 4)), is(2));
+    }
+
+    @Test
+    public void updateRecomputesAffectedRows() {
+        Digraph grown = new Digraph(graph);
+        int v = grown.addVertex();
+        grown.addEdge(v, 7);
+        grown.addEdge(8, 6);
+        grown.addEdge(4, 2);
+        grown.freeze();
+        AncestorIndex updated = new AncestorIndex(grown, new AncestorIndex(graph),
+                                                  SAP.affected(grown, new int[]{v, 8, 4}));
+        AncestorIndex rebuilt = new AncestorIndex(grown);
+
+        assertThat(updated.size(), is(rebuilt.size()));
+        for (int x = 0; x < grown.V(); x++) {
+            for (int y = 0; y < grown.V(); y++) {
+                assertThat(updated.length(x, y), is(rebuilt.length(x, y)));
+                assertThat(updated.ancestor(x, y), is(rebuilt.ancestor(x, y)));
+            }
+        }
+    }
+
+    @Test
+    public void matchesBreadthFirstSearch() {
+        Random random = new Random(7);
+        int V = 500;
+        Digraph dag = new Digraph(V);
+        for (int v = 1; v < V; v++) {
+            dag.addEdge(v, random.nextInt(v));
+            dag.addEdge(v, random.nextInt(v));
+        }
+        AncestorIndex index = new AncestorIndex(dag);
+        SAP sap = new SAP(dag);
+
+        for (int i = 0; i < 2000; i++) {
+            int v = random.nextInt(V);
+            int w = random.nextInt(V);
+            int x = random.nextInt(V);
+            assertThat(index.length(v, w), is(sap.length(v, w)));
+            assertThat(index.length(Arrays.asList(v, x), Collections.singletonList(w)),
+                       is(sap.length(Arrays.asList(v, x), Collections.singletonList(w))));
+        }
+    }
+
+}
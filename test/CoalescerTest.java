@@ -0,0 +1,133 @@
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+public class CoalescerTest {
+
+    @Rule
+    public ExpectedException thrown = ExpectedException.none();
+
+    // runs the submitted tasks when told to
+    private final List<Runnable> tasks = new ArrayList<>();
+    private final Executor deferred = tasks::add;
+
+    @Test
+    public void submitWithNullKeyThrowsException() {
+        thrown.expect(NullPointerException.class);
+        thrown.expectMessage("key is null");
+
+        new Coalescer<String, Integer>().submit(null, () -> 1, deferred);
+    }
+
+    @Test
+    public void submitWithNullExecutorThrowsException() {
+        thrown.expect(NullPointerException.class);
+        thrown.expectMessage("executor is null");
+
+        new Coalescer<String, Integer>().submit("a", () -> 1, null);
+    }
+
+    @Test
+    public void identicalRequestsShareComputation() throws Exception {
+        Coalescer<String, Integer> coalescer = new Coalescer<>();
+        CompletableFuture<Integer> first = coalescer.submit("a", () -> 1, deferred);
+        CompletableFuture<Integer> second = coalescer.submit("a", () -> 2, deferred);
+
+        assertThat(tasks.size(), is(1));
+        assertThat(coalescer.inFlight(), is(1));
+        runTasks();
+        assertThat(first.get(), is(1));
+        assertThat(second.get(), is(1));
+        assertThat(coalescer.computations(), is(1L));
+        assertThat(coalescer.coalesced(), is(1L));
+        assertThat(coalescer.inFlight(), is(0));
+    }
+
+    @Test
+    public void completedComputationIsNotKept() throws Exception {
+        Coalescer<String, Integer> coalescer = new Coalescer<>();
+        coalescer.submit("a", () -> 1, deferred);
+        runTasks();
+        CompletableFuture<Integer> next = coalescer.submit("a", () -> 2, deferred);
+        runTasks();
+
+        assertThat(next.get(), is(2));
+        assertThat(coalescer.computations(), is(2L));
+        assertThat(coalescer.coalesced(), is(0L));
+    }
+
+    @Test
+    public void distinctRequestsAreNotCoalesced() throws Exception {
+        Coalescer<String, Integer> coalescer = new Coalescer<>();
+        CompletableFuture<Integer> a = coalescer.submit("a", () -> 1, deferred);
+        CompletableFuture<Integer> b = coalescer.submit("b", () -> 2, deferred);
+        runTasks();
+
+        assertThat(a.get(), is(1));
+        assertThat(b.get(), is(2));
+        assertThat(coalescer.computations(), is(2L));
+    }
+
+    @Test
+    public void failureIsSharedAndNotKept() throws Exception {
+        Coalescer<String, Integer> coalescer = new Coalescer<>();
+        CompletableFuture<Integer> first = coalescer.submit("a", () -> {
+            throw new IllegalStateException("failed");
+        }, deferred);
+        CompletableFuture<Integer> second = coalescer.submit("a", () -> 1, deferred);
+        runTasks();
+
+        assertThat(first.isCompletedExceptionally(), is(true));
+        assertThat(second.isCompletedExceptionally(), is(true));
+        assertThat(coalescer.inFlight(), is(0));
+        thrown.expect(ExecutionException.class);
+        thrown.expectMessage("failed");
+
+        second.get();
+    }
+
+    @Test
+    public void cancelledRequestDoesNotCancelOthers() throws Exception {
+        Coalescer<String, Integer> coalescer = new Coalescer<>();
+        CompletableFuture<Integer> first = coalescer.submit("a", () -> 1, deferred);
+        CompletableFuture<Integer> second = coalescer.submit("a", () -> 1, deferred);
+        first.cancel(true);
+        runTasks();
+
+        assertThat(first.isCancelled(), is(true));
+        assertThat(second.get(), is(1));
+    }
+
+    @Test
+    public void rejectedComputationFails() {
+        Coalescer<String, Integer> coalescer = new Coalescer<>();
+        CompletableFuture<Integer> result = coalescer.submit("a", () -> 1, task -> {
+            throw new RejectedExecutionException("full");
+        });
+
+        assertThat(result.isCompletedExceptionally(), is(true));
+        assertThat(coalescer.inFlight(), is(0));
+        try {
+            result.join();
+        } catch (RuntimeException e) {
+            assertThat(e.getCause(), instanceOf(RejectedExecutionException.class));
+        }
+    }
+
+    private void runTasks() {
+        List<Runnable> ready = new ArrayList<>(tasks);
+        tasks.clear();
+        ready.forEach(Runnable::run);
+    }
+
+}
@@ -1,6 +1,10 @@
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
 import static org.junit.Assert.assertThat;
 
+import java.util.ArrayList;
+import java.util.List;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
@@ -18,6 +22,15 @@ public class CycleDetectorTest {
         new CycleDetector(null);
     }
 
+    @Test
+    public void constructorLeavesGraphUnfrozen() {
+        Digraph graph = new Digraph(2);
+        graph.addEdge(0, 1);
+        new CycleDetector(graph);
+
+        assertThat(graph.isFrozen(), is(false));
+    }
+
     /**
      *     ----- 4
      *     |     +
@@ -60,4 +73,107 @@ public class CycleDetectorTest {
         assertThat(new CycleDetector(graph).hasCycle(), is(false));
     }
 
+    @Test
+    public void orderOfCyclicGraphThrowsException() {
+        thrown.expect(IllegalStateException.class);
+        thrown.expectMessage("graph contains a cycle");
+        Digraph graph = new Digraph(2);
+        graph.addEdge(0, 1);
+        graph.addEdge(1, 0);
+
+        new CycleDetector(graph).order();
+    }
+
+    @Test
+    public void depthWithInvalidVertexThrowsException() {
+        thrown.expect(IndexOutOfBoundsException.class);
+        thrown.expectMessage("invalid vertex: 1");
+
+        new CycleDetector(new Digraph(1)).depth(1);
+    }
+
+    /**
+     *     ----+ 4
+     *     |     +
+     *     |     |
+     *     0 --+ 1 --+ 3
+     *     |
+     *     +
+     *     2
+     */
+    @Test
+    public void orderAndDepths() {
+        Digraph graph = new Digraph(5);
+        graph.addEdge(0, 1);
+        graph.addEdge(0, 2);
+        graph.addEdge(0, 4);
+        graph.addEdge(1, 3);
+        graph.addEdge(1, 4);
+        CycleDetector detector = new CycleDetector(graph);
+
+        List<Integer> order = new ArrayList<>();
+        detector.order().forEach(order::add);
+        assertThat(order, contains(0, 1, 2, 3, 4));
+        assertThat(detector.rootCount(), is(3));
+        assertThat(detector.depth(0), is(1));
+        assertThat(detector.depth(1), is(1));
+        assertThat(detector.depth(2), is(0));
+        assertThat(detector.depth(3), is(0));
+        assertThat(detector.depth(4), is(0));
+        assertThat(detector.maxDepth(0), is(2));
+        assertThat(detector.maxDepth(1), is(1));
+        assertThat(detector.maxDepth(3), is(0));
+    }
+
+    @Test
+    public void orderPutsVerticesBeforeTheirNeighbors() {
+        Digraph graph = new Digraph(6);
+        graph.addEdge(5, 2);
+        graph.addEdge(2, 3);
+        graph.addEdge(4, 3);
+        graph.addEdge(3, 1);
+        graph.addEdge(0, 1);
+        graph.addEdge(4, 1);
+        CycleDetector detector = new CycleDetector(graph);
+
+        int[] position = new int[graph.V()];
+        int i = 0;
+        for (int v: detector.order()) {
+            position[v] = i++;
+        }
+        for (int v = 0; v < graph.V(); v++) {
+            for (int w: graph.neighbors(v)) {
+                assertThat(position[v], is(lessThan(position[w])));
+            }
+        }
+        assertThat(detector.depth(5), is(3));
+        assertThat(detector.depth(4), is(1));
+    }
+
+    @Test
+    public void deepCyclicGraph() {
+        int V = 1_000_000;
+        Digraph graph = new Digraph(V);
+        for (int v = 1; v < V; v++) {
+            graph.addEdge(v, v - 1);
+        }
+        graph.addEdge(0, V - 1);
+
+        assertThat(new CycleDetector(graph).hasCycle(), is(true));
+    }
+
+    @Test
+    public void deepAcyclicGraph() {
+        int V = 1_000_000;
+        Digraph graph = new Digraph(V);
+        for (int v = 1; v < V; v++) {
+            graph.addEdge(v, v - 1);
+        }
+        CycleDetector detector = new CycleDetector(graph);
+
+        assertThat(detector.hasCycle(), is(false));
+        assertThat(detector.rootCount(), is(1));
+        assertThat(detector.depth(V - 1), is(V - 1));
+    }
+
 }
@@ -1,6 +1,8 @@
 import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.emptyIterable;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
 import static org.junit.Assert.assertThat;
 
 import org.junit.Rule;
@@ -90,4 +92,333 @@ public class DigraphTest {
         assertThat(copy.neighbors(0), contains(1));
     }
 
+    @Test
+    public void edgesCount() {
+        Digraph digraph = new Digraph(3);
+        digraph.addEdge(0, 1);
+        digraph.addEdge(0, 1);
+        digraph.addEdge(2, 1);
+
+        assertThat(digraph.E(), is(2));
+        assertThat(digraph.isFrozen(), is(false));
+    }
+
+    @Test
+    public void readsDoNotFreeze() {
+        Digraph digraph = new Digraph(3);
+        digraph.addEdge(0, 2);
+        digraph.freeze();
+        digraph.addEdge(0, 1);
+        digraph.addEdge(0, 2);
+        digraph.addEdge(1, 2);
+
+        assertThat(digraph.neighbors(0), contains(2, 1));
+        assertThat(digraph.reverseNeighbors(2), contains(0, 1));
+        assertThat(digraph.indegree(2), is(2));
+        assertThat(digraph.reverse(), is(sameInstance(digraph.reverse())));
+        assertThat(digraph.isFrozen(), is(false));
+        digraph.freeze();
+        assertThat(digraph.neighbors(0), contains(2, 1));
+        assertThat(digraph.reverse(), is(sameInstance(digraph.reverse())));
+    }
+
+    @Test
+    public void freezeKeepsInsertionOrder() {
+        Digraph digraph = new Digraph(4);
+        digraph.addEdge(2, 3);
+        digraph.addEdge(0, 2);
+        digraph.addEdge(2, 0);
+        digraph.addEdge(0, 1);
+        digraph.freeze();
+
+        assertThat(digraph.isFrozen(), is(true));
+        assertThat(digraph.neighbors(0), contains(2, 1));
+        assertThat(digraph.neighbors(1), is(emptyIterable()));
+        assertThat(digraph.neighbors(2), contains(3, 0));
+        assertThat(digraph.outdegree(2), is(2));
+    }
+
+    @Test
+    public void addEdgeAfterFreeze() {
+        Digraph digraph = new Digraph(3);
+        digraph.addEdge(0, 1);
+        digraph.freeze();
+        digraph.addEdge(1, 2);
+        digraph.addEdge(0, 1);
+
+        assertThat(digraph.isFrozen(), is(false));
+        assertThat(digraph.neighbors(0), contains(1));
+        assertThat(digraph.neighbors(1), contains(2));
+    }
+
+    @Test
+    public void copyConstructorOfFrozenGraph() {
+        Digraph origin = new Digraph(3);
+        origin.addEdge(0, 1);
+        origin.freeze();
+        Digraph copy = new Digraph(origin);
+        origin.addEdge(0, 2);
+
+        assertThat(origin.neighbors(0), contains(1, 2));
+        assertThat(copy.neighbors(0), contains(1));
+        assertThat(copy.isFrozen(), is(true));
+    }
+
+    @Test
+    public void indegreeAndReverseNeighbors() {
+        Digraph digraph = new Digraph(4);
+        digraph.addEdge(2, 0);
+        digraph.addEdge(1, 0);
+        digraph.addEdge(3, 2);
+        digraph.addEdge(1, 2);
+
+        assertThat(digraph.indegree(0), is(2));
+        assertThat(digraph.indegree(1), is(0));
+        assertThat(digraph.indegree(2), is(2));
+        assertThat(digraph.reverseNeighbors(0), contains(1, 2));
+        assertThat(digraph.reverseNeighbors(2), contains(1, 3));
+        assertThat(digraph.reverseNeighbors(3), is(emptyIterable()));
+    }
+
+    @Test
+    public void indegreeWithInvalidVertexThrowsException() {
+        thrown.expect(IndexOutOfBoundsException.class);
+        thrown.expectMessage("vertex 5 is not between 0 and 4");
+
+        new Digraph(5).indegree(5);
+    }
+
+    @Test
+    public void reverseNeighborsWithInvalidVertexThrowsException() {
+        thrown.expect(IndexOutOfBoundsException.class);
+        thrown.expectMessage("vertex -1 is not between 0 and 4");
+
+        new Digraph(5).reverseNeighbors(-1);
+    }
+
+    @Test
+    public void reverse() {
+        Digraph digraph = new Digraph(3);
+        digraph.addEdge(0, 1);
+        digraph.addEdge(0, 2);
+        digraph.addEdge(1, 2);
+        Digraph reverse = digraph.reverse();
+
+        assertThat(reverse.isFrozen(), is(true));
+        assertThat(reverse.V(), is(3));
+        assertThat(reverse.E(), is(3));
+        assertThat(reverse.neighbors(0), is(emptyIterable()));
+        assertThat(reverse.neighbors(2), contains(0, 1));
+        assertThat(reverse.reverse().neighbors(0), contains(1, 2));
+    }
+
+    @Test
+    public void reverseIsCachedAndSharedByCopies() {
+        Digraph digraph = new Digraph(3);
+        digraph.addEdge(0, 1);
+        digraph.freeze();
+        Digraph copy = new Digraph(digraph);
+
+        assertThat(digraph.reverse(), is(sameInstance(digraph.reverse())));
+        assertThat(copy.reverse(), is(sameInstance(digraph.reverse())));
+    }
+
+    @Test
+    public void indegreeOfEditedGraphReusesReverse() {
+        Digraph digraph = new Digraph(4);
+        digraph.addEdge(1, 0);
+        digraph.addEdge(2, 0);
+        digraph.addEdge(3, 1);
+        Digraph reverse = digraph.reverse();
+        for (int v = 0; v < digraph.V(); v++) {
+            digraph.indegree(v);
+            digraph.reverseNeighbors(v);
+        }
+
+        assertThat(digraph.reverse(), is(sameInstance(reverse)));
+        assertThat(digraph.isFrozen(), is(false));
+        digraph.addEdge(3, 0);
+        assertThat(digraph.reverse(), is(not(sameInstance(reverse))));
+        assertThat(digraph.indegree(0), is(3));
+        int vertex = digraph.addVertex();
+        assertThat(digraph.indegree(vertex), is(0));
+        reverse = digraph.reverse();
+        digraph.freeze();
+        assertThat(digraph.reverse(), is(sameInstance(reverse)));
+    }
+
+    @Test
+    public void reverseAfterAddEdge() {
+        Digraph digraph = new Digraph(3);
+        digraph.addEdge(0, 1);
+        digraph.freeze();
+        Digraph reverse = digraph.reverse();
+        Digraph copy = new Digraph(digraph);
+        digraph.addEdge(2, 1);
+
+        assertThat(digraph.reverse(), is(not(sameInstance(reverse))));
+        assertThat(digraph.reverseNeighbors(1), contains(0, 2));
+        assertThat(reverse.neighbors(1), contains(0));
+        assertThat(copy.reverse(), is(sameInstance(reverse)));
+        assertThat(reverse.reverse().neighbors(2), is(emptyIterable()));
+    }
+
+    @Test
+    public void addEdgeToReverseThrowsException() {
+        thrown.expect(UnsupportedOperationException.class);
+        thrown.expectMessage("reverse graph is read-only");
+
+        new Digraph(2).reverse().addEdge(0, 1);
+    }
+
+
+    @Test
+    public void addVertex() {
+        Digraph digraph = new Digraph(2);
+        int vertex = digraph.addVertex();
+        digraph.addEdge(vertex, 0);
+
+        assertThat(vertex, is(2));
+        assertThat(digraph.V(), is(3));
+        assertThat(digraph.neighbors(2), contains(0));
+    }
+
+    @Test
+    public void addVertexToReverseGraphThrowsException() {
+        thrown.expect(UnsupportedOperationException.class);
+        thrown.expectMessage("reverse graph is read-only");
+
+        new Digraph(2).reverse().addVertex();
+    }
+
+    @Test
+    public void addToFrozenGraphKeepsItsEdgesFirst() {
+        Digraph digraph = new Digraph(3);
+        digraph.addEdge(0, 2);
+        digraph.addEdge(0, 1);
+        digraph.freeze();
+        int vertex = digraph.addVertex();
+        digraph.addEdge(0, vertex);
+        digraph.addEdge(0, 2);
+        digraph.addEdge(vertex, 1);
+
+        assertThat(digraph.isFrozen(), is(false));
+        assertThat(digraph.neighbors(0), contains(2, 1, 3));
+        assertThat(digraph.neighbors(3), contains(1));
+        assertThat(digraph.E(), is(4));
+    }
+
+    @Test
+    public void copyOfEditedGraphIsIndependent() {
+        Digraph digraph = new Digraph(3);
+        digraph.addEdge(0, 1);
+        digraph.freeze();
+        digraph.addEdge(1, 2);
+        Digraph copy = new Digraph(digraph);
+        copy.addEdge(2, 0);
+        digraph.addVertex();
+
+        assertThat(digraph.V(), is(4));
+        assertThat(digraph.neighbors(2), is(emptyIterable()));
+        assertThat(copy.V(), is(3));
+        assertThat(copy.neighbors(1), contains(2));
+        assertThat(copy.neighbors(2), contains(0));
+    }
+
+    @Test
+    public void outdegreeOfEditedGraphSkipsDuplicates() {
+        Digraph digraph = new Digraph(4);
+        digraph.addEdge(0, 1);
+        digraph.freeze();
+        digraph.addEdge(0, 2);
+        digraph.addEdge(0, 1);
+        digraph.addEdge(0, 2);
+        digraph.addEdge(0, 3);
+
+        assertThat(digraph.outdegree(0), is(3));
+        assertThat(digraph.outdegree(1), is(0));
+        assertThat(digraph.isFrozen(), is(false));
+    }
+
+    @Test
+    public void hasPath() {
+        Digraph digraph = new Digraph(5);
+        digraph.addEdge(0, 1);
+        digraph.addEdge(1, 2);
+        digraph.addEdge(3, 2);
+        digraph.freeze();
+
+        assertThat(digraph.hasPath(0, 2), is(true));
+        assertThat(digraph.hasPath(2, 0), is(false));
+        assertThat(digraph.hasPath(0, 3), is(false));
+        assertThat(digraph.hasPath(4, 4), is(true));
+    }
+
+    @Test
+    public void hasPathThroughAddedEdges() {
+        Digraph digraph = new Digraph(4);
+        digraph.addEdge(0, 1);
+        digraph.freeze();
+        digraph.addEdge(1, 2);
+        int vertex = digraph.addVertex();
+        digraph.addEdge(2, vertex);
+
+        assertThat(digraph.hasPath(0, vertex), is(true));
+        assertThat(digraph.hasPath(vertex, 0), is(false));
+        assertThat(digraph.hasPath(0, 3), is(false));
+        assertThat(digraph.isFrozen(), is(false));
+    }
+
+    @Test
+    public void hasPathWithInvalidVertexThrowsException() {
+        thrown.expect(IndexOutOfBoundsException.class);
+        thrown.expectMessage("vertex 2 is not between 0 and 1");
+
+        new Digraph(2).hasPath(0, 2);
+    }
+
+
+    @Test
+    public void offHeapWithNullThrowsException() {
+        thrown.expect(NullPointerException.class);
+        thrown.expectMessage("graph is null");
+
+        Digraph.offHeap(null);
+    }
+
+    @Test
+    public void offHeap() {
+        Digraph digraph = new Digraph(4);
+        digraph.addEdge(0, 2);
+        digraph.addEdge(0, 1);
+        digraph.addEdge(3, 0);
+        Digraph offHeap = Digraph.offHeap(digraph);
+
+        assertThat(digraph.isOffHeap(), is(false));
+        assertThat(digraph.isFrozen(), is(false));
+        assertThat(offHeap.isOffHeap(), is(true));
+        assertThat(offHeap.isFrozen(), is(true));
+        assertThat(offHeap.E(), is(3));
+        assertThat(offHeap.neighbors(0), contains(2, 1));
+        assertThat(offHeap.outdegree(3), is(1));
+        assertThat(offHeap.reverseNeighbors(0), contains(3));
+        assertThat(offHeap.reverse().isOffHeap(), is(true));
+        assertThat(offHeap.hasPath(3, 1), is(true));
+    }
+
+    @Test
+    public void editOffHeapGraph() {
+        Digraph digraph = new Digraph(2);
+        digraph.addEdge(1, 0);
+        Digraph offHeap = Digraph.offHeap(digraph);
+        int vertex = offHeap.addVertex();
+        offHeap.addEdge(vertex, 1);
+        offHeap.freeze();
+
+        assertThat(offHeap.isOffHeap(), is(true));
+        assertThat(offHeap.neighbors(1), contains(0));
+        assertThat(offHeap.neighbors(2), contains(1));
+        assertThat(digraph.V(), is(2));
+    }
+
 }
@@ -0,0 +1,218 @@
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class DistanceMatrixTest {
+
+    @Rule
+    public ExpectedException thrown = ExpectedException.none();
+
+    @Rule
+    public WordNetFiles files = new WordNetFiles();
+
+    private String synsetsFile;
+    private String hypernymsFile;
+    private WordNet wordnet;
+
+    /**
+     * A binary tree of 63 synsets, synset i is named n<i> and its hypernym
+     * is (i - 1) / 2
+     */
+    @Before
+    public void setUp() {
+        List<String> synsets = new ArrayList<>();
+        List<String> hypernyms = new ArrayList<>();
+        hypernyms.add("0");
+        for (int i = 0; i < 63; i++) {
+            synsets.add(i + ",n" + i + ",synset " + i);
+            if (i > 0) {
+                hypernyms.add(i + "," + (i - 1) / 2);
+            }
+        }
+        synsetsFile = files.writeToFile(synsets);
+        hypernymsFile = files.writeToFile(hypernyms);
+        wordnet = new WordNet(synsetsFile, hypernymsFile);
+    }
+
+    @Test
+    public void ofWithNullWordNetThrowsException() {
+        thrown.expect(NullPointerException.class);
+        thrown.expectMessage("wordnet is null");
+
+        DistanceMatrix.of(null, new String[0]);
+    }
+
+    @Test
+    public void ofWithNullNounsThrowsException() {
+        thrown.expect(NullPointerException.class);
+        thrown.expectMessage("nouns are null");
+
+        DistanceMatrix.of(wordnet, null);
+    }
+
+    @Test
+    public void ofWithNullPoolThrowsException() {
+        thrown.expect(NullPointerException.class);
+        thrown.expectMessage("pool is null");
+
+        DistanceMatrix.of(wordnet, new String[0], null);
+    }
+
+    @Test
+    public void ofWithInvalidNounThrowsException() {
+        thrown.expect(IllegalArgumentException.class);
+        thrown.expectMessage("not a WordNet noun: php");
+
+        DistanceMatrix.of(wordnet, new String[]{"n1", "php"});
+    }
+
+    @Test
+    public void distanceWithInvalidIndexThrowsException() {
+        thrown.expect(IndexOutOfBoundsException.class);
+        thrown.expectMessage("invalid index: 2");
+
+        DistanceMatrix.of(wordnet, new String[]{"n1", "n2"}).distance(0, 2);
+    }
+
+    @Test
+    public void distances() {
+        DistanceMatrix matrix = DistanceMatrix.of(wordnet, new String[]{"n3", "n4", "n2", "n3"});
+
+        assertThat(matrix.size(), is(4));
+        assertThat(matrix.noun(2), is("n2"));
+        assertThat(matrix.distance(0, 0), is(0));
+        assertThat(matrix.distance(0, 1), is(2));
+        assertThat(matrix.distance(1, 0), is(2));
+        assertThat(matrix.distance(0, 2), is(3));
+        assertThat(matrix.distance(0, 3), is(0));
+        assertThat(matrix.sum(0), is(5));
+    }
+
+    @Test
+    public void distancesIncludeAppliedEdits() {
+        wordnet.addHypernym(3, 4);
+        DistanceMatrix matrix = DistanceMatrix.of(wordnet, new String[]{"n3", "n4", "n7"});
+
+        assertThat(matrix.distance(0, 1), is(1));
+        assertThat(matrix.distance(1, 2), is(2));
+        assertThat(matrix.distance(0, 2), is(1));
+    }
+
+    @Test
+    public void distancesAreApproximatedLikeWordNetDistances() {
+        // the only landmark is the root, which n3 and n4 reach at distance 2
+        WordNet approximated = new WordNet(synsetsFile, hypernymsFile,
+            new WordNet.Options().landmarks(1).approximateDistances(true));
+        DistanceMatrix matrix = DistanceMatrix.of(approximated, new String[]{"n3", "n4"});
+
+        assertThat(matrix.distance(0, 1), is(4));
+        assertThat(matrix.distance(0, 1), is(approximated.distance("n3", "n4")));
+    }
+
+    @Test
+    public void distancesFromTheCacheAreNotCounted() {
+        WordNet cached = new WordNet(synsetsFile, hypernymsFile,
+            new WordNet.Options().cache(16, QueryCache.Policy.LRU));
+        cached.distance("n3", "n4");
+        DistanceMatrix matrix = DistanceMatrix.of(cached, new String[]{"n3", "n4", "n2"});
+
+        assertThat(matrix.distance(0, 1), is(2));
+        assertThat(matrix.distance(0, 2), is(3));
+        // cached paths are read without counting, the others not cached
+        assertThat(cached.cacheStats().misses(), is(1L));
+        assertThat(cached.cacheStats().size(), is(1L));
+    }
+
+    @Test
+    public void largeMatrixMatchesDistances() {
+        String[] nouns = new String[63];
+        for (int i = 0; i < nouns.length; i++) {
+            nouns[i] = "n" + (i * 17 % 63);
+        }
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            DistanceMatrix matrix = DistanceMatrix.of(wordnet, nouns, pool);
+
+            for (int i = 0; i < nouns.length; i++) {
+                int sum = 0;
+                for (int j = 0; j < nouns.length; j++) {
+                    int distance = wordnet.distance(nouns[i], nouns[j]);
+                    assertThat(matrix.distance(i, j), is(distance));
+                    sum += distance;
+                }
+                assertThat(matrix.sum(i), is(sum));
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void searchMatchesDistances() {
+        // more than 64 nouns, so that the searches run in several batches
+        String[] nouns = new String[150];
+        for (int i = 0; i < nouns.length; i++) {
+            nouns[i] = "n" + (i * 17 % 63);
+        }
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            DistanceMatrix matrix = wordnet.distanceMatrix(Arrays.asList(nouns), pool);
+
+            assertThat(matrix.size(), is(nouns.length));
+            for (int i = 0; i < nouns.length; i++) {
+                assertThat(matrix.noun(i), is(nouns[i]));
+                for (int j = 0; j < nouns.length; j++) {
+                    assertThat(matrix.distance(i, j), is(wordnet.distance(nouns[i], nouns[j])));
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void searchWithSeveralSynsetsAndNoCommonAncestor() {
+        /**
+         *      0     4
+         *     / \    |
+         *    1   2   5
+         *    |
+         *    3
+         */
+        Digraph graph = new Digraph(6);
+        graph.addEdge(1, 0);
+        graph.addEdge(2, 0);
+        graph.addEdge(3, 1);
+        graph.addEdge(5, 4);
+        String[] nouns = {"a", "b", "c", "d"};
+        int[][] synsets = {{3}, {2, 5}, {4}, {1, 3}};
+
+        DistanceMatrix matrix = DistanceMatrix.search(graph, nouns, synsets, ForkJoinPool.commonPool());
+
+        assertThat(matrix.distance(0, 1), is(3));
+        assertThat(matrix.distance(0, 2), is(-1));
+        assertThat(matrix.distance(0, 3), is(0));
+        assertThat(matrix.distance(1, 2), is(1));
+        assertThat(matrix.distance(1, 3), is(2));
+        assertThat(matrix.distance(2, 3), is(-1));
+    }
+
+    @Test
+    public void searchWithoutNouns() {
+        DistanceMatrix matrix = wordnet.distanceMatrix(Arrays.asList());
+
+        assertThat(matrix.size(), is(0));
+    }
+
+}
@@ -0,0 +1,114 @@
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.junit.Assert.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class HistogramTest {
+
+    @Rule
+    public ExpectedException thrown = ExpectedException.none();
+
+    @Test
+    public void recordNegativeValueThrowsException() {
+        thrown.expect(IllegalArgumentException.class);
+        thrown.expectMessage("value must not be negative");
+
+        new Histogram().record(-1);
+    }
+
+    @Test
+    public void percentileWithInvalidFractionThrowsException() {
+        thrown.expect(IllegalArgumentException.class);
+        thrown.expectMessage("fraction must be between 0 and 1");
+
+        new Histogram().snapshot().percentile(1.5);
+    }
+
+    @Test
+    public void emptySnapshot() {
+        Histogram.Snapshot snapshot = new Histogram().snapshot();
+
+        assertThat(snapshot.count(), is(0L));
+        assertThat(snapshot.max(), is(0L));
+        assertThat(snapshot.mean(), is(0.0));
+        assertThat(snapshot.percentile(0.99), is(0L));
+    }
+
+    @Test
+    public void smallValuesAreExact() {
+        Histogram histogram = new Histogram();
+        for (int i = 1; i <= 10; i++) {
+            histogram.record(i);
+        }
+        Histogram.Snapshot snapshot = histogram.snapshot();
+
+        assertThat(snapshot.count(), is(10L));
+        assertThat(snapshot.mean(), is(5.5));
+        assertThat(snapshot.max(), is(10L));
+        assertThat(snapshot.percentile(0.5), is(5L));
+        assertThat(snapshot.percentile(0.9), is(9L));
+        assertThat(snapshot.percentile(1.0), is(10L));
+        assertThat(snapshot.percentile(0.0), is(1L));
+    }
+
+    @Test
+    public void largeValuesWithinBucketPrecision() {
+        Histogram histogram = new Histogram();
+        for (long value = 1000; value <= 1000000; value += 1000) {
+            histogram.record(value);
+        }
+        Histogram.Snapshot snapshot = histogram.snapshot();
+
+        assertThat((double) snapshot.percentile(0.5), is(closeTo(500000, 500000 / 8.0)));
+        assertThat((double) snapshot.percentile(0.99), is(closeTo(990000, 990000 / 8.0)));
+        assertThat(snapshot.percentile(1.0), is(1000000L));
+        assertThat(histogram.snapshot().percentile(0.999), is(lessThanOrEqualTo(1000000L)));
+    }
+
+    @Test
+    public void bucketsCoverEveryValue() {
+        long[] values = {0, 15, 16, 17, 31, 32, 1000, 1L << 40, Long.MAX_VALUE};
+        for (long value: values) {
+            int bucket = Histogram.bucket(value);
+            assertThat(value <= Histogram.upperBound(bucket), is(true));
+            assertThat(bucket == 0 || value > Histogram.upperBound(bucket - 1), is(true));
+        }
+    }
+
+    @Test
+    public void concurrentRecording() throws Exception {
+        Histogram histogram = new Histogram();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 10000; i++) {
+                        histogram.record(i % 100);
+                    }
+                }));
+            }
+            for (Future<?> future: futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertThat(histogram.snapshot().count(), is(40000L));
+        assertThat(histogram.snapshot().max(), is(99L));
+    }
+
+}
@@ -0,0 +1,213 @@
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class LandmarkIndexTest {
+
+    @Rule
+    public ExpectedException thrown = ExpectedException.none();
+
+    private Digraph graph;
+
+    @Before
+    public void setUp() {
+        /**
+         *          0
+         *         / \
+         *        1   2-6
+         *       /  \  \
+         *      3    4  7
+         *     /
+         *    5         8
+         */
+        graph = new Digraph(9);
+        graph.addEdge(1, 0);
+        graph.addEdge(2, 0);
+        graph.addEdge(3, 1);
+        graph.addEdge(4, 1);
+        graph.addEdge(5, 3);
+        graph.addEdge(6, 2);
+        graph.addEdge(7, 2);
+    }
+
+    @Test
+    public void constructorWithNullThrowsException() {
+        thrown.expect(NullPointerException.class);
+        thrown.expectMessage("graph is null");
+
+        new LandmarkIndex(null, 1);
+    }
+
+    @Test
+    public void constructorLeavesGraphUnfrozen() {
+        new LandmarkIndex(graph, 2);
+
+        assertThat(graph.isFrozen(), is(false));
+    }
+
+    @Test
+    public void constructorWithoutLandmarksThrowsException() {
+        thrown.expect(IllegalArgumentException.class);
+        thrown.expectMessage("number of landmarks must be positive");
+
+        new LandmarkIndex(graph, 0);
+    }
+
+    @Test
+    public void landmarksHaveTheMostDescendants() {
+        LandmarkIndex index = new LandmarkIndex(graph, 3);
+
+        assertThat(index.size(), is(3));
+        assertThat(index.landmark(0), is(0));
+        assertThat(index.landmark(1), is(1));
+        assertThat(index.landmark(2), is(2));
+        assertThat(index.contains(1), is(true));
+        assertThat(index.contains(3), is(false));
+    }
+
+    @Test
+    public void landmarksAreLimitedToTheVertices() {
+        assertThat(new LandmarkIndex(graph, 20).size(), is(9));
+    }
+
+    @Test
+    public void landmarkWithInvalidIndexThrowsException() {
+        thrown.expect(IndexOutOfBoundsException.class);
+        thrown.expectMessage("invalid landmark: 3");
+
+        new LandmarkIndex(graph, 3).landmark(3);
+    }
+
+    @Test
+    public void upperBoundGoesThroughClosestCommonLandmark() {
+        LandmarkIndex index = new LandmarkIndex(graph, 2);
+        int[] vertices = {5, 4, 6, 8};
+
+        long path = index.upperBound(vertices, 0, 1, vertices, 1, 2);
+        assertThat(SAP.ancestorOf(path), is(1));
+        assertThat(SAP.lengthOf(path), is(3));
+        path = index.upperBound(vertices, 0, 2, vertices, 2, 3);
+        assertThat(SAP.ancestorOf(path), is(0));
+        assertThat(SAP.lengthOf(path), is(4));
+    }
+
+    @Test
+    public void upperBoundWithoutCommonLandmark() {
+        LandmarkIndex index = new LandmarkIndex(graph, 2);
+        int[] vertices = {5, 8};
+
+        assertThat(index.upperBound(vertices, 0, 1, vertices, 1, 2), is(SAP.NO_PATH));
+    }
+
+    @Test
+    public void lowerBoundFromUndirectedDistances() {
+        LandmarkIndex index = new LandmarkIndex(graph, 3);
+        int[] vertices = {5, 0, 2, 7};
+
+        // 5 and 0 are 3 apart from landmark 0
+        assertThat(index.lowerBound(vertices, 0, 1, vertices, 1, 2), is(3));
+        // 5 and 2 are 4 apart from landmark 2
+        assertThat(index.lowerBound(vertices, 0, 1, vertices, 2, 3), is(4));
+        // the pair with the lowest bound decides
+        assertThat(index.lowerBound(vertices, 0, 1, vertices, 1, 4), is(3));
+    }
+
+
+    @Test
+    public void distancesTooFarToStoreAreNotMeasured() {
+        // a chain of 300 vertices up to the root 0
+        Digraph chain = new Digraph(300);
+        for (int v = 1; v < chain.V(); v++) {
+            chain.addEdge(v, v - 1);
+        }
+        LandmarkIndex index = new LandmarkIndex(chain, 1);
+        int[] vertices = {10, 299};
+
+        assertThat(index.measured(10), is(true));
+        assertThat(index.measured(299), is(false));
+        assertThat(index.upperBound(10, 299), is(SAP.NO_PATH));
+        assertThat(index.lowerBound(vertices, 0, 1, vertices, 1, 2), is(0));
+    }
+
+    @Test
+    public void updateKeepsUpwardClosedLandmarks() {
+        Digraph grown = new Digraph(graph);
+        int vertex = grown.addVertex();
+        grown.addEdge(vertex, 5);
+        grown.addEdge(8, 7);
+        LandmarkIndex updated = new LandmarkIndex(graph, 3)
+            .update(grown, SAP.affected(grown, new int[]{vertex, 8}));
+
+        assertThat(updated.landmark(0), is(0));
+        assertThat(updated.landmark(1), is(1));
+        assertThat(updated.landmark(2), is(2));
+        assertSameBounds(updated, new LandmarkIndex(grown, 3), grown.V());
+    }
+
+    @Test
+    public void updateLowersDistancesShortenedByNewEdge() {
+        Digraph grown = new Digraph(graph);
+        grown.addEdge(5, 7);
+        LandmarkIndex updated = new LandmarkIndex(graph, 3)
+            .update(grown, SAP.affected(grown, new int[]{5}));
+        int[] vertices = {5, 2};
+
+        assertThat(updated.upperBound(vertices, 0, 1, vertices, 1, 2), is(SAP.pack(2, 2)));
+        assertSameBounds(updated, new LandmarkIndex(grown, 3), grown.V());
+    }
+
+    @Test
+    public void updateSelectsLandmarksAgainWhenAnAncestorIsNotOne() {
+        Digraph grown = new Digraph(graph);
+        grown.addEdge(0, 8);
+        LandmarkIndex updated = new LandmarkIndex(graph, 3)
+            .update(grown, SAP.affected(grown, new int[]{0}));
+
+        assertThat(updated.landmark(0), is(8));
+        assertThat(updated.landmark(1), is(0));
+    }
+
+    @Test
+    public void updateSelectsLandmarksAgainWhenAnAncestorIsNew() {
+        Digraph grown = new Digraph(graph);
+        int vertex = grown.addVertex();
+        grown.addEdge(0, vertex);
+        LandmarkIndex updated = new LandmarkIndex(graph, 3)
+            .update(grown, SAP.affected(grown, new int[]{0, vertex}));
+
+        assertThat(updated.landmark(0), is(vertex));
+        assertThat(updated.landmark(1), is(0));
+        assertSameBounds(updated, new LandmarkIndex(grown, 3), grown.V());
+    }
+
+    @Test
+    public void updateWithShrunkGraphThrowsException() {
+        thrown.expect(IllegalArgumentException.class);
+        thrown.expectMessage("graph is not grown from the graph of this index");
+
+        new LandmarkIndex(graph, 3).update(new Digraph(2), new boolean[2]);
+    }
+
+    private static void assertSameBounds(LandmarkIndex updated, LandmarkIndex rebuilt, int V) {
+        int[] vertices = new int[V];
+        for (int v = 0; v < vertices.length; v++) {
+            vertices[v] = v;
+        }
+        for (int v = 0; v < vertices.length; v++) {
+            for (int w = 0; w < vertices.length; w++) {
+                assertThat(updated.upperBound(vertices, v, v + 1, vertices, w, w + 1),
+                           is(rebuilt.upperBound(vertices, v, v + 1, vertices, w, w + 1)));
+                assertThat(updated.lowerBound(vertices, v, v + 1, vertices, w, w + 1),
+                           is(rebuilt.lowerBound(vertices, v, v + 1, vertices, w, w + 1)));
+            }
+        }
+    }
+
+}
@@ -0,0 +1,160 @@
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.List;
+import java.util.Random;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class NearestNounsTest {
+
+    @Rule
+    public ExpectedException thrown = ExpectedException.none();
+
+    private NearestNouns nearest;
+
+    @Before
+    public void setUp() {
+        /**
+         *          0         6
+         *         / \        |
+         *        1   2       7
+         *       / \
+         *      3   4
+         *     /
+         *    5
+         */
+        Digraph graph = new Digraph(8);
+        graph.addEdge(1, 0);
+        graph.addEdge(2, 0);
+        graph.addEdge(3, 1);
+        graph.addEdge(4, 1);
+        graph.addEdge(5, 3);
+        graph.addEdge(7, 6);
+        NounIndex nouns = new NounIndex.Builder()
+            .add("entity", 0)
+            .add("animal", 1)
+            .add("plant", 2)
+            .add("dog", 3)
+            .add("cat", 4)
+            .add("puppy", 5)
+            .add("idea", 6)
+            .add("notion", 6)
+            .add("thought", 7)
+            .add("bark", 2)
+            .add("bark", 3)
+            .build();
+        nearest = new NearestNouns(graph, nouns);
+    }
+
+    @Test
+    public void constructorWithNullGraphThrowsException() {
+        thrown.expect(NullPointerException.class);
+        thrown.expectMessage("graph is null");
+
+        new NearestNouns(null, new NounIndex.Builder().build());
+    }
+
+    @Test
+    public void nearestWithNullNounThrowsException() {
+        thrown.expect(NullPointerException.class);
+        thrown.expectMessage("noun is null");
+
+        nearest.nearest(null, 1);
+    }
+
+    @Test
+    public void nearestWithInvalidNounThrowsException() {
+        thrown.expect(IllegalArgumentException.class);
+        thrown.expectMessage("not a WordNet noun: php");
+
+        nearest.nearest("php", 1);
+    }
+
+    @Test
+    public void nearestWithNegativeCountThrowsException() {
+        thrown.expect(IllegalArgumentException.class);
+        thrown.expectMessage("number of nouns must not be negative");
+
+        nearest.nearest("dog", -1);
+    }
+
+    @Test
+    public void nearestInOrderOfDistance() {
+        // puppy and animal are 1 away from dog, bark 0, cat 2
+        assertThat(nearest.nearest("dog", 4), contains("bark", "animal", "puppy", "cat"));
+    }
+
+    @Test
+    public void nearestBreaksTiesByNounOrder() {
+        // bark, dog and entity are all 2 away from cat
+        assertThat(nearest.nearest("cat", 3), contains("animal", "bark", "dog"));
+    }
+
+    @Test
+    public void nearestIncludesSynonyms() {
+        assertThat(nearest.nearest("idea", 2), contains("notion", "thought"));
+    }
+
+    @Test
+    public void nearestWithoutCommonAncestors() {
+        assertThat(nearest.nearest("thought", 10), contains("idea", "notion"));
+    }
+
+    @Test
+    public void nearestWithoutCount() {
+        assertThat(nearest.nearest("dog", 0), is(empty()));
+    }
+
+    @Test
+    public void nearestMatchesDistances() {
+        Random random = new Random(3);
+        int V = 500;
+        Digraph graph = new Digraph(V);
+        NounIndex.Builder builder = new NounIndex.Builder();
+        for (int v = 0; v < V; v++) {
+            if (v > 0) {
+                graph.addEdge(v, random.nextInt(v));
+                if (random.nextInt(4) == 0) {
+                    graph.addEdge(v, random.nextInt(v));
+                }
+            }
+            builder.add("n" + v, v);
+            builder.add("m" + random.nextInt(V), v);
+        }
+        NounIndex nouns = builder.build();
+        NearestNouns search = new NearestNouns(graph, nouns);
+        SAP sap = new SAP(graph);
+
+        for (int i = 0; i < 50; i++) {
+            String noun = nouns.noun(random.nextInt(nouns.size()));
+            int index = nouns.indexOf(noun);
+            int[] ids = nouns.postings();
+            List<String> found = search.nearest(noun, 20);
+            int last = -1;
+            for (String other: found) {
+                int j = nouns.indexOf(other);
+                int distance = SAP.lengthOf(sap.path(ids, nouns.from(index), nouns.to(index),
+                                                     ids, nouns.from(j), nouns.to(j)));
+                assertThat(distance >= last, is(true));
+                last = distance;
+            }
+            // no noun left out is nearer than the last one found
+            for (int j = 0; j < nouns.size(); j++) {
+                if (j != index && !found.contains(nouns.noun(j))) {
+                    int distance = SAP.lengthOf(sap.path(ids, nouns.from(index), nouns.to(index),
+                                                         ids, nouns.from(j), nouns.to(j)));
+                    assertThat(distance >= last, is(true));
+                }
+            }
+        }
+    }
+
+}
@@ -0,0 +1,140 @@
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class NounIndexTest {
+
+    @Rule
+    public ExpectedException thrown = ExpectedException.none();
+
+    private NounIndex index;
+
+    @Before
+    public void setUp() {
+        index = new NounIndex.Builder()
+            .add("town", 4)
+            .add("actor", 3)
+            .add("player", 3)
+            .add("Aberdeen", 1)
+            .add("town", 2)
+            .add("caf\u00e9", 5)
+            .add("\ud83d\ude00", 6)
+            .add("\uffff", 7)
+            .add("actor", 0)
+            .build();
+    }
+
+    @Test
+    public void addWithNullThrowsException() {
+        thrown.expect(NullPointerException.class);
+        thrown.expectMessage("noun is null");
+
+        new NounIndex.Builder().add(null, 0);
+    }
+
+    @Test
+    public void indexOfWithNullThrowsException() {
+        thrown.expect(NullPointerException.class);
+        thrown.expectMessage("noun is null");
+
+        index.indexOf(null);
+    }
+
+    @Test
+    public void nounWithInvalidIndexThrowsException() {
+        thrown.expect(IndexOutOfBoundsException.class);
+        thrown.expectMessage("invalid index: 7");
+
+        index.noun(7);
+    }
+
+    @Test
+    public void nounsAreSortedByTheirUtf8Bytes() {
+        List<String> nouns = new ArrayList<>();
+        index.forEach(nouns::add);
+
+        assertThat(index.size(), is(7));
+        assertThat(nouns, contains(
+            "Aberdeen", "actor", "caf\u00e9", "player", "town", "\uffff", "\ud83d\ude00"));
+    }
+
+    @Test
+    public void lookups() {
+        for (String noun: index) {
+            assertThat(index.noun(index.indexOf(noun)), is(noun));
+        }
+        assertThat(index.contains("cafe"), is(false));
+        assertThat(index.contains("caf"), is(false));
+        assertThat(index.contains("towns"), is(false));
+        assertThat(index.contains(""), is(false));
+        assertThat(index.contains("\ud83d"), is(false));
+    }
+
+    @Test
+    public void postingsKeepTheOrderTheyWereAddedIn() {
+        int town = index.indexOf("town");
+        int actor = index.indexOf("actor");
+        int player = index.indexOf("player");
+
+        assertThat(ids(town), contains(4, 2));
+        assertThat(ids(actor), contains(3, 0));
+        assertThat(ids(player), contains(3));
+    }
+
+    @Test
+    public void emptyIndex() {
+        NounIndex empty = new NounIndex.Builder().build();
+
+        assertThat(empty.size(), is(0));
+        assertThat(empty.contains("town"), is(false));
+        assertThat(empty.iterator().hasNext(), is(false));
+    }
+
+    @Test
+    public void merge() {
+        NounIndex added = new NounIndex.Builder()
+            .add("town", 8)
+            .add("bar", 9)
+            .add("zoo", 10)
+            .build();
+        NounIndex merged = index.merge(added);
+
+        assertThat(merged, contains("Aberdeen", "actor", "bar", "caf\u00e9", "player", "town",
+                                    "zoo", "\uffff", "\ud83d\ude00"));
+        assertThat(ids(merged, merged.indexOf("town")), contains(4, 2, 8));
+        assertThat(ids(merged, merged.indexOf("bar")), contains(9));
+        assertThat(ids(merged, merged.indexOf("caf\u00e9")), contains(5));
+    }
+
+    @Test
+    public void mergeWithEmptyIndex() {
+        NounIndex merged = index.merge(new NounIndex.Builder().build());
+
+        assertThat(merged.size(), is(index.size()));
+        assertThat(ids(merged, merged.indexOf("actor")), contains(3, 0));
+    }
+
+    private List<Integer> ids(int noun) {
+        return ids(index, noun);
+    }
+
+    private static List<Integer> ids(NounIndex index, int noun) {
+        List<Integer> ids = new ArrayList<>();
+        for (int i = index.from(noun); i < index.to(noun); i++) {
+            ids.add(index.postings()[i]);
+        }
+
+        return ids;
+    }
+
+}
@@ -1,13 +1,7 @@
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
 import static org.junit.Assert.assertThat;
-import static org.mockito.ArgumentMatchers.anyString;
-import static org.mockito.ArgumentMatchers.eq;
-import static org.mockito.Mockito.mock;
-import static org.mockito.Mockito.when;
-
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.IllegalFormatCodePointException;
+
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
@@ -21,47 +15,17 @@ public class OutcastTest {
     @Rule
     public ExpectedException thrown = ExpectedException.none();
 
+    @Rule
+    public WordNetFiles files = new WordNetFiles();
+
     private WordNet wordnet;
 
     /**
-     *          scala
-     *        /       \
-     *      java     python
-     *                /   \
-     *               c   lisp
+     * The languages WordNet of {@link WordNetFiles}
      */
     @Before
     public void setUp() {
-        wordnet = mock(WordNet.class);
-        when(wordnet.distance("java", "scala")).thenReturn(1);
-        when(wordnet.distance("java", "python")).thenReturn(2);
-        when(wordnet.distance("java", "c")).thenReturn(3);
-        when(wordnet.distance("java", "lisp")).thenReturn(3);
-
-        when(wordnet.distance("scala", "java")).thenReturn(1);
-        when(wordnet.distance("scala", "python")).thenReturn(1);
-        when(wordnet.distance("scala", "c")).thenReturn(2);
-        when(wordnet.distance("scala", "lisp")).thenReturn(2);
-
-        when(wordnet.distance("python", "java")).thenReturn(2);
-        when(wordnet.distance("python", "scala")).thenReturn(1);
-        when(wordnet.distance("python", "c")).thenReturn(1);
-        when(wordnet.distance("python", "lisp")).thenReturn(1);
-
-        when(wordnet.distance("c", "java")).thenReturn(3);
-        when(wordnet.distance("c", "scala")).thenReturn(2);
-        when(wordnet.distance("c", "python")).thenReturn(1);
-        when(wordnet.distance("c", "lisp")).thenReturn(2);
-
-        when(wordnet.distance("lisp", "java")).thenReturn(3);
-        when(wordnet.distance("lisp", "scala")).thenReturn(2);
-        when(wordnet.distance("lisp", "python")).thenReturn(1);
-        when(wordnet.distance("lisp", "c")).thenReturn(2);
-
-        when(wordnet.distance(eq("php"), anyString())).thenThrow(
-            new IllegalArgumentException("not a WordNet noun: php"));
-        when(wordnet.distance(anyString(), eq("php"))).thenThrow(
-            new IllegalArgumentException("not a WordNet noun: php"));
+        wordnet = files.languages();
     }
 
     @Test
@@ -96,4 +60,11 @@ public class OutcastTest {
         assertThat(outcast.outcast(nouns), is("java"));
     }
 
+    @Test
+    public void outcastOfSameNounsIsNull() {
+        Outcast outcast = new Outcast(wordnet);
+
+        assertThat(outcast.outcast(new String[]{"java", "java"}), is(nullValue()));
+    }
+
 }
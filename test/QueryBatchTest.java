@@ -0,0 +1,118 @@
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.Writer;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class QueryBatchTest {
+
+    @Rule
+    public ExpectedException thrown = ExpectedException.none();
+
+    @Rule
+    public WordNetFiles files = new WordNetFiles();
+
+    private WordNet wordnet;
+
+    /**
+     * The languages WordNet of {@link WordNetFiles}
+     */
+    @Before
+    public void setUp() {
+        wordnet = files.languages();
+    }
+
+    @Test
+    public void constructorWithNullThrowsException() {
+        thrown.expect(NullPointerException.class);
+        thrown.expectMessage("wordnet is null");
+
+        new QueryBatch(null, 1);
+    }
+
+    @Test
+    public void constructorWithInvalidThreadsThrowsException() {
+        thrown.expect(IllegalArgumentException.class);
+        thrown.expectMessage("number of threads must be positive");
+
+        new QueryBatch(wordnet, 0);
+    }
+
+    @Test
+    public void answer() {
+        QueryBatch batch = new QueryBatch(wordnet, 1);
+
+        assertThat(batch.answer("ancestor c lisp"), is("python"));
+        assertThat(batch.answer(" distance  java c "), is("3"));
+        assertThat(batch.answer("outcast java scala python c lisp"), is("java"));
+        assertThat(batch.answer(""), is(""));
+    }
+
+    @Test
+    public void answerInvalidQuery() {
+        QueryBatch batch = new QueryBatch(wordnet, 1);
+
+        assertThat(batch.answer("distance java php"), is("error: not a WordNet noun: php"));
+        assertThat(batch.answer("ancestor java"), is("error: ancestor requires exactly 2 nouns"));
+        assertThat(batch.answer("outcast java"), is("error: outcast requires at least 2 nouns"));
+        assertThat(batch.answer("nearest java"), is("error: invalid action: nearest"));
+    }
+
+    @Test
+    public void runKeepsInputOrder() throws IOException {
+        String[] nouns = {"java", "scala", "python", "c", "lisp"};
+        StringBuilder input = new StringBuilder();
+        StringBuilder expected = new StringBuilder();
+        QueryBatch single = new QueryBatch(wordnet, 1);
+        for (int i = 0; i < 5000; i++) {
+            String query = (i % 2 == 0 ? "distance " : "ancestor ")
+                + nouns[i % 5] + " " + nouns[i / 5 % 5];
+            input.append(query).append('\n');
+            expected.append(single.answer(query)).append('\n');
+        }
+        StringWriter out = new StringWriter();
+
+        long lines = new QueryBatch(wordnet, 4, 2)
+            .run(new BufferedReader(new StringReader(input.toString())), out);
+
+        assertThat(lines, is(5000L));
+        assertThat(out.toString(), is(expected.toString()));
+    }
+
+    @Test
+    public void runWithFailingOutputThrowsException() throws IOException {
+        thrown.expect(IOException.class);
+        thrown.expectMessage("output closed");
+        Writer out = new Writer() {
+            @Override
+            public void write(char[] buffer, int offset, int length) throws IOException {
+                throw new IOException("output closed");
+            }
+
+            @Override
+            public void flush() {
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        StringBuilder input = new StringBuilder();
+        for (int i = 0; i < 5000; i++) {
+            input.append("distance java c\n");
+        }
+
+        new QueryBatch(wordnet, 2, 1).run(new BufferedReader(new StringReader(input.toString())), out);
+    }
+
+}
@@ -0,0 +1,174 @@
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.junit.Assert.assertThat;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+public class QueryCacheTest {
+
+    @Rule
+    public ExpectedException thrown = ExpectedException.none();
+
+    @Test
+    public void constructorWithInvalidSizeThrowsException() {
+        thrown.expect(IllegalArgumentException.class);
+        thrown.expectMessage("maximum size must be positive");
+
+        new QueryCache(0, QueryCache.Policy.LRU);
+    }
+
+    @Test
+    public void constructorWithNullPolicyThrowsException() {
+        thrown.expect(NullPointerException.class);
+        thrown.expectMessage("policy is null");
+
+        new QueryCache(10, null);
+    }
+
+    @Test
+    public void keyIsUnorderedPairOfSets() {
+        QueryCache.Key key = new QueryCache.Key(Arrays.asList(3, 1), Collections.singletonList(2));
+
+        assertThat(key.equals(new QueryCache.Key(Collections.singletonList(2), Arrays.asList(1, 3))),
+                   is(true));
+        assertThat(key.hashCode(),
+                   is(new QueryCache.Key(Collections.singletonList(2), Arrays.asList(1, 3)).hashCode()));
+        assertThat(key.equals(new QueryCache.Key(Collections.singletonList(2), Arrays.asList(1, 4))),
+                   is(false));
+    }
+
+    @Test
+    public void getComputesOnMissOnly() {
+        QueryCache cache = new QueryCache(100, QueryCache.Policy.LRU);
+        AtomicInteger computed = new AtomicInteger();
+
+        for (int i = 0; i < 3; i++) {
+            long path = cache.get(key(1, 2), () -> {
+                computed.incrementAndGet();
+                return SAP.pack(7, 3);
+            });
+            assertThat(path, is(SAP.pack(7, 3)));
+        }
+
+        assertThat(computed.get(), is(1));
+        assertThat(cache.stats().hits(), is(2L));
+        assertThat(cache.stats().misses(), is(1L));
+        assertThat(cache.stats().size(), is(1L));
+    }
+
+    @Test
+    public void lruEvictsBeyondMaximumSize() {
+        QueryCache cache = new QueryCache(32, QueryCache.Policy.LRU);
+        for (int i = 0; i < 1000; i++) {
+            cache.get(key(i, i + 1), () -> 0L);
+        }
+
+        assertThat(cache.stats().size(), is(lessThanOrEqualTo(32L)));
+        assertThat(cache.stats().evictions(), is(1000L - cache.stats().size()));
+    }
+
+    @Test
+    public void smallCacheKeepsAnyKey() {
+        for (QueryCache.Policy policy: QueryCache.Policy.values()) {
+            for (int size = 1; size < 16; size++) {
+                for (int i = 0; i < 32; i++) {
+                    QueryCache cache = new QueryCache(size, policy);
+                    cache.get(key(i, i + 1), () -> 0L);
+                    cache.get(key(i, i + 1), () -> 0L);
+
+                    assertThat(cache.stats().hits(), is(1L));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void tinyLfuKeepsFrequentEntriesUnderScan() {
+        assertThat(hotHits(QueryCache.Policy.TINY_LFU), is(greaterThan(1500L)));
+        assertThat(hotHits(QueryCache.Policy.LRU), is(lessThan(100L)));
+    }
+
+    /**
+     * Hits of 100 hot keys, each requested once every 5000 one-off keys
+     */
+    private static long hotHits(QueryCache.Policy policy) {
+        QueryCache cache = new QueryCache(1600, policy);
+        long hits = 0;
+        int scan = 1000;
+        for (int i = 0; i < 2000; i++) {
+            for (int j = 0; j < 50; j++) {
+                cache.get(key(scan++, -1), () -> 0L);
+            }
+            long before = cache.stats().hits();
+            cache.get(key(i % 100, -1), () -> 0L);
+            hits += cache.stats().hits() - before;
+        }
+
+        return hits;
+    }
+
+    @Test
+    public void clear() {
+        QueryCache cache = new QueryCache(10, QueryCache.Policy.TINY_LFU);
+        cache.get(key(1, 2), () -> 0L);
+        cache.clear();
+
+        assertThat(cache.stats().size(), is(0L));
+    }
+
+    private static QueryCache.Key key(int v, int w) {
+        return new QueryCache.Key(Collections.singletonList(v), Collections.singletonList(w));
+    }
+
+
+    @Test
+    public void removeIfDropsEntriesWithMatchingSynsets() {
+        QueryCache cache = new QueryCache(10, QueryCache.Policy.LRU);
+        QueryCache.Key first = new QueryCache.Key(Arrays.asList(1, 2), Collections.singletonList(3));
+        QueryCache.Key second = new QueryCache.Key(Collections.singletonList(4), Collections.singletonList(5));
+        cache.get(first, () -> 1L);
+        cache.get(second, () -> 2L);
+        cache.removeIf(id -> id == 3);
+
+        assertThat(cache.stats().size(), is(1L));
+        assertThat(cache.get(first, () -> 7L), is(7L));
+        assertThat(cache.get(second, () -> 8L), is(2L));
+    }
+
+    @Test
+    public void invalidateRejectsPathsOfOlderVersion() {
+        QueryCache cache = new QueryCache(10, QueryCache.Policy.LRU);
+        QueryCache.Key first = key(1, 3);
+        QueryCache.Key second = key(4, 5);
+        cache.get(second, 0, () -> 2L);
+        // a query of version 0 finishing after the invalidation
+        long stale = cache.get(first, 0, () -> {
+            cache.invalidate(1, id -> id == 3);
+            return 1L;
+        });
+
+        assertThat(stale, is(1L));
+        assertThat(cache.stats().size(), is(1L));
+        assertThat(cache.get(first, 1, () -> 7L), is(7L));
+        assertThat(cache.get(first, 1, () -> 9L), is(7L));
+        assertThat(cache.get(second, 1, () -> 8L), is(2L));
+    }
+
+    @Test
+    public void invalidateWithOlderVersionThrowsException() {
+        thrown.expect(IllegalArgumentException.class);
+        thrown.expectMessage("version is not newer: 1");
+        QueryCache cache = new QueryCache(10, QueryCache.Policy.LRU);
+        cache.invalidate(2, id -> false);
+
+        cache.invalidate(1, id -> false);
+    }
+
+}
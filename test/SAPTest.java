@@ -1,8 +1,15 @@
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
 import static org.hamcrest.Matchers.is;
 import static org.junit.Assert.assertThat;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import junitparams.JUnitParamsRunner;
 import junitparams.Parameters;
 import org.junit.Before;
@@ -248,4 +255,309 @@ public class SAPTest {
         assertThat(sap.ancestor(5, 8), is(-1));
     }
 
+    @Test
+    public void indexedLengthAndAncestor() {
+        SAP sap = new SAP(acyclicGraph, true);
+
+        assertThat(sap.isIndexed(), is(true));
+        assertThat(sap.length(5, 2), is(4));
+        assertThat(sap.ancestor(5, 2), is(0));
+        assertThat(sap.length(5, 8), is(-1));
+        assertThat(sap.length(Arrays.asList(5, 4), Arrays.asList(6,7,8)), is(4));
+    }
+
+    @Test
+    public void indexedLengthInCycleGraph() {
+        SAP sap = new SAP(cycleGraph, true);
+
+        assertThat(sap.length(1, 5), is(2));
+        assertThat(sap.length(Arrays.asList(1, 2), Arrays.asList(4, 5)), is(2));
+    }
+
+    @Test
+    public void repeatedQueriesDoNotShareState() {
+        SAP sap = new SAP(acyclicGraph);
+
+        assertThat(sap.length(Arrays.asList(5, 4), Arrays.asList(6, 5, 8)), is(0));
+        assertThat(sap.length(5, 8), is(-1));
+        assertThat(sap.ancestor(3, 4), is(1));
+        assertThat(sap.length(3, 4), is(2));
+        assertThat(sap.length(5, 2), is(4));
+    }
+
+    @Test
+    public void prunedSearchMatchesIndexedLengths() {
+        Random random = new Random(7);
+        int V = 3000;
+        Digraph graph = new Digraph(V);
+        for (int v = 1; v < V; v++) {
+            graph.addEdge(v, random.nextInt(v));
+            for (int i = 0; i < 2 && random.nextInt(4) == 0; i++) {
+                graph.addEdge(v, v - 1 - random.nextInt(Math.min(v, 50)));
+            }
+        }
+        SAP sap = new SAP(graph);
+        SAP indexed = new SAP(graph, true);
+
+        for (int i = 0; i < 2000; i++) {
+            int v = random.nextInt(V);
+            int w = random.nextInt(V);
+            assertThat(sap.length(v, w), is(indexed.length(v, w)));
+
+            List<Integer> vs = Arrays.asList(v, random.nextInt(V), random.nextInt(V));
+            List<Integer> ws = Arrays.asList(w, random.nextInt(V));
+            assertThat(sap.length(vs, ws), is(indexed.length(vs, ws)));
+        }
+    }
+
+    @Test
+    public void updateMatchesRebuiltSap() {
+        Random random = new Random(11);
+        int V = 300;
+        Digraph dag = new Digraph(V);
+        for (int v = 1; v < V; v++) {
+            dag.addEdge(v, random.nextInt(v));
+        }
+        SAP sap = new SAP(dag, true, null, 4);
+        Digraph grown = new Digraph(dag);
+        int[] changed = new int[60];
+        for (int i = 0; i < changed.length; i += 2) {
+            // edges towards smaller vertices keep the graph acyclic
+            int vertex = grown.addVertex();
+            grown.addEdge(vertex, random.nextInt(vertex));
+            int from = 1 + random.nextInt(V - 1);
+            grown.addEdge(from, random.nextInt(from));
+            changed[i] = vertex;
+            changed[i + 1] = from;
+        }
+        grown.freeze();
+        SAP updated = sap.update(grown, SAP.affected(grown, changed));
+        SAP rebuilt = new SAP(grown);
+
+        assertThat(updated.metrics() == sap.metrics(), is(true));
+        for (int i = 0; i < 2000; i++) {
+            int v = random.nextInt(grown.V());
+            int w = random.nextInt(grown.V());
+            assertThat(updated.length(v, w), is(rebuilt.length(v, w)));
+            assertThat(updated.length(Collections.singletonList(v), Collections.singletonList(w)),
+                       is(rebuilt.length(v, w)));
+        }
+    }
+
+    @Test
+    public void offHeapGraphMatchesHeapGraph() {
+        Random random = new Random(13);
+        int V = 300;
+        Digraph dag = new Digraph(V);
+        for (int v = 1; v < V; v++) {
+            dag.addEdge(v, random.nextInt(v));
+            dag.addEdge(v, random.nextInt(v));
+        }
+        SAP heap = new SAP(dag);
+        SAP offHeap = new SAP(Digraph.offHeap(dag));
+
+        for (int i = 0; i < 2000; i++) {
+            int v = random.nextInt(V);
+            int w = random.nextInt(V);
+            assertThat(offHeap.length(v, w), is(heap.length(v, w)));
+            assertThat(offHeap.ancestor(v, w), is(heap.ancestor(v, w)));
+        }
+    }
+
+    @Test
+    public void affectedAreTheVerticesReachingTheChangedOnes() {
+        boolean[] affected = SAP.affected(acyclicGraph, new int[]{1, 6});
+
+        assertThat(affected, is(new boolean[]{
+            false, true, false, true, true, true, true, false, false}));
+    }
+
+    @Test
+    public void metricsAreShared() {
+        SearchMetrics metrics = new SearchMetrics();
+        SAP sap = new SAP(acyclicGraph, false, null, 0, metrics);
+        sap.length(5, 2);
+
+        assertThat(sap.metrics() == metrics, is(true));
+        assertThat(metrics.snapshot().queries(), is(1L));
+    }
+
+    @Test
+    public void metricsCountQueries() {
+        SAP sap = new SAP(acyclicGraph);
+        sap.length(5, 2);
+        sap.ancestor(5, 8);
+        SearchMetrics.Snapshot metrics = sap.metrics().snapshot();
+
+        assertThat(metrics.queries(), is(2L));
+        assertThat(metrics.verticesExpanded() > 0, is(true));
+        assertThat(metrics.edgesRelaxed() > 0, is(true));
+        assertThat(metrics.peakFrontier() > 0, is(true));
+        assertThat(metrics.verticesPerQuery().count(), is(2L));
+    }
+
+    @Test
+    public void landmarkLengthAndAncestor() {
+        SAP sap = new SAP(acyclicGraph, false, null, 2);
+
+        assertThat(sap.hasLandmarks(), is(true));
+        assertThat(sap.length(5, 2), is(4));
+        assertThat(sap.ancestor(5, 2), is(0));
+        assertThat(sap.length(3, 4), is(2));
+        assertThat(sap.ancestor(3, 4), is(1));
+        assertThat(sap.length(5, 8), is(-1));
+        assertThat(sap.ancestor(5, 8), is(-1));
+        assertThat(sap.length(6, 6), is(0));
+    }
+
+    @Test
+    public void landmarkLengthInCycleGraph() {
+        SAP sap = new SAP(cycleGraph, false, null, 2);
+
+        assertThat(sap.length(1, 5), is(2));
+        assertThat(sap.length(2, 4), is(2));
+    }
+
+    @Test
+    public void approximatePathGoesThroughClosestLandmark() {
+        // the only landmark is the root 0, which 3 and 4 reach at distance 2
+        SAP sap = new SAP(acyclicGraph, false, null, 1);
+        int[] vertices = {3, 4, 5, 8};
+
+        assertThat(SAP.lengthOf(sap.approximatePath(vertices, 0, 1, vertices, 1, 2)), is(4));
+        assertThat(SAP.ancestorOf(sap.approximatePath(vertices, 0, 1, vertices, 1, 2)), is(0));
+        assertThat(SAP.lengthOf(sap.approximatePath(vertices, 2, 3, vertices, 3, 4)), is(-1));
+        assertThat(sap.length(3, 4), is(2));
+    }
+
+    @Test
+    public void approximatePathWithoutLandmarksIsShortest() {
+        SAP sap = new SAP(acyclicGraph);
+        int[] vertices = {3, 4};
+
+        assertThat(SAP.lengthOf(sap.approximatePath(vertices, 0, 1, vertices, 1, 2)), is(2));
+    }
+
+    @Test
+    public void landmarkSearchMatchesIndexedLengths() {
+        Random random = new Random(11);
+        int V = 3000;
+        Digraph graph = new Digraph(V);
+        for (int v = 1; v < V; v++) {
+            graph.addEdge(v, random.nextInt(v));
+            for (int i = 0; i < 2 && random.nextInt(4) == 0; i++) {
+                graph.addEdge(v, v - 1 - random.nextInt(Math.min(v, 50)));
+            }
+        }
+        SAP indexed = new SAP(graph, true);
+
+        for (int landmarks: new int[]{1, 8, 64}) {
+            SAP sap = new SAP(graph, false, null, landmarks);
+            for (int i = 0; i < 1000; i++) {
+                int[] v = {random.nextInt(V), random.nextInt(V), random.nextInt(V)};
+                int[] w = {random.nextInt(V), random.nextInt(V)};
+                assertThat(sap.length(v[0], w[0]), is(indexed.length(v[0], w[0])));
+                int length = SAP.lengthOf(indexed.path(v, 0, 3, w, 0, 2));
+                assertThat(SAP.lengthOf(sap.path(v, 0, 3, w, 0, 2)), is(length));
+                assertThat(SAP.lengthOf(sap.approximatePath(v, 0, 3, w, 0, 2)),
+                           greaterThanOrEqualTo(length));
+            }
+        }
+    }
+
+    @Test
+    public void landmarkSearchMatchesPlainSearchBeyondStoredDistances() {
+        // a chain of 300 vertices up to the root 0, deeper than the landmark
+        // distances can store, and a short branch 300 to the root
+        int V = 302;
+        Digraph graph = new Digraph(V);
+        for (int v = 1; v < 300; v++) {
+            graph.addEdge(v, v - 1);
+        }
+        graph.addEdge(300, 0);
+        graph.addEdge(301, 150);
+        SAP plain = new SAP(graph);
+
+        for (int landmarks: new int[]{1, 4}) {
+            SAP sap = new SAP(graph, false, null, landmarks);
+            assertThat(sap.length(299, 300), is(300));
+            assertThat(sap.ancestor(299, 300), is(0));
+            for (int v = 0; v < V; v += 7) {
+                for (int w = 0; w < V; w += 11) {
+                    assertThat(sap.length(v, w), is(plain.length(v, w)));
+                    int[] vertices = {v, w, 300};
+                    assertThat(SAP.lengthOf(sap.path(vertices, 0, 1, vertices, 1, 3)),
+                               is(SAP.lengthOf(plain.path(vertices, 0, 1, vertices, 1, 3))));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void landmarkLengthWithCycleAmongLandmarks() {
+        // 1, 2 and 3 form a cycle, and only 1 and 2 are landmarks, so the
+        // shortest path of 4 and 5 goes through landmark 2 up to 3
+        Digraph graph = new Digraph(6);
+        graph.addEdge(1, 2);
+        graph.addEdge(2, 3);
+        graph.addEdge(3, 1);
+        graph.addEdge(4, 2);
+        graph.addEdge(5, 3);
+        SAP plain = new SAP(graph);
+        SAP sap = new SAP(graph, false, null, 2);
+
+        assertThat(sap.length(4, 5), is(3));
+        assertThat(sap.ancestor(4, 5), is(3));
+        for (int v = 0; v < graph.V(); v++) {
+            for (int w = 0; w < graph.V(); w++) {
+                assertThat(sap.length(v, w), is(plain.length(v, w)));
+            }
+        }
+    }
+
+    @Test
+    public void concurrentQueriesMatchSingleThreadedResults() throws Exception {
+        Random random = new Random(42);
+        int V = 2000;
+        Digraph graph = new Digraph(V);
+        for (int v = 1; v < V; v++) {
+            graph.addEdge(v, random.nextInt(v));
+            if (v > 1 && random.nextBoolean()) {
+                graph.addEdge(v, random.nextInt(v));
+            }
+        }
+        int[][] queries = new int[5000][];
+        for (int i = 0; i < queries.length; i++) {
+            queries[i] = new int[]{random.nextInt(V), random.nextInt(V)};
+        }
+
+        SAP sap = new SAP(graph);
+        int[] expected = new int[queries.length];
+        for (int i = 0; i < queries.length; i++) {
+            expected[i] = sap.length(queries[i][0], queries[i][1]);
+        }
+
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<int[]>> results = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int shift = t * 97;
+                results.add(executor.submit(() -> {
+                    int[] lengths = new int[queries.length];
+                    for (int i = 0; i < queries.length; i++) {
+                        int q = (i + shift) % queries.length;
+                        lengths[q] = sap.length(queries[q][0], queries[q][1]);
+                    }
+                    return lengths;
+                }));
+            }
+            for (Future<int[]> result: results) {
+                assertThat(result.get(), is(expected));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
 }
@@ -0,0 +1,124 @@
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+public class ScratchPoolTest {
+
+    @Rule
+    public ExpectedException thrown = ExpectedException.none();
+
+    private final AtomicInteger created = new AtomicInteger();
+    private final ScratchPool<int[]> pool =
+        new ScratchPool<>(() -> new int[]{created.incrementAndGet()});
+
+    @Test
+    public void constructorWithNullThrowsException() {
+        thrown.expect(NullPointerException.class);
+        thrown.expectMessage("factory is null");
+
+        new ScratchPool<int[]>(null);
+    }
+
+    @Test
+    public void constructorWithoutCapacityThrowsException() {
+        thrown.expect(IllegalArgumentException.class);
+        thrown.expectMessage("capacity must be positive");
+
+        new ScratchPool<>(() -> new int[1], 0);
+    }
+
+    @Test
+    public void borrowReusesReleasedState() {
+        int[] first = pool.borrow();
+        pool.release(first);
+
+        assertThat(pool.borrow(), is(sameInstance(first)));
+        assertThat(created.get(), is(1));
+    }
+
+    @Test
+    public void borrowCreatesStateWhileAllAreLent() {
+        int[] first = pool.borrow();
+        int[] second = pool.borrow();
+
+        assertThat(second, is(not(sameInstance(first))));
+        assertThat(created.get(), is(2));
+        assertThat(pool.idle(), is(0));
+    }
+
+    @Test
+    public void poolKeepsAsManyStatesAsWereLentAtOnce() {
+        int[] first = pool.borrow();
+        int[] second = pool.borrow();
+        pool.release(first);
+        pool.release(second);
+        for (int i = 0; i < 10; i++) {
+            pool.release(pool.borrow());
+        }
+
+        assertThat(pool.idle(), is(2));
+        assertThat(created.get(), is(2));
+    }
+
+    @Test
+    public void poolKeepsAtMostCapacityIdleStates() {
+        ScratchPool<int[]> pool = new ScratchPool<>(() -> new int[1], 3);
+        List<int[]> lent = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            lent.add(pool.borrow());
+        }
+        for (int[] scratch: lent) {
+            pool.release(scratch);
+        }
+
+        assertThat(pool.idle(), is(3));
+    }
+
+    @Test
+    public void concurrentQueriesNeverShareState() throws InterruptedException {
+        ScratchPool<AtomicInteger> pool = new ScratchPool<>(AtomicInteger::new, 2);
+        AtomicInteger shared = new AtomicInteger();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < 10000; i++) {
+                    AtomicInteger users = pool.borrow();
+                    if (users.incrementAndGet() != 1) {
+                        shared.incrementAndGet();
+                    }
+                    users.decrementAndGet();
+                    pool.release(users);
+                }
+            }));
+        }
+        for (Thread thread: threads) {
+            thread.start();
+        }
+        for (Thread thread: threads) {
+            thread.join();
+        }
+
+        assertThat(shared.get(), is(0));
+        assertThat(pool.idle() <= 2, is(true));
+    }
+
+    @Test
+    public void stateIsReusedAcrossThreads() throws InterruptedException {
+        Thread thread = new Thread(() -> pool.release(pool.borrow()));
+        thread.start();
+        thread.join();
+
+        pool.release(pool.borrow());
+
+        assertThat(created.get(), is(1));
+    }
+
+}
@@ -0,0 +1,43 @@
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class SearchMetricsTest {
+
+    @Test
+    public void emptySnapshot() {
+        SearchMetrics.Snapshot snapshot = new SearchMetrics().snapshot();
+
+        assertThat(snapshot.queries(), is(0L));
+        assertThat(snapshot.earlyTerminationRate(), is(0.0));
+        assertThat(snapshot.verticesPerQuery().count(), is(0L));
+        assertThat(snapshot.edgesPerQuery().count(), is(0L));
+    }
+
+    @Test
+    public void record() {
+        SearchMetrics metrics = new SearchMetrics();
+        metrics.record(10, 12, 4, true);
+        metrics.record(2, 3, 7, false);
+        metrics.record(0, 0, 0, true);
+        metrics.record(6, 9, 1, false);
+        SearchMetrics.Snapshot snapshot = metrics.snapshot();
+
+        assertThat(snapshot.queries(), is(4L));
+        assertThat(snapshot.verticesExpanded(), is(18L));
+        assertThat(snapshot.edgesRelaxed(), is(24L));
+        assertThat(snapshot.peakFrontier(), is(7L));
+        assertThat(snapshot.earlyTerminations(), is(2L));
+        assertThat(snapshot.earlyTerminationRate(), is(0.5));
+        assertThat(snapshot.verticesPerQuery().max(), is(10L));
+        assertThat(snapshot.verticesPerQuery().mean(), is(4.5));
+        assertThat(snapshot.edgesPerQuery().count(), is(4L));
+        assertThat(snapshot.edgesPerQuery().max(), is(12L));
+        assertThat(snapshot.edgesPerQuery().mean(), is(6.0));
+    }
+
+}
@@ -0,0 +1,96 @@
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class SynsetTableTest {
+
+    @Rule
+    public ExpectedException thrown = ExpectedException.none();
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void ofOrdersSynsetsById() throws IOException {
+        SynsetTable table = SynsetTable.of(parse("2,town,a town\n0,root,root\n1,caf\u00e9 bar,a place\n"));
+
+        assertThat(table.size(), is(3));
+        assertThat(table.get(0), is("root"));
+        assertThat(table.get(1), is("caf\u00e9 bar"));
+        assertThat(table.get(2), is("town"));
+    }
+
+    @Test
+    public void ofWithInvalidIdThrowsException() throws IOException {
+        thrown.expect(IllegalArgumentException.class);
+        thrown.expectMessage("synsets file contains invalid id: 5");
+
+        SynsetTable.of(parse("0,root,root\n5,town,a town\n"));
+    }
+
+    @Test
+    public void getWithInvalidIdThrowsException() throws IOException {
+        thrown.expect(IndexOutOfBoundsException.class);
+        thrown.expectMessage("invalid synset: 1");
+
+        SynsetTable.of(parse("0,root,root\n")).get(1);
+    }
+
+    @Test
+    public void getFromDirectBuffer() {
+        byte[] bytes = "rootcaf\u00e9".getBytes(StandardCharsets.UTF_8);
+        ByteBuffer text = ByteBuffer.allocateDirect(bytes.length);
+        text.put(bytes).flip();
+        SynsetTable table = new SynsetTable(text, IntBuffer.wrap(new int[]{0, 4, bytes.length}));
+
+        assertThat(table.get(0), is("root"));
+        assertThat(table.get(1), is("caf\u00e9"));
+    }
+
+    @Test
+    public void append() throws IOException {
+        SynsetTable table = SynsetTable.of(parse("0,root,root\n1,town,a town\n"))
+            .append(Arrays.asList("caf\u00e9 bar", "city"));
+
+        assertThat(table.size(), is(4));
+        assertThat(table.get(1), is("town"));
+        assertThat(table.get(2), is("caf\u00e9 bar"));
+        assertThat(table.get(3), is("city"));
+    }
+
+    @Test
+    public void appendToDirectBuffer() {
+        byte[] bytes = "roottown".getBytes(StandardCharsets.UTF_8);
+        ByteBuffer text = ByteBuffer.allocateDirect(bytes.length);
+        text.put(bytes).flip();
+        SynsetTable table = new SynsetTable(text, IntBuffer.wrap(new int[]{0, 4, bytes.length}))
+            .append(Collections.singletonList("city"));
+
+        assertThat(table.get(0), is("root"));
+        assertThat(table.get(1), is("town"));
+        assertThat(table.get(2), is("city"));
+    }
+
+    private WordNetParser.Synsets parse(String data) throws IOException {
+        Path file = tmp.newFile().toPath();
+        Files.write(file, data.getBytes(StandardCharsets.UTF_8));
+
+        return WordNetParser.parseSynsets(file, 1);
+    }
+
+}
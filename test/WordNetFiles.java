@@ -0,0 +1,60 @@
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * A temporary folder for the input files of the tests, deleted after each
+ * test like any {@link TemporaryFolder}
+ *
+ * It also writes the languages WordNet shared by the tests of the classes
+ * built on top of a WordNet:
+ *
+ *          scala
+ *        /       \
+ *      java     python
+ *                /   \
+ *               c   lisp
+ */
+public class WordNetFiles extends TemporaryFolder {
+
+    static final List<String> LANGUAGE_SYNSETS = Arrays.asList(
+        "0,scala,a language",
+        "1,java,a language",
+        "2,python,a language",
+        "3,c,a language",
+        "4,lisp,a language");
+
+    static final List<String> LANGUAGE_HYPERNYMS = Arrays.asList(
+        "0", "1,0", "2,0", "3,2", "4,2");
+
+    /**
+     * Writes the lines to a new file and returns its path
+     */
+    public String writeToFile(List<String> data) {
+        try {
+            File file = newFile();
+            Files.write(file.toPath(), data, StandardCharsets.US_ASCII);
+
+            return file.getAbsolutePath();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    public String languageSynsets() {
+        return writeToFile(LANGUAGE_SYNSETS);
+    }
+
+    public String languageHypernyms() {
+        return writeToFile(LANGUAGE_HYPERNYMS);
+    }
+
+    public WordNet languages() {
+        return new WordNet(languageSynsets(), languageHypernyms());
+    }
+
+}
@@ -0,0 +1,88 @@
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.lang.management.ManagementFactory;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class WordNetMetricsTest {
+
+    @Rule
+    public ExpectedException thrown = ExpectedException.none();
+
+    @Test
+    public void snapshot() {
+        WordNetMetrics metrics = new WordNetMetrics(new SearchMetrics());
+        metrics.recordPhase(WordNetMetrics.Phase.SYNSETS, 1000000);
+        metrics.recordPhase(WordNetMetrics.Phase.SYNSETS, 2000000);
+        metrics.recordPhase(WordNetMetrics.Phase.NOUNS, 500000);
+        metrics.recordPhase(WordNetMetrics.Phase.HYPERNYMS, 2000000);
+        metrics.recordPhase(WordNetMetrics.Phase.VALIDATION, 1000000);
+        metrics.recordPhase(WordNetMetrics.Phase.SEARCH, 4000000);
+        metrics.recordLoad(9000000);
+        metrics.record(WordNetMetrics.Operation.DISTANCE, 1500);
+        metrics.record(WordNetMetrics.Operation.DISTANCE, 2500);
+        metrics.record(WordNetMetrics.Operation.OUTCAST, 40000);
+        WordNetMetrics.Snapshot snapshot = metrics.snapshot();
+
+        assertThat(snapshot.latency(WordNetMetrics.Operation.DISTANCE).count(), is(2L));
+        assertThat(snapshot.latency(WordNetMetrics.Operation.DISTANCE).max(), is(2500L));
+        assertThat(snapshot.latency(WordNetMetrics.Operation.SAP).count(), is(0L));
+        assertThat(snapshot.latency(WordNetMetrics.Operation.OUTCAST).count(), is(1L));
+        assertThat(snapshot.synsetParseNanos(), is(3000000L));
+        assertThat(snapshot.hypernymParseNanos(), is(2000000L));
+        assertThat(snapshot.cycleCheckNanos(), is(1000000L));
+        assertThat(snapshot.phaseNanos(WordNetMetrics.Phase.NOUNS), is(500000L));
+        assertThat(snapshot.phaseNanos(WordNetMetrics.Phase.SEARCH), is(4000000L));
+        assertThat(snapshot.loadNanos(), is(9000000L));
+        assertThat(metrics.getSynsetParseMillis(), is(3.0));
+        assertThat(metrics.getNounIndexMillis(), is(0.5));
+        assertThat(metrics.getLoadMillis(), is(9.0));
+        assertThat(metrics.getDistanceCount(), is(2L));
+    }
+
+    @Test
+    public void registerExposesAttributes() throws Exception {
+        SearchMetrics search = new SearchMetrics();
+        search.record(5, 6, 2, true);
+        WordNetMetrics metrics = new WordNetMetrics(search);
+        metrics.record(WordNetMetrics.Operation.SAP, 8000);
+        ObjectName name = metrics.register("wordnet:type=WordNetMetrics,name=test");
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+
+            assertThat(server.getAttribute(name, "Queries"), is((Object) 1L));
+            assertThat(server.getAttribute(name, "VerticesExpanded"), is((Object) 5L));
+            assertThat(server.getAttribute(name, "MeanEdgesRelaxed"), is((Object) 6.0));
+            assertThat(server.getAttribute(name, "EdgesRelaxedP99"), is((Object) 6L));
+            assertThat(server.getAttribute(name, "EarlyTerminationRate"), is((Object) 1.0));
+            assertThat(server.getAttribute(name, "SapCount"), is((Object) 1L));
+            assertThat((Double) server.getAttribute(name, "SapP99Micros"), is(greaterThan(7.0)));
+        } finally {
+            metrics.unregister(name);
+        }
+        assertThat(ManagementFactory.getPlatformMBeanServer().isRegistered(name), is(false));
+    }
+
+    @Test
+    public void registerTwiceThrowsException() {
+        thrown.expect(IllegalArgumentException.class);
+        thrown.expectMessage("cannot register metrics as wordnet:type=WordNetMetrics,name=twice");
+
+        WordNetMetrics metrics = new WordNetMetrics(new SearchMetrics());
+        ObjectName name = metrics.register("wordnet:type=WordNetMetrics,name=twice");
+        try {
+            metrics.register("wordnet:type=WordNetMetrics,name=twice");
+        } finally {
+            metrics.unregister(name);
+        }
+    }
+
+}
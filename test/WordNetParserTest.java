@@ -0,0 +1,160 @@
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import junitparams.JUnitParamsRunner;
+import junitparams.Parameters;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+
+@RunWith(JUnitParamsRunner.class)
+public class WordNetParserTest {
+
+    @Rule
+    public ExpectedException thrown = ExpectedException.none();
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private Object[] invalidSynsetLines() {
+        return new Object[]{
+            new Object[]{"a,root,root"},
+            new Object[]{",root,root"},
+            new Object[]{"1"},
+            new Object[]{"1,root"},
+            new Object[]{"1,root,"},
+            new Object[]{"1,root,,"},
+            new Object[]{"1x,root,root"},
+            new Object[]{"99999999999,root,root"}
+        };
+    }
+
+    private Object[] invalidHypernymLines() {
+        return new Object[]{
+            new Object[]{"a"},
+            new Object[]{"1,"},
+            new Object[]{",1"},
+            new Object[]{"1,,2"},
+            new Object[]{"1, 2"},
+            new Object[]{"1;2"},
+            new Object[]{"99999999999"}
+        };
+    }
+
+    @Test
+    @Parameters(method = "invalidSynsetLines")
+    public void invalidSynsetLineThrowsException(String line) throws IOException {
+        thrown.expect(IllegalArgumentException.class);
+        thrown.expectMessage("synset file contains invalid line: " + line);
+
+        WordNetParser.parseSynsets(write("0,root,root\n" + line + "\n"), 1);
+    }
+
+    @Test
+    @Parameters(method = "invalidHypernymLines")
+    public void invalidHypernymLineThrowsException(String line) throws IOException {
+        thrown.expect(IllegalArgumentException.class);
+        thrown.expectMessage("hypernym file contains invalid line: " + line);
+
+        WordNetParser.parseHypernyms(write("0\n" + line + "\n"), 1);
+    }
+
+    @Test
+    public void emptyLineIsInvalid() throws IOException {
+        thrown.expect(IllegalArgumentException.class);
+        thrown.expectMessage("hypernym file contains invalid line: ");
+
+        WordNetParser.parseHypernyms(write("0\n\n1,0\n"), 1);
+    }
+
+    @Test
+    public void parseSynsets() throws IOException {
+        WordNetParser.Synsets synsets = WordNetParser.parseSynsets(
+            write("0,root,root\r\n12,actor histrion,a performer, on stage\n3,town,a town"), 1);
+
+        assertThat(synsets.size(), is(3));
+        assertThat(synsets.id(1), is(12));
+        assertThat(synsets.text(1), is("actor histrion"));
+        assertThat(synsets.nounCount(1), is(2));
+        assertThat(synsets.noun(1, 0), is("actor"));
+        assertThat(synsets.noun(1, 1), is("histrion"));
+        assertThat(synsets.id(2), is(3));
+        assertThat(synsets.noun(2, 0), is("town"));
+    }
+
+    @Test
+    public void parseSynsetsWithMultiByteNouns() throws IOException {
+        WordNetParser.Synsets synsets = WordNetParser.parseSynsets(
+            write("0,caf\u00e9 cr\u00e8me_br\u00fbl\u00e9e tea,drinks and desserts"), 1);
+
+        assertThat(synsets.text(0), is("caf\u00e9 cr\u00e8me_br\u00fbl\u00e9e tea"));
+        assertThat(synsets.noun(0, 0), is("caf\u00e9"));
+        assertThat(synsets.noun(0, 1), is("cr\u00e8me_br\u00fbl\u00e9e"));
+        assertThat(synsets.noun(0, 2), is("tea"));
+    }
+
+    @Test
+    public void parseHypernyms() throws IOException {
+        WordNetParser.Hypernyms hypernyms = WordNetParser.parseHypernyms(
+            write("0\r\n1,0\n2,0,1\r3,2"), 1);
+
+        assertThat(hypernyms.size(), is(4));
+        assertThat(edges(hypernyms), is(Arrays.asList("1>0", "2>0", "2>1", "3>2")));
+    }
+
+    @Test
+    public void chunkedParsingMatchesSingleThreaded() throws IOException {
+        StringBuilder synsets = new StringBuilder();
+        StringBuilder hypernyms = new StringBuilder();
+        for (int i = 0; i < 100000; i++) {
+            synsets.append(i).append(",n").append(i).append(" shared").append(i % 7)
+                .append(",gloss of synset ").append(i).append('\n');
+            hypernyms.append(i);
+            for (int j = 1; j <= i % 3 && j <= i; j++) {
+                hypernyms.append(',').append(i - j);
+            }
+            hypernyms.append('\n');
+        }
+        Path synsetsFile = write(synsets.toString());
+        Path hypernymsFile = write(hypernyms.toString());
+
+        WordNetParser.Synsets single = WordNetParser.parseSynsets(synsetsFile, 1);
+        WordNetParser.Synsets chunked = WordNetParser.parseSynsets(synsetsFile, 4);
+        assertThat(chunked.size(), is(single.size()));
+        for (int i = 0; i < single.size(); i++) {
+            assertThat(chunked.id(i), is(single.id(i)));
+            assertThat(chunked.text(i), is(single.text(i)));
+            assertThat(chunked.noun(i, 1), is(single.noun(i, 1)));
+        }
+
+        assertThat(edges(WordNetParser.parseHypernyms(hypernymsFile, 4)),
+                   is(edges(WordNetParser.parseHypernyms(hypernymsFile, 1))));
+    }
+
+    private static List<String> edges(WordNetParser.Hypernyms hypernyms) {
+        List<String> edges = new ArrayList<>();
+        for (int i = 0; i < hypernyms.size(); i++) {
+            edges.add(hypernyms.from(i) + ">" + hypernyms.to(i));
+        }
+
+        return edges;
+    }
+
+    private Path write(String data) throws IOException {
+        File file = tmp.newFile();
+        Files.write(file.toPath(), data.getBytes(StandardCharsets.UTF_8));
+
+        return file.toPath();
+    }
+
+}
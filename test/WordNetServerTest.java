@@ -0,0 +1,187 @@
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class WordNetServerTest {
+
+    @Rule
+    public ExpectedException thrown = ExpectedException.none();
+
+    @Rule
+    public WordNetFiles files = new WordNetFiles();
+
+    private String synsets;
+    private String hypernyms;
+    private WordNet wordnet;
+    private WordNetServer server;
+
+    /**
+     * The languages WordNet of {@link WordNetFiles}
+     */
+    @Before
+    public void setUp() throws IOException {
+        synsets = files.languageSynsets();
+        hypernyms = files.languageHypernyms();
+        wordnet = new WordNet(synsets, hypernyms);
+        server = new WordNetServer(wordnet, new InetSocketAddress("localhost", 0), 4);
+        server.start();
+    }
+
+    @After
+    public void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    public void constructorWithNullThrowsException() throws IOException {
+        thrown.expect(NullPointerException.class);
+        thrown.expectMessage("wordnet is null");
+
+        new WordNetServer(null, new InetSocketAddress("localhost", 0), 1);
+    }
+
+    @Test
+    public void constructorWithInvalidLimitThrowsException() throws IOException {
+        thrown.expect(IllegalArgumentException.class);
+        thrown.expectMessage("maximum concurrent requests must be positive");
+
+        new WordNetServer(wordnet, new InetSocketAddress("localhost", 0), 0);
+    }
+
+    @Test
+    public void queries() throws IOException {
+        assertThat(get("/ancestor?v=c&w=lisp"), is("200 python"));
+        assertThat(get("/distance?v=java&w=c"), is("200 3"));
+        assertThat(get("/outcast?nouns=java,scala,python,c,lisp"), is("200 java"));
+        assertThat(get("/isNoun?word=java"), is("200 true"));
+        assertThat(get("/isNoun?word=php"), is("200 false"));
+    }
+
+    @Test
+    public void invalidQueries() throws IOException {
+        assertThat(get("/distance?v=java&w=php"), is("400 not a WordNet noun: php"));
+        assertThat(get("/distance?v=java"), is("400 missing parameter: w"));
+        assertThat(get("/nearest?v=java"), is("404 unknown query: /nearest"));
+    }
+
+    @Test
+    public void failedQuery() throws IOException {
+        server.stop(0);
+        wordnet = new WordNet(synsets, hypernyms, new WordNet.Options().skipSynsetText(true));
+        server = new WordNetServer(wordnet, new InetSocketAddress("localhost", 0), 4);
+        server.start();
+
+        assertThat(get("/ancestor?v=c&w=lisp"),
+                   is("500 query failed: java.lang.UnsupportedOperationException: synset text is not loaded"));
+        assertThat(get("/distance?v=java&w=c"), is("200 3"));
+    }
+
+    @Test
+    public void concurrentQueries() throws Exception {
+        ExecutorService clients = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                results.add(clients.submit(() -> get("/distance?v=c&w=java")));
+            }
+            for (Future<String> result: results) {
+                String response = result.get();
+                // requests over the limit may be turned away, never answered wrong
+                if (!response.equals("503 server is busy")) {
+                    assertThat(response, is("200 3"));
+                }
+            }
+        } finally {
+            clients.shutdown();
+        }
+    }
+
+    @Test
+    public void busyServerRejectsRequests() throws Exception {
+        server.stop(0);
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch released = new CountDownLatch(1);
+        wordnet = new WordNet(synsets, hypernyms) {
+            @Override
+            public boolean isNoun(String word) {
+                if (word.equals("blocked")) {
+                    entered.countDown();
+                    try {
+                        released.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                return super.isNoun(word);
+            }
+        };
+        server = new WordNetServer(wordnet, new InetSocketAddress("localhost", 0), 1);
+        server.start();
+        ExecutorService clients = Executors.newSingleThreadExecutor();
+        try {
+            Future<String> blocked = clients.submit(() -> get("/isNoun?word=blocked"));
+            entered.await();
+
+            HttpURLConnection connection = connect("/isNoun?word=java");
+            assertThat(connection.getResponseCode(), is(503));
+            assertThat(connection.getHeaderField("Retry-After"), is("1"));
+            assertThat(body(connection), is("server is busy"));
+
+            released.countDown();
+            assertThat(blocked.get(), is("200 false"));
+            assertThat(get("/isNoun?word=java"), is("200 true"));
+        } finally {
+            released.countDown();
+            clients.shutdown();
+        }
+    }
+
+    private String get(String query) throws IOException {
+        HttpURLConnection connection = connect(query);
+        int status = connection.getResponseCode();
+
+        return status + " " + body(connection);
+    }
+
+    private HttpURLConnection connect(String query) throws IOException {
+        URL url = new URL("http://localhost:" + server.port() + query);
+
+        return (HttpURLConnection) url.openConnection();
+    }
+
+    private static String body(HttpURLConnection connection) throws IOException {
+        int status = connection.getResponseCode();
+        InputStream in = status < 400 ? connection.getInputStream() : connection.getErrorStream();
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        byte[] buffer = new byte[256];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            body.write(buffer, 0, read);
+        }
+        in.close();
+
+        return new String(body.toByteArray(), StandardCharsets.UTF_8).trim();
+    }
+
+}
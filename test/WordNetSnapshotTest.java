@@ -0,0 +1,181 @@
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
+
+public class WordNetSnapshotTest {
+
+    @Rule
+    public ExpectedException thrown = ExpectedException.none();
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void openWithNullThrowsException() {
+        thrown.expect(NullPointerException.class);
+        thrown.expectMessage("snapshot file is null");
+
+        WordNetSnapshot.open(null);
+    }
+
+    @Test
+    public void openWithMissingFileThrowsException() {
+        thrown.expect(IllegalArgumentException.class);
+        thrown.expectMessage("snapshot file does not exist");
+
+        WordNetSnapshot.open(createFile().getAbsolutePath() + "x");
+    }
+
+    @Test
+    public void openWithInvalidFileThrowsException() {
+        thrown.expect(IllegalArgumentException.class);
+        thrown.expectMessage("not a WordNet snapshot");
+
+        WordNetSnapshot.open(writeToFile(Arrays.asList("0,root,root")));
+    }
+
+    @Test
+    public void openWithUnsupportedVersionThrowsException() throws IOException {
+        thrown.expect(IllegalArgumentException.class);
+        thrown.expectMessage("unsupported snapshot version: 99");
+        File file = createFile();
+        ByteBuffer header = ByteBuffer.allocate(36).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(WordNetSnapshot.MAGIC).putInt(99);
+        Files.write(file.toPath(), header.array());
+
+        WordNetSnapshot.open(file.getAbsolutePath());
+    }
+
+    @Test
+    public void savedSnapshotAnswersLikeTextFiles() {
+        WordNet text = new WordNet(createSynsetsFile(), createHypernymsFile());
+        String snapshot = createFile().getAbsolutePath();
+        text.save(snapshot);
+
+        WordNet mapped = WordNet.open(snapshot);
+
+        assertThat(mapped.nouns(),
+                   containsInAnyOrder(
+                        "root", "Aberdeen", "Depardieu", "Gerard_Depardieu",
+                        "actor", "histrion", "player", "thespian", "town",
+                        "port_of_entry", "point_of_entry"));
+        assertThat(mapped.isNoun("thespian"), is(true));
+        assertThat(mapped.isNoun("Paris"), is(false));
+        assertThat(mapped.distance("Aberdeen", "town"), is(1));
+        assertThat(mapped.distance("Aberdeen", "Gerard_Depardieu"),
+                   is(text.distance("Aberdeen", "Gerard_Depardieu")));
+        assertThat(mapped.sap("Aberdeen", "Depardieu"), is("root"));
+        assertThat(mapped.sap("Aberdeen", "port_of_entry"), is("port_of_entry point_of_entry"));
+    }
+
+    @Test
+    public void snapshotRecordsValidation() {
+        String snapshot = createFile().getAbsolutePath();
+        new WordNet(createSynsetsFile(), createHypernymsFile()).save(snapshot);
+
+        WordNetSnapshot mapped = WordNetSnapshot.open(snapshot);
+
+        assertThat(mapped.isAcyclic(), is(true));
+        assertThat(mapped.isRooted(), is(true));
+        assertThat(mapped.graph().V(), is(6));
+        assertThat(mapped.graph().E(), is(6));
+    }
+
+    @Test
+    public void snapshotRecordsDepths() {
+        String snapshot = createFile().getAbsolutePath();
+        new WordNet(createSynsetsFile(), createHypernymsFile()).save(snapshot);
+
+        WordNetSnapshot mapped = WordNetSnapshot.open(snapshot);
+        CycleDetector detector = new CycleDetector(mapped.graph());
+
+        assertThat(mapped.minDepths(), is(detector.depths()));
+        assertThat(mapped.maxDepths(), is(detector.maxDepths()));
+        assertThat(mapped.maxDepths()[0], is(0));
+        assertThat(mapped.maxDepths()[2], is(2));
+    }
+
+    @Test
+    public void openWithPreviousVersionThrowsException() throws IOException {
+        thrown.expect(IllegalArgumentException.class);
+        thrown.expectMessage("unsupported snapshot version: 1");
+        File file = createFile();
+        ByteBuffer header = ByteBuffer.allocate(36).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(WordNetSnapshot.MAGIC).putInt(1);
+        Files.write(file.toPath(), header.array());
+
+        WordNetSnapshot.open(file.getAbsolutePath());
+    }
+
+    @Test
+    public void openWithOffHeapGraphReadsTheMapping() {
+        String snapshot = createFile().getAbsolutePath();
+        new WordNet(createSynsetsFile(), createHypernymsFile()).save(snapshot);
+
+        WordNetSnapshot mapped = WordNetSnapshot.open(snapshot, true);
+
+        assertThat(mapped.graph().isOffHeap(), is(true));
+        assertThat(mapped.graph().neighbors(1), contains(4, 5));
+        assertThat(WordNetSnapshot.open(snapshot).graph().isOffHeap(), is(false));
+    }
+
+    @Test
+    public void savedSnapshotWithOffHeapGraph() {
+        String snapshot = createFile().getAbsolutePath();
+        new WordNet(createSynsetsFile(), createHypernymsFile()).save(snapshot);
+
+        WordNet mapped = WordNet.open(snapshot, new WordNet.Options().offHeapGraph(true));
+
+        assertThat(mapped.distance("Aberdeen", "Depardieu"), is(4));
+        assertThat(mapped.sap("Aberdeen", "port_of_entry"), is("port_of_entry point_of_entry"));
+    }
+
+    private String createSynsetsFile() {
+        return writeToFile(
+            Arrays.asList(
+                "0,root,root",
+                "1,Aberdeen,a town in western Washington",
+                "2,Depardieu Gerard_Depardieu,French film actor",
+                "3,actor histrion player thespian,a theatrical performer",
+                "4,town,an urban area smaller than a city",
+                "5,port_of_entry point_of_entry,a port in the United States"));
+    }
+
+    private String createHypernymsFile() {
+        return writeToFile(Arrays.asList("0","1,4,5", "2,3", "3,0","4,0","5,0"));
+    }
+
+    private File createFile() {
+        try {
+            return tmp.newFile();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private String writeToFile(List<String> data) {
+        try {
+            File file = createFile();
+            Files.write(file.toPath(), data, StandardCharsets.US_ASCII);
+
+            return file.getAbsolutePath();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+}
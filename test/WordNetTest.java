@@ -1,5 +1,8 @@
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.hasItem;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
 import static org.junit.Assert.assertThat;
 
 import java.io.File;
@@ -7,7 +10,12 @@ import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.util.Arrays;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import junitparams.JUnitParamsRunner;
 import junitparams.Parameters;
 import junitparams.converters.Nullable;
@@ -88,6 +96,15 @@ public class WordNetTest {
         new WordNet(createSynsetsFile(), cyclicHypernyms);
     }
 
+    @Test
+    public void concurrentLoadWithCyclicHypernymsThrowsException() {
+        thrown.expect(IllegalArgumentException.class);
+        thrown.expectMessage("hypernyms graph contains a cycle");
+        String cyclicHypernyms = writeToFile(Arrays.asList("0","1,0,3","2,1,0","3,2"));
+
+        new WordNet(createSynsetsFile(), cyclicHypernyms, new WordNet.Options().concurrentLoad(true));
+    }
+
     @Test
     public void constructorWithMultiRootHypernymsThrowsException() {
         thrown.expect(IllegalArgumentException.class);
@@ -184,6 +201,472 @@ public class WordNetTest {
         assertThat(wordnet.sap("Aberdeen", "Depardieu"), is("root"));
     }
 
+    @Test
+    public void distanceAndSapWithAncestorIndex() {
+        WordNet wordnet = new WordNet(createSynsetsFile(), createHypernymsFile(),
+                                      new WordNet.Options().ancestorIndex(true));
+
+        assertThat(wordnet.distance("Aberdeen", "town"), is(1));
+        assertThat(wordnet.distance("Aberdeen", "Depardieu"), is(4));
+        assertThat(wordnet.sap("Aberdeen", "Depardieu"), is("root"));
+    }
+
+    @Test
+    public void distanceAndSapShareCacheEntries() {
+        WordNet wordnet = new WordNet(createSynsetsFile(), createHypernymsFile(),
+                                      new WordNet.Options().cache(100, QueryCache.Policy.LRU));
+
+        assertThat(wordnet.distance("Aberdeen", "Depardieu"), is(4));
+        assertThat(wordnet.sap("Depardieu", "Aberdeen"), is("root"));
+        assertThat(wordnet.distance("Gerard_Depardieu", "Aberdeen"), is(4));
+        assertThat(wordnet.cacheStats().misses(), is(1L));
+        assertThat(wordnet.cacheStats().hits(), is(2L));
+    }
+
+    @Test
+    public void addSynset() {
+        WordNet wordnet = new WordNet(createSynsetsFile(), createHypernymsFile());
+        int id = wordnet.addSynset("Lyon", 4);
+
+        assertThat(id, is(6));
+        assertThat(wordnet.isNoun("Lyon"), is(true));
+        assertThat(wordnet.distance("Lyon", "Aberdeen"), is(2));
+        assertThat(wordnet.sap("Lyon", "Aberdeen"), is("town"));
+        assertThat(wordnet.nearest("Lyon", 1), contains("town"));
+    }
+
+    @Test
+    public void addSynsetWithExistingNoun() {
+        WordNet wordnet = new WordNet(createSynsetsFile(), createHypernymsFile());
+        wordnet.addSynset("player musician", 0);
+
+        assertThat(wordnet.distance("player", "Depardieu"), is(1));
+        assertThat(wordnet.distance("musician", "root"), is(1));
+        assertThat(wordnet.sap("player", "town"), is("root"));
+    }
+
+    @Test
+    public void addSynsetWithNullThrowsException() {
+        thrown.expect(NullPointerException.class);
+        thrown.expectMessage("synset is null");
+
+        new WordNet(createSynsetsFile(), createHypernymsFile()).addSynset(null, 0);
+    }
+
+    @Test
+    public void addSynsetWithInvalidHypernymThrowsException() {
+        thrown.expect(IllegalArgumentException.class);
+        thrown.expectMessage("invalid synset id: 6");
+
+        new WordNet(createSynsetsFile(), createHypernymsFile()).addSynset("Lyon", 6);
+    }
+
+    @Test
+    public void addSynsetWithoutHypernymsThrowsException() {
+        thrown.expect(IllegalArgumentException.class);
+        thrown.expectMessage("hypernyms graph contains multiple roots");
+
+        new WordNet(createSynsetsFile(), createHypernymsFile()).addSynset("Lyon");
+    }
+
+    @Test
+    public void addHypernym() {
+        WordNet wordnet = new WordNet(createSynsetsFile(), createHypernymsFile());
+        wordnet.addHypernym(2, 4);
+
+        assertThat(wordnet.distance("Depardieu", "Aberdeen"), is(2));
+        assertThat(wordnet.sap("Depardieu", "Aberdeen"), is("town"));
+        assertThat(wordnet.distance("actor", "Aberdeen"), is(3));
+    }
+
+    @Test
+    public void addHypernymClosingCycleThrowsException() {
+        thrown.expect(IllegalArgumentException.class);
+        thrown.expectMessage("hypernym would close a cycle: 4 -> 6");
+
+        WordNet wordnet = new WordNet(createSynsetsFile(), createHypernymsFile());
+        int id = wordnet.addSynset("Lyon", 4);
+        wordnet.addHypernym(4, id);
+    }
+
+    @Test
+    public void rejectedEditLeavesWordNetUnchanged() {
+        WordNet wordnet = new WordNet(createSynsetsFile(), createHypernymsFile());
+        try {
+            wordnet.addHypernym(0, 1);
+        } catch (IllegalArgumentException e) {
+            assertThat(e.getMessage(), is("hypernym would close a cycle: 0 -> 1"));
+        }
+
+        assertThat(wordnet.distance("Aberdeen", "Depardieu"), is(4));
+        assertThat(wordnet.sap("Aberdeen", "root"), is("root"));
+    }
+
+    @Test
+    public void addHypernymInvalidatesCachedPaths() {
+        WordNet wordnet = new WordNet(createSynsetsFile(), createHypernymsFile(),
+                                      new WordNet.Options().cache(10, QueryCache.Policy.LRU));
+        wordnet.distance("Aberdeen", "Depardieu");
+        wordnet.distance("Aberdeen", "town");
+        wordnet.addHypernym(2, 4);
+
+        assertThat(wordnet.distance("Aberdeen", "town"), is(1));
+        assertThat(wordnet.cacheStats().size(), is(1L));
+        assertThat(wordnet.cacheStats().hits(), is(1L));
+        assertThat(wordnet.distance("Aberdeen", "Depardieu"), is(2));
+    }
+
+    @Test
+    public void editsWithAncestorIndexAndLandmarks() {
+        WordNet wordnet = new WordNet(createSynsetsFile(), createHypernymsFile(),
+                                      new WordNet.Options().ancestorIndex(true).landmarks(2));
+        wordnet.distance("Aberdeen", "Depardieu");
+        int id = wordnet.addSynset("Lyon", 4);
+        wordnet.addHypernym(2, id);
+
+        assertThat(wordnet.distance("Depardieu", "Aberdeen"), is(3));
+        assertThat(wordnet.sap("Depardieu", "Aberdeen"), is("town"));
+        assertThat(wordnet.distance("Depardieu", "actor"), is(1));
+    }
+
+    @Test
+    public void editLandmarkWithEdgeToNewSynset() {
+        String synsets = writeToFile(Arrays.asList("0,a,gloss", "1,b,gloss", "2,c,gloss", "3,d,gloss"));
+        String hypernyms = writeToFile(Arrays.asList("0,1", "1,3", "2,3"));
+        WordNet wordnet = new WordNet(synsets, hypernyms, new WordNet.Options().landmarks(2));
+        wordnet.distance("a", "c");
+        // b is a landmark below the root d
+        int id = wordnet.addSynset("x", 3);
+        wordnet.addHypernym(1, id);
+
+        assertThat(wordnet.distance("a", "c"), is(3));
+        assertThat(wordnet.sap("a", "c"), is("d"));
+        assertThat(wordnet.distance("b", "x"), is(1));
+        assertThat(wordnet.sap("a", "x"), is("x"));
+    }
+
+    @Test
+    public void saveAfterEdits() throws IOException {
+        WordNet wordnet = new WordNet(createSynsetsFile(), createHypernymsFile());
+        wordnet.addSynset("Lyon", 4);
+        wordnet.addHypernym(2, 4);
+        String snapshot = createFile().getAbsolutePath();
+        wordnet.save(snapshot);
+        WordNet opened = WordNet.open(snapshot);
+
+        assertThat(opened.distance("Lyon", "Depardieu"), is(2));
+        assertThat(opened.sap("Lyon", "Depardieu"), is("town"));
+    }
+
+    @Test
+    public void addSynsetWithoutSynsetText() {
+        WordNet wordnet = new WordNet(createSynsetsFile(), createHypernymsFile(),
+                                      new WordNet.Options().skipSynsetText(true));
+        wordnet.addSynset("Lyon", 4);
+
+        assertThat(wordnet.distance("Lyon", "Aberdeen"), is(2));
+    }
+
+    @Test
+    public void distanceAndSapWithOffHeapGraph() {
+        WordNet wordnet = new WordNet(createSynsetsFile(), createHypernymsFile(),
+                                      new WordNet.Options().offHeapGraph(true));
+        wordnet.addHypernym(2, 4);
+
+        assertThat(wordnet.distance("Aberdeen", "town"), is(1));
+        assertThat(wordnet.distance("Aberdeen", "Depardieu"), is(2));
+        assertThat(wordnet.sap("Aberdeen", "Depardieu"), is("town"));
+    }
+
+    @Test
+    public void metrics() {
+        WordNet wordnet = new WordNet(createSynsetsFile(), createHypernymsFile());
+        wordnet.distance("Aberdeen", "Depardieu");
+        wordnet.sap("Aberdeen", "Depardieu");
+        new Outcast(wordnet).outcast(new String[]{"Aberdeen", "town", "actor"});
+        WordNetMetrics.Snapshot metrics = wordnet.metrics().snapshot();
+
+        assertThat(metrics.latency(WordNetMetrics.Operation.DISTANCE).count(), is(1L));
+        assertThat(metrics.latency(WordNetMetrics.Operation.SAP).count(), is(1L));
+        assertThat(metrics.latency(WordNetMetrics.Operation.OUTCAST).count(), is(1L));
+        assertThat(metrics.search().queries(), is(2L));
+        assertThat(metrics.synsetParseNanos() > 0, is(true));
+        assertThat(metrics.hypernymParseNanos() > 0, is(true));
+        assertThat(metrics.cycleCheckNanos() > 0, is(true));
+        assertThat(metrics.phaseNanos(WordNetMetrics.Phase.NOUNS) > 0, is(true));
+        assertThat(metrics.phaseNanos(WordNetMetrics.Phase.SEARCH) > 0, is(true));
+        assertThat(metrics.loadNanos() > 0, is(true));
+    }
+
+    @Test
+    public void concurrentLoad() {
+        WordNet wordnet = new WordNet(createSynsetsFile(), createHypernymsFile(),
+                                      new WordNet.Options().concurrentLoad(true).ancestorIndex(true));
+        WordNetMetrics.Snapshot metrics = wordnet.metrics().snapshot();
+
+        assertThat(wordnet.isNoun("Aberdeen"), is(true));
+        assertThat(wordnet.distance("Aberdeen", "Depardieu"), is(4));
+        assertThat(wordnet.sap("Aberdeen", "Depardieu"), is("root"));
+        for (WordNetMetrics.Phase phase : WordNetMetrics.Phase.values()) {
+            assertThat(metrics.phaseNanos(phase) > 0, is(true));
+        }
+        assertThat(metrics.loadNanos() > 0, is(true));
+    }
+
+    @Test
+    public void lazyGraphLoadsOnFirstDistance() {
+        WordNet wordnet = new WordNet(createSynsetsFile(), createHypernymsFile(),
+                                      new WordNet.Options().lazyGraph(true));
+
+        assertThat(wordnet.isNoun("Aberdeen"), is(true));
+        assertThat(wordnet.nouns(), hasItem("Depardieu"));
+        assertThat(wordnet.metrics().snapshot().hypernymParseNanos(), is(0L));
+        assertThat(wordnet.distance("Aberdeen", "Depardieu"), is(4));
+        assertThat(wordnet.sap("Aberdeen", "Depardieu"), is("root"));
+        assertThat(wordnet.metrics().snapshot().hypernymParseNanos() > 0, is(true));
+        assertThat(wordnet.metrics().snapshot().search().queries(), is(2L));
+    }
+
+    @Test
+    public void lazyGraphWithCyclicHypernymsThrowsExceptionOnQuery() {
+        String cyclicHypernyms = writeToFile(Arrays.asList("0","1,0,3","2,1,0","3,2"));
+        WordNet wordnet = new WordNet(createSynsetsFile(), cyclicHypernyms,
+                                      new WordNet.Options().lazyGraph(true));
+
+        assertThat(wordnet.isNoun("Aberdeen"), is(true));
+        thrown.expect(IllegalArgumentException.class);
+        thrown.expectMessage("hypernyms graph contains a cycle");
+
+        wordnet.distance("Aberdeen", "Depardieu");
+    }
+
+    @Test
+    public void lazyGraphAcceptsEdits() {
+        WordNet wordnet = new WordNet(createSynsetsFile(), createHypernymsFile(),
+                                      new WordNet.Options().lazyGraph(true));
+        wordnet.addHypernym(2, 4);
+
+        assertThat(wordnet.distance("Aberdeen", "town"), is(1));
+        assertThat(wordnet.distance("Aberdeen", "Depardieu"), is(2));
+    }
+
+    @Test
+    public void lazyGraphLoadsOnce() throws Exception {
+        WordNet wordnet = new WordNet(createSynsetsFile(), createHypernymsFile(),
+                                      new WordNet.Options().lazyGraph(true));
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Integer>> distances = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                distances.add(executor.submit(() -> wordnet.distance("Aberdeen", "Depardieu")));
+            }
+            for (Future<Integer> distance : distances) {
+                assertThat(distance.get(), is(4));
+            }
+        } finally {
+            executor.shutdown();
+        }
+        long parsed = wordnet.metrics().snapshot().hypernymParseNanos();
+        wordnet.distance("Aberdeen", "town");
+
+        assertThat(wordnet.metrics().snapshot().hypernymParseNanos(), is(parsed));
+    }
+
+    @Test
+    public void distanceAndSapAsyncShareSearch() throws Exception {
+        WordNet wordnet = new WordNet(createSynsetsFile(), createHypernymsFile());
+        List<Runnable> tasks = new ArrayList<>();
+        CompletableFuture<Integer> distance = wordnet.distanceAsync("Aberdeen", "Depardieu", tasks::add);
+        CompletableFuture<String> sap = wordnet.sapAsync("Depardieu", "Aberdeen", tasks::add);
+
+        assertThat(tasks.size(), is(1));
+        tasks.get(0).run();
+        assertThat(distance.get(), is(4));
+        assertThat(sap.get(), is("root"));
+        assertThat(wordnet.metrics().snapshot().search().queries(), is(1L));
+        assertThat(wordnet.metrics().snapshot().latency(WordNetMetrics.Operation.SAP).count(), is(1L));
+    }
+
+    @Test
+    public void distanceAsyncAfterEditIsNotCoalesced() throws Exception {
+        WordNet wordnet = new WordNet(createSynsetsFile(), createHypernymsFile());
+        List<Runnable> tasks = new ArrayList<>();
+        CompletableFuture<Integer> before = wordnet.distanceAsync("Aberdeen", "Depardieu", tasks::add);
+        wordnet.addHypernym(2, 4);
+        CompletableFuture<Integer> after = wordnet.distanceAsync("Aberdeen", "Depardieu", tasks::add);
+
+        assertThat(tasks.size(), is(2));
+        tasks.forEach(Runnable::run);
+        assertThat(before.get(), is(2));
+        assertThat(after.get(), is(2));
+    }
+
+    @Test
+    public void distanceAsyncOnCommonPool() throws Exception {
+        WordNet wordnet = new WordNet(createSynsetsFile(), createHypernymsFile(),
+                                      new WordNet.Options().lazyGraph(true));
+
+        assertThat(wordnet.distanceAsync("Aberdeen", "town").get(), is(1));
+        assertThat(wordnet.sapAsync("Aberdeen", "town").get(), is("town"));
+    }
+
+    @Test
+    public void distanceAsyncWithInvalidNounThrowsException() {
+        thrown.expect(IllegalArgumentException.class);
+        thrown.expectMessage("not a WordNet noun: zebra");
+
+        new WordNet(createSynsetsFile(), createHypernymsFile())
+            .distanceAsync("Aberdeen", "zebra", Runnable::run);
+    }
+
+    @Test
+    public void outcastAsync() throws Exception {
+        WordNet wordnet = new WordNet(createSynsetsFile(), createHypernymsFile());
+        String[] nouns = {"Aberdeen", "town", "actor"};
+        List<Runnable> tasks = new ArrayList<>();
+        CompletableFuture<String> first = wordnet.outcastAsync(nouns, tasks::add);
+        CompletableFuture<String> second = wordnet.outcastAsync(nouns.clone(), tasks::add);
+
+        assertThat(tasks.size(), is(1));
+        tasks.get(0).run();
+        assertThat(first.get(), is(new Outcast(wordnet).outcast(nouns)));
+        assertThat(second.get(), is(first.get()));
+    }
+
+    @Test
+    public void nearest() {
+        WordNet wordnet = new WordNet(createSynsetsFile(), createHypernymsFile());
+
+        assertThat(wordnet.nearest("Aberdeen", 4),
+                   contains("point_of_entry", "port_of_entry", "town", "root"));
+        assertThat(wordnet.nearest("actor", 3), contains("histrion", "player", "thespian"));
+        assertThat(wordnet.nearest("Aberdeen", 100).size(), is(10));
+    }
+
+    @Test
+    public void nearestWithInvalidNounThrowsException() {
+        thrown.expect(IllegalArgumentException.class);
+        thrown.expectMessage("not a WordNet noun: php");
+
+        WordNet wordnet = new WordNet(createSynsetsFile(), createHypernymsFile());
+
+        wordnet.nearest("php", 1);
+    }
+
+    @Test
+    public void distanceMatrixWithNullThrowsException() {
+        thrown.expect(NullPointerException.class);
+        thrown.expectMessage("nouns are null");
+
+        WordNet wordnet = new WordNet(createSynsetsFile(), createHypernymsFile());
+
+        wordnet.distanceMatrix(null);
+    }
+
+    @Test
+    public void distanceMatrixWithInvalidNounThrowsException() {
+        thrown.expect(IllegalArgumentException.class);
+        thrown.expectMessage("not a WordNet noun: php");
+
+        WordNet wordnet = new WordNet(createSynsetsFile(), createHypernymsFile());
+
+        wordnet.distanceMatrix(Arrays.asList("Aberdeen", "php"));
+    }
+
+    @Test
+    public void distanceMatrix() {
+        WordNet wordnet = new WordNet(createSynsetsFile(), createHypernymsFile());
+        DistanceMatrix matrix = wordnet.distanceMatrix(Arrays.asList("Aberdeen", "Depardieu"));
+
+        assertThat(matrix.distance(0, 1), is(wordnet.distance("Aberdeen", "Depardieu")));
+    }
+
+    @Test
+    public void distanceAndSapWithLandmarks() {
+        WordNet wordnet = new WordNet(createSynsetsFile(), createHypernymsFile(),
+                                      new WordNet.Options().landmarks(2));
+
+        assertThat(wordnet.distance("Aberdeen", "Depardieu"), is(4));
+        assertThat(wordnet.sap("Aberdeen", "Depardieu"), is("root"));
+    }
+
+    @Test
+    public void approximateDistanceWithLandmarks() {
+        WordNet wordnet = new WordNet(createSynsetsFile(), createHypernymsFile(),
+                                      new WordNet.Options().landmarks(1).approximateDistances(true));
+
+        assertThat(wordnet.distance("Aberdeen", "Depardieu"), is(4));
+    }
+
+    @Test
+    public void negativeLandmarksThrowsException() {
+        thrown.expect(IllegalArgumentException.class);
+        thrown.expectMessage("number of landmarks must not be negative");
+
+        new WordNet.Options().landmarks(-1);
+    }
+
+    @Test
+    public void distanceWithoutSynsetText() {
+        WordNet wordnet = new WordNet(createSynsetsFile(), createHypernymsFile(),
+                                      new WordNet.Options().skipSynsetText(true));
+
+        assertThat(wordnet.distance("Aberdeen", "Depardieu"), is(4));
+    }
+
+    @Test
+    public void sapWithoutSynsetTextThrowsException() {
+        thrown.expect(UnsupportedOperationException.class);
+        thrown.expectMessage("synset text is not loaded");
+        WordNet wordnet = new WordNet(createSynsetsFile(), createHypernymsFile(),
+                                      new WordNet.Options().skipSynsetText(true));
+
+        wordnet.sap("Aberdeen", "Depardieu");
+    }
+
+    @Test
+    public void cacheStatsWithoutCache() {
+        WordNet wordnet = new WordNet(createSynsetsFile(), createHypernymsFile());
+
+        assertThat(wordnet.cacheStats(), is(nullValue()));
+    }
+
+    @Test
+    public void concurrentQueries() throws Exception {
+        WordNet wordnet = new WordNet(createSynsetsFile(), createHypernymsFile());
+        List<String> nouns = new ArrayList<>();
+        wordnet.nouns().forEach(nouns::add);
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                results.add(executor.submit(() -> {
+                    for (int i = 0; i < 200; i++) {
+                        for (String a: nouns) {
+                            for (String b: nouns) {
+                                int distance = wordnet.distance(a, b);
+                                if (distance != wordnet.distance(b, a)) {
+                                    return false;
+                                }
+                            }
+                        }
+                        if (wordnet.distance("Aberdeen", "town") != 1
+                                || !wordnet.sap("Aberdeen", "Depardieu").equals("root")) {
+                            return false;
+                        }
+                    }
+                    return true;
+                }));
+            }
+            for (Future<Boolean> result: results) {
+                assertThat(result.get(), is(true));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
     private String createSynsetsFile() {
         return writeToFile(
             Arrays.asList(